@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("io.quarkus") version "3.8.1"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -11,11 +12,15 @@ dependencies {
     implementation(enforcedPlatform("io.quarkus:quarkus-bom:3.8.1"))
     implementation("io.quarkus:quarkus-resteasy-reactive")
     implementation("io.quarkus:quarkus-resteasy-reactive-jackson")
+    implementation("io.quarkus:quarkus-micrometer-registry-prometheus")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
     implementation("jakarta.ws.rs:jakarta.ws.rs-api:3.1.0")
     implementation("org.slf4j:slf4j-api:2.0.12")
-    implementation("org.slf4j:slf4j-simple:2.0.12")
+    // slf4j is routed to the JBoss log manager of Quarkus (with the async console handler, see application.properties)
+    implementation("org.jboss.slf4j:slf4j-jboss-logmanager")
     implementation("org.apache.commons:commons-lang3:3.14.0")
     implementation("jakarta.servlet:jakarta.servlet-api:6.0.0")
+    implementation("com.h2database:h2-mvstore:2.2.224")
 
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testImplementation("io.quarkus:quarkus-junit5")
@@ -23,8 +28,38 @@ dependencies {
 }
 
 java {
-    sourceCompatibility = JavaVersion.VERSION_17
-    targetCompatibility = JavaVersion.VERSION_17
+    sourceCompatibility = JavaVersion.VERSION_21
+    targetCompatibility = JavaVersion.VERSION_21
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform {
+        // the load tests take a while, so they are only run with: ./gradlew test -PloadTests
+        if (project.hasProperty("loadTests")) {
+            includeTags("load")
+        } else {
+            excludeTags("load")
+        }
+    }
+}
+
+// a native executable (with a faster startup and a smaller memory footprint) is built with: ./gradlew build -Pnative
+// without a local GraalVM (GRAALVM_HOME) the native image is built in a container (docker or podman)
+if (project.hasProperty("native")) {
+    quarkus {
+        set("package.type", "native")
+        set("native.container-build", (System.getenv("GRAALVM_HOME") == null).toString())
+    }
+}
+
+// the benchmarks (in src/jmh/java) are run with: ./gradlew jmh
+// a subset of the benchmarks and profilers can be selected with: ./gradlew jmh -PjmhIncludes=PlanFileServiceBenchmark -PjmhProfilers=gc
+jmh {
+    jmhVersion.set("1.37")
+    includes.set(listOfNotNull(project.findProperty("jmhIncludes")?.toString()))
+    profilers.set(listOfNotNull(project.findProperty("jmhProfilers")?.toString()))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
 }
 
 tasks.register("buildFrontend") {
@@ -0,0 +1,130 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.*;
+import net.tfassbender.gameplan.persistence.file.GameFileService;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import net.tfassbender.gameplan.persistence.file.PlanFileIndex;
+import net.tfassbender.gameplan.persistence.file.UserFileService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Generates the games and plans, that are used in the benchmarks.
+ */
+public class BenchmarkData {
+
+  public static final String GAME_NAME = "BenchmarkGame";
+  public static final String USER_NAME = "BenchmarkUser";
+
+  private static final List<String> RESOURCE_ORDER = List.of("Points", "Gold", "Round", "Power", "Cults", "Research", "Buildings");
+
+  private BenchmarkData() {}
+
+  /**
+   * A game that uses all resource types.
+   */
+  public static GameDto createGame() {
+    GameDto game = new GameDto();
+    game.name = GAME_NAME;
+    game.description = "A game with all resource types";
+    game.resourceOrder.addAll(RESOURCE_ORDER);
+    game.resources.put("Points", ResourceType.SIMPLE);
+    game.resources.put("Gold", ResourceType.SIMPLE);
+    game.resources.put("Round", ResourceType.ABSOLUTE);
+    game.resources.put("Power", ResourceType.TERRA_MYSTICA_POWER);
+    game.resources.put("Cults", ResourceType.TERRA_MYSTICA_CULTS);
+    game.resources.put("Research", ResourceType.SIMPLE_COMBINED);
+    game.resources.put("Buildings", ResourceType.ONE_TIME_COMBINED);
+    game.defaultStartingResources = createStage(0, true);
+    return game;
+  }
+
+  /**
+   * A plan of the benchmark game, that contains changes of all resource types in every stage.
+   */
+  public static PlanDto createPlan(String planName, int stageCount) {
+    GameDto game = createGame();
+    PlanDto plan = new PlanDto();
+    plan.name = planName;
+    plan.gameName = GAME_NAME;
+    plan.description = "Benchmark plan " + planName;
+    plan.lastModified = "2025-01-01T10:00:00.000Z";
+    plan.resourceTypes.putAll(game.resources);
+    plan.resourceOrder.addAll(game.resourceOrder);
+    plan.stages.add(game.defaultStartingResources);
+    for (int i = 1; i < stageCount; i++) {
+      plan.stages.add(createStage(i, false));
+    }
+    return plan;
+  }
+
+  private static PlanStageDto createStage(int index, boolean initial) {
+    PlanStageDto stage = new PlanStageDto();
+    stage.description = initial ? "Starting resources" : "Stage " + index;
+    stage.resourceChanges.put("Points", new SimpleResourceChange(initial ? 20 : index % 3));
+    stage.resourceChanges.put("Gold", new SimpleResourceChange(initial ? 15 : 2 - index % 5));
+    stage.resourceChanges.put("Round", new AbsoluteResourceChange(index % 6 == 0 ? Integer.valueOf(index / 6 + 1) : null));
+    stage.resourceChanges.put("Power", initial ? new TerraMysticaPowerResourceChange(5, 7, 0, 0, 0, 0) : new TerraMysticaPowerResourceChange(0, 0, 0, index % 4, 0, index % 2));
+    stage.resourceChanges.put("Cults", new TerraMysticaCultsResourceChange(index % 2, index % 3 == 0 ? 1 : 0, 0, 1));
+
+    Map<String, Integer> research = new LinkedHashMap<>();
+    research.put("Terraforming", index % 7 == 0 ? 1 : 0);
+    research.put("Navigation", index % 5 == 0 ? 1 : 0);
+    research.put("Economy", 0);
+    stage.resourceChanges.put("Research", new SimpleCombinedResourceChange(research, Map.of("Terraforming", "#a67c52", "Navigation", "#2196f3", "Economy", "#ff2d2d")));
+
+    Map<String, Boolean> buildings = new LinkedHashMap<>();
+    // null values do not change the previous value
+    buildings.put("Fortress", initial ? Boolean.FALSE : index % 10 == 0 ? Boolean.TRUE : null);
+    buildings.put("Sanctuary", initial ? Boolean.FALSE : null);
+    stage.resourceChanges.put("Buildings", new OneTimeCombinedResourceChange(buildings, Map.of()));
+    return stage;
+  }
+
+  /**
+   * Creates the data directory with the benchmark game and a user with the given number of plans.
+   */
+  public static Path createDataDir(PersistenceJsonMapper jsonMapper, int planCount, int stageCount) {
+    try {
+      Path dataDir = Files.createTempDirectory("game-plan-benchmark");
+      Path gamesDir = Files.createDirectories(dataDir.resolve(GameFileService.GAMES_SUB_DIR));
+      Files.write(gamesDir.resolve(GAME_NAME + ".json"), jsonMapper.writeGameAsBytes(createGame()));
+      Files.createDirectories(dataDir.resolve(PlanFileIndex.INDEX_SUB_DIR));
+
+      Path userDir = Files.createDirectories(dataDir.resolve(UserFileService.USERS_SUB_DIR).resolve(USER_NAME));
+      for (int i = 0; i < planCount; i++) {
+        String planName = getPlanName(i);
+        Files.write(userDir.resolve(planName + PlanFileIndex.PLAN_FILE_EXTENSION), jsonMapper.writePlanAsBytes(createPlan(planName, stageCount)));
+      }
+      return dataDir;
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Cannot create the benchmark data", e);
+    }
+  }
+
+  public static String getPlanName(int index) {
+    return "Plan_" + index;
+  }
+
+  public static void deleteDataDir(Path dataDir) {
+    try (Stream<Path> files = Files.walk(dataDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Cannot delete the benchmark data", e);
+    }
+  }
+}
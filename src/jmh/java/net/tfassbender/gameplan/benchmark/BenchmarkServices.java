@@ -0,0 +1,61 @@
+package net.tfassbender.gameplan.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.tfassbender.gameplan.calculation.CalculationServices;
+import net.tfassbender.gameplan.calculation.PlanTotalsService;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.file.AtomicFileWriter;
+import net.tfassbender.gameplan.persistence.file.FileServices;
+import net.tfassbender.gameplan.persistence.file.GameFileService;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import net.tfassbender.gameplan.persistence.file.PlanFileService;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the services of the persistence layer without the CDI container, so the benchmarks measure only the services
+ * and not the startup of Quarkus.
+ * <p>
+ * The services are created by the factories in the packages of the services ({@link FileServices} and
+ * {@link CalculationServices}), that use the package-private constructors of the services.
+ */
+public class BenchmarkServices {
+
+  // the metrics are recorded like in the server (but not exported)
+  private static final GamePlanMetrics METRICS = new GamePlanMetrics(new SimpleMeterRegistry());
+
+  private BenchmarkServices() {}
+
+  /**
+   * Creates an object mapper with the same configuration as the one that is managed by Quarkus.
+   */
+  public static ObjectMapper createObjectMapper() {
+    return new ObjectMapper() //
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES) //
+            .findAndRegisterModules();
+  }
+
+  public static PersistenceJsonMapper createJsonMapper() {
+    return new PersistenceJsonMapper(createObjectMapper());
+  }
+
+  public static GameFileService createGameFileService(Path dataDir, PersistenceJsonMapper jsonMapper) {
+    return FileServices.createGameFileService(dataDir, jsonMapper, METRICS);
+  }
+
+  public static AtomicFileWriter createAtomicFileWriter(AtomicFileWriter.FsyncPolicy fsyncPolicy) {
+    return FileServices.createAtomicFileWriter(fsyncPolicy, METRICS);
+  }
+
+  public static PlanFileService createPlanFileService(Path dataDir, GameFileService gameFileService, PersistenceJsonMapper jsonMapper, boolean cachePlans,
+                                                      AtomicFileWriter atomicFileWriter, boolean planLogEnabled) {
+    return FileServices.createPlanFileService(dataDir, gameFileService, jsonMapper, cachePlans, atomicFileWriter, planLogEnabled, METRICS);
+  }
+
+  public static PlanTotalsService createPlanTotalsService(PlanService planService, int cacheSize) {
+    return CalculationServices.createPlanTotalsService(planService, cacheSize, METRICS);
+  }
+}
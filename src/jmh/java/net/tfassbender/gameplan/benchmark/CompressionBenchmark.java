@@ -0,0 +1,77 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import net.tfassbender.gameplan.util.CompressionUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the latency of the gzip compression of plans with the different compression levels (for the configuration
+ * of {@code game_plan.plan_compression.level} and {@code game_plan.http_compression.level}). The compressed sizes are
+ * reported as secondary results of the {@code compress} benchmark (see {@link CompressedSize}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+  @Param({"1", "3", "6", "9"})
+  private int level;
+
+  @Param({"10", "100", "1000"})
+  private int stageCount;
+
+  private byte[] planJson;
+  private byte[] compressedPlan;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    PersistenceJsonMapper jsonMapper = BenchmarkServices.createJsonMapper();
+    planJson = jsonMapper.writePlanAsBytes(BenchmarkData.createPlan("CompressedPlan", stageCount));
+    compressedPlan = gzip();
+  }
+
+  @Benchmark
+  public byte[] compress(CompressedSize size) throws IOException {
+    byte[] compressed = gzip();
+    size.uncompressedBytes = planJson.length;
+    size.compressedBytes = compressed.length;
+    return compressed;
+  }
+
+  @Benchmark
+  public byte[] decompress() throws IOException {
+    try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressedPlan))) {
+      return inputStream.readAllBytes();
+    }
+  }
+
+  private byte[] gzip() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(planJson.length / 4);
+    try (GZIPOutputStream gzipOutputStream = CompressionUtil.gzip(outputStream, level)) {
+      gzipOutputStream.write(planJson);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * The sizes of the plan before and after the compression, reported by JMH next to the latency (the fields are set, not
+   * added up, so the result is the size of a single plan).
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class CompressedSize {
+
+    public long uncompressedBytes;
+    public long compressedBytes;
+  }
+}
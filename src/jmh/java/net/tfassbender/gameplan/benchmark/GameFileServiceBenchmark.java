@@ -0,0 +1,49 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.file.GameFileService;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the game configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameFileServiceBenchmark {
+
+  private Path dataDir;
+  private GameFileService gameFileService;
+
+  @Setup(Level.Trial)
+  public void setup() throws GamePlanPersistenceException {
+    PersistenceJsonMapper jsonMapper = BenchmarkServices.createJsonMapper();
+    dataDir = BenchmarkData.createDataDir(jsonMapper, 0, 0);
+    gameFileService = BenchmarkServices.createGameFileService(dataDir, jsonMapper);
+    gameFileService.loadGameCatalog();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkData.deleteDataDir(dataDir);
+  }
+
+  @Benchmark
+  public GameDto getGame() throws GamePlanPersistenceException {
+    return gameFileService.getGame(BenchmarkData.GAME_NAME);
+  }
+
+  @Benchmark
+  public List<String> getGameNames() throws GamePlanPersistenceException {
+    return gameFileService.getGameNames();
+  }
+}
@@ -0,0 +1,94 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.resource.SimpleResourceChange;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.file.AtomicFileWriter;
+import net.tfassbender.gameplan.persistence.file.GameFileService;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import net.tfassbender.gameplan.persistence.file.PlanFileService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the plan operations of the file persistence for users with 10, 100 and 1,000 plans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanFileServiceBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int planCount;
+
+  @Param({"20"})
+  private int stageCount;
+
+  @Param({"true", "false"})
+  private boolean cachePlans;
+
+  @Param({"ALWAYS", "NEVER"})
+  private AtomicFileWriter.FsyncPolicy fsyncPolicy;
+
+  @Param({"false", "true"})
+  private boolean planLog;
+
+  private Path dataDir;
+  private AtomicFileWriter atomicFileWriter;
+  private PlanFileService planFileService;
+  private PlanDto planToSave;
+
+  @Setup(Level.Trial)
+  public void setup() throws GamePlanPersistenceException {
+    PersistenceJsonMapper jsonMapper = BenchmarkServices.createJsonMapper();
+    dataDir = BenchmarkData.createDataDir(jsonMapper, planCount, stageCount);
+    GameFileService gameFileService = BenchmarkServices.createGameFileService(dataDir, jsonMapper);
+    atomicFileWriter = BenchmarkServices.createAtomicFileWriter(fsyncPolicy);
+    planFileService = BenchmarkServices.createPlanFileService(dataDir, gameFileService, jsonMapper, cachePlans, atomicFileWriter, planLog);
+
+    // the first access builds the plan index of the user
+    planFileService.getPlanNames(BenchmarkData.USER_NAME);
+    planToSave = planFileService.getPlan(BenchmarkData.USER_NAME, BenchmarkData.getPlanName(0));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    planFileService.shutdown();
+    atomicFileWriter.shutdown();
+    BenchmarkData.deleteDataDir(dataDir);
+  }
+
+  @Benchmark
+  public List<String> getPlanNames() throws GamePlanPersistenceException {
+    return planFileService.getPlanNames(BenchmarkData.USER_NAME);
+  }
+
+  @Benchmark
+  public PlanDto getPlan() throws GamePlanPersistenceException {
+    String planName = BenchmarkData.getPlanName(ThreadLocalRandom.current().nextInt(planCount));
+    return planFileService.getPlan(BenchmarkData.USER_NAME, planName);
+  }
+
+  @Benchmark
+  public PlanDto savePlan() throws GamePlanPersistenceException {
+    return planFileService.savePlan(BenchmarkData.USER_NAME, planToSave);
+  }
+
+  /**
+   * Saves the plan after changing one resource of a random stage (like the autosave of the frontend).
+   */
+  @Benchmark
+  public PlanDto saveChangedStage() throws GamePlanPersistenceException {
+    PlanStageDto stage = planToSave.stages.get(ThreadLocalRandom.current().nextInt(planToSave.stages.size()));
+    stage.resourceChanges.put("Gold", new SimpleResourceChange(ThreadLocalRandom.current().nextInt(100)));
+    return planFileService.savePlan(BenchmarkData.USER_NAME, planToSave);
+  }
+}
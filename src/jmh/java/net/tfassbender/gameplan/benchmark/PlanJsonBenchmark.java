@@ -0,0 +1,66 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON (de-)serialization of plans with all resource change types (and the binary Smile format of the
+ * plan files for comparison).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanJsonBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int stageCount;
+
+  private PersistenceJsonMapper jsonMapper;
+  private PlanDto plan;
+  private byte[] planJson;
+  private byte[] planBinary;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    jsonMapper = BenchmarkServices.createJsonMapper();
+    plan = BenchmarkData.createPlan("JsonPlan", stageCount);
+    planJson = jsonMapper.writePlanAsBytes(plan);
+    planBinary = serializeBinary();
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return jsonMapper.writePlanAsBytes(plan);
+  }
+
+  @Benchmark
+  public PlanDto deserialize() throws IOException {
+    return jsonMapper.readPlan(new ByteArrayInputStream(planJson));
+  }
+
+  @Benchmark
+  public PlanDto roundTrip() throws IOException {
+    return jsonMapper.readPlan(new ByteArrayInputStream(jsonMapper.writePlanAsBytes(plan)));
+  }
+
+  @Benchmark
+  public byte[] serializeBinary() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    jsonMapper.writeBinaryPlan(outputStream, plan);
+    return outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public PlanDto deserializeBinary() throws IOException {
+    return jsonMapper.readBinaryPlan(new ByteArrayInputStream(planBinary));
+  }
+}
@@ -0,0 +1,67 @@
+package net.tfassbender.gameplan.benchmark;
+
+import net.tfassbender.gameplan.calculation.CompiledPlan;
+import net.tfassbender.gameplan.calculation.PlanCompiler;
+import net.tfassbender.gameplan.calculation.PlanEvaluationState;
+import net.tfassbender.gameplan.calculation.ResourceTotalsCalculator;
+import net.tfassbender.gameplan.calculation.StageSnapshot;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calculation of the resource totals of long plans (with the snapshot based calculator and the compiled
+ * plans).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceTotalsBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int stageCount;
+
+  private GameDto game;
+  private List<PlanStageDto> stages;
+  private List<StageSnapshot> snapshots;
+  private CompiledPlan compiledPlan;
+  private PlanEvaluationState state;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    game = BenchmarkData.createGame();
+    PlanDto plan = BenchmarkData.createPlan("TotalsPlan", stageCount);
+    stages = plan.stages;
+    snapshots = ResourceTotalsCalculator.calculateSnapshots(stages);
+    compiledPlan = PlanCompiler.compile(game, plan);
+    state = compiledPlan.newState();
+  }
+
+  @Benchmark
+  public List<StageSnapshot> calculateAllStages() {
+    return ResourceTotalsCalculator.calculateSnapshots(stages);
+  }
+
+  @Benchmark
+  public List<StageSnapshot> recalculateLastStage() {
+    return ResourceTotalsCalculator.calculateSnapshots(stages, stages.size() - 1, snapshots);
+  }
+
+  @Benchmark
+  public CompiledPlan compilePlan() {
+    return PlanCompiler.compile(game, stages);
+  }
+
+  @Benchmark
+  public int evaluateCompiledPlan() {
+    compiledPlan.evaluate(state);
+    return state.getFirstNegativeStage();
+  }
+}
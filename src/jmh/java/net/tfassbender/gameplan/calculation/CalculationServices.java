@@ -0,0 +1,17 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.persistence.PlanService;
+
+/**
+ * Creates the calculation services without the CDI container (for the benchmarks), with their package-private
+ * constructors.
+ */
+public final class CalculationServices {
+
+  private CalculationServices() {}
+
+  public static PlanTotalsService createPlanTotalsService(PlanService planService, int cacheSize, GamePlanMetrics metrics) {
+    return new PlanTotalsService(planService, metrics, cacheSize);
+  }
+}
@@ -0,0 +1,72 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.NotificationOptions;
+import jakarta.enterprise.util.TypeLiteral;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Creates the file services without the CDI container (for the benchmarks). The services are created with their
+ * package-private constructors, so a changed dependency of a service is detected by the compiler. The config properties
+ * have their default values, unless they are parameters of the methods.
+ */
+public final class FileServices {
+
+  private FileServices() {}
+
+  public static GameFileService createGameFileService(Path dataDir, PersistenceJsonMapper jsonMapper, GamePlanMetrics metrics) {
+    return new GameFileService(dataDir.toString(), jsonMapper, metrics, new DroppedEvents<>());
+  }
+
+  public static AtomicFileWriter createAtomicFileWriter(AtomicFileWriter.FsyncPolicy fsyncPolicy, GamePlanMetrics metrics) {
+    return new AtomicFileWriter(fsyncPolicy, 100L, metrics);
+  }
+
+  public static PlanFileService createPlanFileService(Path dataDir, GameFileService gameFileService, PersistenceJsonMapper jsonMapper, boolean cachePlans,
+                                                      AtomicFileWriter atomicFileWriter, boolean planLogEnabled, GamePlanMetrics metrics) {
+    PlanLog planLog = new PlanLog(jsonMapper, atomicFileWriter, metrics);
+    PlanFileFormat planFileFormat = new PlanFileFormat(PlanFileFormat.Format.JSON, PlanFileFormat.Compression.NONE, 6, jsonMapper, gameFileService);
+    PlanFileIndex planIndex = new PlanFileIndex(dataDir.toString(), cachePlans, 500, jsonMapper, planFileFormat, atomicFileWriter, planLog, metrics);
+    return new PlanFileService(dataDir.toString(), gameFileService, planIndex, planFileFormat, atomicFileWriter, planLog, planLogEnabled, 200, 262144L);
+  }
+
+  /**
+   * The events of the services are not observed without the CDI container (e.g. the changes of the game configs), so
+   * they are dropped.
+   */
+  private static class DroppedEvents<T> implements Event<T> {
+
+    @Override
+    public void fire(T event) {}
+
+    @Override
+    public <U extends T> CompletionStage<U> fireAsync(U event) {
+      return CompletableFuture.completedFuture(event);
+    }
+
+    @Override
+    public <U extends T> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+      return fireAsync(event);
+    }
+
+    @Override
+    public Event<T> select(Annotation... qualifiers) {
+      return this;
+    }
+
+    @Override
+    public <U extends T> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+      return new DroppedEvents<>();
+    }
+
+    @Override
+    public <U extends T> Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+      return new DroppedEvents<>();
+    }
+  }
+}
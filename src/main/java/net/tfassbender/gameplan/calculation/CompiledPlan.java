@@ -0,0 +1,267 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.resource.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A plan that was compiled into flat arrays by the {@link PlanCompiler}, so it can be evaluated without string hashing,
+ * boxing or allocations (e.g. to validate or simulate many plans in a batch).
+ * <p>
+ * The resource changes of the stages are stored as operations on the slots of a {@link ResourceLayout}. The operations
+ * of stage {@code s} of each kind are stored at the indices {@code start[s]} (inclusive) to {@code start[s + 1]}
+ * (exclusive) of the arrays of that kind.
+ * <p>
+ * A compiled plan is immutable and can be evaluated by multiple threads at the same time (each using its own
+ * {@link PlanEvaluationState}).
+ */
+public final class CompiledPlan {
+
+  static final int POWER_ARGS = 6;
+
+  private final ResourceLayout layout;
+  private final int stageCount;
+
+  // additive changes (simple, cults and simple combined resources)
+  private final int[] addStart;
+  private final int[] addSlot;
+  private final int[] addDelta;
+
+  // absolute values (only the values that are set)
+  private final int[] absoluteStart;
+  private final int[] absoluteSlot;
+  private final int[] absoluteValue;
+
+  // terra mystica power changes: bowl 1-3, gain, burn, use per operation
+  private final int[] powerStart;
+  private final int[] powerSlot;
+  private final int[] powerArgs;
+  private final long[] powerSetsBowls;
+
+  // one time combined resources (only the values that are set)
+  private final int[] oneTimeStart;
+  private final int[] oneTimeBit;
+  private final long[] oneTimeValues;
+
+  // the slots that have to be checked for negative values after a stage
+  private final int[] checkStart;
+  private final int[] checkSlot;
+
+  CompiledPlan(ResourceLayout layout, int stageCount, //
+               int[] addStart, int[] addSlot, int[] addDelta, //
+               int[] absoluteStart, int[] absoluteSlot, int[] absoluteValue, //
+               int[] powerStart, int[] powerSlot, int[] powerArgs, long[] powerSetsBowls, //
+               int[] oneTimeStart, int[] oneTimeBit, long[] oneTimeValues, //
+               int[] checkStart, int[] checkSlot) {
+    this.layout = layout;
+    this.stageCount = stageCount;
+    this.addStart = addStart;
+    this.addSlot = addSlot;
+    this.addDelta = addDelta;
+    this.absoluteStart = absoluteStart;
+    this.absoluteSlot = absoluteSlot;
+    this.absoluteValue = absoluteValue;
+    this.powerStart = powerStart;
+    this.powerSlot = powerSlot;
+    this.powerArgs = powerArgs;
+    this.powerSetsBowls = powerSetsBowls;
+    this.oneTimeStart = oneTimeStart;
+    this.oneTimeBit = oneTimeBit;
+    this.oneTimeValues = oneTimeValues;
+    this.checkStart = checkStart;
+    this.checkSlot = checkSlot;
+  }
+
+  public ResourceLayout getLayout() {
+    return layout;
+  }
+
+  public int getStageCount() {
+    return stageCount;
+  }
+
+  /**
+   * Creates a new state, that fits the layout of this plan.
+   */
+  public PlanEvaluationState newState() {
+    return new PlanEvaluationState(layout);
+  }
+
+  /**
+   * Creates a bit set (as long array) with one bit per stage, that can be passed to
+   * {@link #evaluate(PlanEvaluationState, int, long[])} to collect the stages with negative resource totals.
+   */
+  public long[] newStageBitSet() {
+    return new long[PlanEvaluationState.words(stageCount)];
+  }
+
+  /**
+   * Evaluates all stages of the plan.
+   */
+  public void evaluate(PlanEvaluationState state) {
+    evaluate(state, stageCount - 1, null);
+  }
+
+  /**
+   * Evaluates the stages of the plan up to (and including) the given stage, starting with an empty state.
+   *
+   * @param state the state, that is reset and filled with the resource totals after the stage
+   * @param upToStage the index of the last stage to evaluate
+   * @param negativeStages a bit set (see {@link #newStageBitSet()}) in which the bits of all stages, that lead to a
+   *         negative resource total, are set (or {@code null} if only the first negative stage is needed)
+   */
+  public void evaluate(PlanEvaluationState state, int upToStage, long[] negativeStages) {
+    state.reset();
+    evaluateNextStages(state, upToStage, negativeStages);
+  }
+
+  /**
+   * Continues the evaluation of the plan from the last evaluated stage of the state up to (and including) the given
+   * stage.
+   *
+   * @see #evaluate(PlanEvaluationState, int, long[])
+   */
+  public void evaluateNextStages(PlanEvaluationState state, int upToStage, long[] negativeStages) {
+    if (upToStage >= stageCount) {
+      throw new IllegalArgumentException("The stage index " + upToStage + " is not valid for a plan with " + stageCount + " stages.");
+    }
+    if (!state.fits(layout)) {
+      throw new IllegalArgumentException("The evaluation state is too small for the layout of the plan.");
+    }
+
+    int[] values = state.values;
+    for (int stage = state.evaluatedStages; stage <= upToStage; stage++) {
+      for (int i = addStart[stage]; i < addStart[stage + 1]; i++) {
+        values[addSlot[i]] += addDelta[i];
+        PlanEvaluationState.set(state.definedSlots, addSlot[i]);
+      }
+      for (int i = absoluteStart[stage]; i < absoluteStart[stage + 1]; i++) {
+        values[absoluteSlot[i]] = absoluteValue[i];
+        PlanEvaluationState.set(state.definedSlots, absoluteSlot[i]);
+      }
+      for (int i = powerStart[stage]; i < powerStart[stage + 1]; i++) {
+        applyPower(state, i);
+      }
+      for (int i = oneTimeStart[stage]; i < oneTimeStart[stage + 1]; i++) {
+        if (PlanEvaluationState.isSet(oneTimeValues, i)) {
+          PlanEvaluationState.set(state.bits, oneTimeBit[i]);
+        }
+        else {
+          PlanEvaluationState.clear(state.bits, oneTimeBit[i]);
+        }
+        PlanEvaluationState.set(state.definedBits, oneTimeBit[i]);
+      }
+
+      boolean negative = false;
+      for (int i = checkStart[stage]; i < checkStart[stage + 1]; i++) {
+        negative |= values[checkSlot[i]] < 0;
+      }
+      if (negative) {
+        if (state.firstNegativeStage < 0) {
+          state.firstNegativeStage = stage;
+        }
+        if (negativeStages != null) {
+          PlanEvaluationState.set(negativeStages, stage);
+        }
+      }
+      state.evaluatedStages = stage + 1;
+    }
+  }
+
+  /**
+   * Converts the state into resource totals (like the totals of the {@link ResourceTotalsCalculator}), that contain the
+   * resources that were changed by the evaluated stages.
+   * <p>
+   * The compiled plan contains only the values of the resources, so the totals don't contain the colors of the combined
+   * resources and the gain, burn and use values of the last power change (they are 0).
+   */
+  public Map<String, ResourceChangeValue> getTotals(PlanEvaluationState state) {
+    Map<String, ResourceChangeValue> totals = new HashMap<>();
+    for (String resource : layout.getResourceNames()) {
+      int slot = layout.getSlot(resource);
+      ResourceChangeValue total = switch (layout.getType(resource)) {
+        case SIMPLE -> state.isDefined(slot) ? new SimpleResourceChange(state.getValue(slot)) : null;
+        case ABSOLUTE -> state.isDefined(slot) ? new AbsoluteResourceChange(state.getValue(slot)) : null;
+        case TERRA_MYSTICA_POWER -> state.isDefined(slot) ? new TerraMysticaPowerResourceChange(state.getValue(slot + ResourceLayout.POWER_BOWL_1), //
+                state.getValue(slot + ResourceLayout.POWER_BOWL_2), state.getValue(slot + ResourceLayout.POWER_BOWL_3), 0, 0, 0) : null;
+        case TERRA_MYSTICA_CULTS -> state.isDefined(slot) ? new TerraMysticaCultsResourceChange(state.getValue(slot + ResourceLayout.CULT_FIRE), //
+                state.getValue(slot + ResourceLayout.CULT_WATER), state.getValue(slot + ResourceLayout.CULT_EARTH), state.getValue(slot + ResourceLayout.CULT_AIR)) : null;
+        case SIMPLE_COMBINED -> getCombinedTotal(state, resource);
+        case ONE_TIME_COMBINED -> getOneTimeTotal(state, resource);
+      };
+      if (total != null) {
+        totals.put(resource, total);
+      }
+    }
+    return totals;
+  }
+
+  private SimpleCombinedResourceChange getCombinedTotal(PlanEvaluationState state, String resource) {
+    Map<String, Integer> resources = new LinkedHashMap<>();
+    for (String combinedResource : layout.getCombinedResourceNames(resource)) {
+      int slot = layout.getSlot(resource, combinedResource);
+      if (state.isDefined(slot)) {
+        resources.put(combinedResource, state.getValue(slot));
+      }
+    }
+    return resources.isEmpty() ? null : new SimpleCombinedResourceChange(resources, null);
+  }
+
+  private OneTimeCombinedResourceChange getOneTimeTotal(PlanEvaluationState state, String resource) {
+    Map<String, Boolean> resources = new LinkedHashMap<>();
+    for (String combinedResource : layout.getCombinedResourceNames(resource)) {
+      int bit = layout.getBit(resource, combinedResource);
+      if (state.isBitDefined(bit)) {
+        resources.put(combinedResource, state.getBit(bit));
+      }
+    }
+    return resources.isEmpty() ? null : new OneTimeCombinedResourceChange(resources, null);
+  }
+
+  private void applyPower(PlanEvaluationState state, int operation) {
+    int[] values = state.values;
+    int slot = powerSlot[operation];
+    int args = operation * POWER_ARGS;
+
+    int bowl1;
+    int bowl2;
+    int bowl3;
+    if (PlanEvaluationState.isSet(powerSetsBowls, operation)) {
+      bowl1 = powerArgs[args];
+      bowl2 = powerArgs[args + 1];
+      bowl3 = powerArgs[args + 2];
+    }
+    else {
+      bowl1 = values[slot + ResourceLayout.POWER_BOWL_1];
+      bowl2 = values[slot + ResourceLayout.POWER_BOWL_2];
+      bowl3 = values[slot + ResourceLayout.POWER_BOWL_3];
+    }
+
+    // the same rules as in ResourceTotalsCalculator
+    int gain = Math.max(powerArgs[args + 3], 0);
+    int gainFromBowl1 = Math.min(gain, Math.max(bowl1, 0));
+    bowl1 -= gainFromBowl1;
+    bowl2 += gainFromBowl1;
+    int gainFromBowl2 = Math.min(gain - gainFromBowl1, Math.max(bowl2, 0));
+    bowl2 -= gainFromBowl2;
+    bowl3 += gainFromBowl2;
+
+    int burn = Math.max(powerArgs[args + 4], 0);
+    bowl2 -= 2 * burn;
+    bowl3 += burn;
+
+    int use = Math.max(powerArgs[args + 5], 0);
+    bowl3 -= use;
+    bowl1 += use;
+
+    values[slot + ResourceLayout.POWER_BOWL_1] = bowl1;
+    values[slot + ResourceLayout.POWER_BOWL_2] = bowl2;
+    values[slot + ResourceLayout.POWER_BOWL_3] = bowl3;
+    PlanEvaluationState.set(state.definedSlots, slot + ResourceLayout.POWER_BOWL_1);
+    PlanEvaluationState.set(state.definedSlots, slot + ResourceLayout.POWER_BOWL_2);
+    PlanEvaluationState.set(state.definedSlots, slot + ResourceLayout.POWER_BOWL_3);
+  }
+}
@@ -0,0 +1,287 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles plans into the array based {@link CompiledPlan} representation.
+ * <p>
+ * The resources are mapped to the slots of a {@link ResourceLayout} in the order of the resources of the game
+ * ({@link GameDto#resourceOrder}), so all plans of a game use the same slots for the configured resources. Resources,
+ * that are not configured in the game, get the next free slots.
+ */
+public class PlanCompiler {
+
+  private PlanCompiler() {}
+
+  /**
+   * Compiles the stages of a plan.
+   *
+   * @param game the game of the plan (to create the resource layout), or {@code null} to use only the resources of the
+   *         plan
+   * @throws IllegalArgumentException if a resource change does not match the type of the resource in the game (or the
+   *         type of its first change in the plan)
+   */
+  public static CompiledPlan compile(GameDto game, PlanDto plan) {
+    return compile(game, plan.stages != null ? plan.stages : List.of());
+  }
+
+  /**
+   * @see #compile(GameDto, PlanDto)
+   */
+  public static CompiledPlan compile(GameDto game, List<PlanStageDto> stages) {
+    ResourceLayout layout = createLayout(game);
+    Operations operations = new Operations(stages.size());
+
+    for (int stageIndex = 0; stageIndex < stages.size(); stageIndex++) {
+      PlanStageDto stage = stages.get(stageIndex);
+      if (stage != null && stage.resourceChanges != null) {
+        for (Map.Entry<String, ResourceChangeValue> resourceChange : stage.resourceChanges.entrySet()) {
+          compileChange(layout, operations, stageIndex, resourceChange.getKey(), resourceChange.getValue());
+        }
+      }
+      operations.endStage(stageIndex);
+    }
+
+    return operations.build(layout, stages.size());
+  }
+
+  /**
+   * Creates the layout of the resources of a game (including the combined resources of the default starting
+   * resources).
+   */
+  public static ResourceLayout createLayout(GameDto game) {
+    ResourceLayout layout = new ResourceLayout();
+    if (game == null) {
+      return layout;
+    }
+
+    Map<String, ResourceType> resources = game.resources != null ? game.resources : Map.of();
+    List<String> resourceNames = new ArrayList<>();
+    if (game.resourceOrder != null) {
+      resourceNames.addAll(game.resourceOrder);
+    }
+    resources.keySet().stream().filter(name -> !resourceNames.contains(name)).sorted().forEach(resourceNames::add);
+
+    for (String resource : resourceNames) {
+      ResourceType type = resources.get(resource);
+      if (type != null) {
+        layout.addResource(resource, type);
+      }
+    }
+
+    if (game.defaultStartingResources != null && game.defaultStartingResources.resourceChanges != null) {
+      for (String resource : resourceNames) {
+        ResourceChangeValue defaultValue = game.defaultStartingResources.resourceChanges.get(resource);
+        if (defaultValue instanceof SimpleCombinedResourceChange combined && combined.resources() != null && layout.getType(resource) == ResourceType.SIMPLE_COMBINED) {
+          combined.resources().keySet().forEach(name -> layout.addCombinedResource(resource, name));
+        }
+        else if (defaultValue instanceof OneTimeCombinedResourceChange oneTime && oneTime.resources() != null && layout.getType(resource) == ResourceType.ONE_TIME_COMBINED) {
+          oneTime.resources().keySet().forEach(name -> layout.addCombinedResource(resource, name));
+        }
+      }
+    }
+    return layout;
+  }
+
+  /**
+   * The resource type of a resource change, or {@code null} if the type is unknown.
+   */
+  public static ResourceType getResourceType(ResourceChangeValue change) {
+    if (change instanceof SimpleResourceChange) {
+      return ResourceType.SIMPLE;
+    }
+    if (change instanceof AbsoluteResourceChange) {
+      return ResourceType.ABSOLUTE;
+    }
+    if (change instanceof SimpleCombinedResourceChange) {
+      return ResourceType.SIMPLE_COMBINED;
+    }
+    if (change instanceof OneTimeCombinedResourceChange) {
+      return ResourceType.ONE_TIME_COMBINED;
+    }
+    if (change instanceof TerraMysticaPowerResourceChange) {
+      return ResourceType.TERRA_MYSTICA_POWER;
+    }
+    if (change instanceof TerraMysticaCultsResourceChange) {
+      return ResourceType.TERRA_MYSTICA_CULTS;
+    }
+    return null;
+  }
+
+  private static void compileChange(ResourceLayout layout, Operations operations, int stageIndex, String resource, ResourceChangeValue change) {
+    ResourceType changeType = getResourceType(change);
+    if (changeType == null) {
+      // unknown changes are ignored (like in the ResourceTotalsCalculator)
+      return;
+    }
+    ResourceType type = layout.addResource(resource, changeType);
+    if (type != changeType) {
+      throw new IllegalArgumentException("The change of resource '" + resource + "' in stage " + stageIndex + " has the type " + changeType + ", but the resource has the type " + type + ".");
+    }
+    int slot = layout.getSlot(resource);
+
+    if (change instanceof SimpleResourceChange simple) {
+      operations.add(slot, simple.value());
+      operations.check(slot);
+    }
+    else if (change instanceof AbsoluteResourceChange absolute) {
+      if (absolute.value() != null) {
+        operations.absolute(slot, absolute.value());
+      }
+    }
+    else if (change instanceof TerraMysticaCultsResourceChange cults) {
+      operations.add(slot + ResourceLayout.CULT_FIRE, cults.fire());
+      operations.add(slot + ResourceLayout.CULT_WATER, cults.water());
+      operations.add(slot + ResourceLayout.CULT_EARTH, cults.earth());
+      operations.add(slot + ResourceLayout.CULT_AIR, cults.air());
+      for (int i = 0; i < 4; i++) {
+        operations.check(slot + i);
+      }
+    }
+    else if (change instanceof TerraMysticaPowerResourceChange power) {
+      operations.power(slot, power);
+      for (int i = 0; i < 3; i++) {
+        operations.check(slot + i);
+      }
+    }
+    else if (change instanceof SimpleCombinedResourceChange combined && combined.resources() != null) {
+      combined.resources().forEach((name, value) -> {
+        int combinedSlot = layout.addCombinedResource(resource, name);
+        operations.add(combinedSlot, value != null ? value : 0);
+        operations.check(combinedSlot);
+      });
+    }
+    else if (change instanceof OneTimeCombinedResourceChange oneTime && oneTime.resources() != null) {
+      oneTime.resources().forEach((name, value) -> {
+        int bit = layout.addCombinedResource(resource, name);
+        // null values do not change the previous value
+        if (value != null) {
+          operations.oneTime(bit, value);
+        }
+      });
+    }
+  }
+
+  /**
+   * Collects the operations of all stages while the plan is compiled.
+   */
+  private static class Operations {
+
+    private final IntList addSlot = new IntList();
+    private final IntList addDelta = new IntList();
+    private final IntList absoluteSlot = new IntList();
+    private final IntList absoluteValue = new IntList();
+    private final IntList powerSlot = new IntList();
+    private final IntList powerArgs = new IntList();
+    private final IntList powerSetsBowls = new IntList();
+    private final IntList oneTimeBit = new IntList();
+    private final IntList oneTimeValues = new IntList();
+    private final IntList checkSlot = new IntList();
+
+    private final int[] addStart;
+    private final int[] absoluteStart;
+    private final int[] powerStart;
+    private final int[] oneTimeStart;
+    private final int[] checkStart;
+
+    private Operations(int stageCount) {
+      addStart = new int[stageCount + 1];
+      absoluteStart = new int[stageCount + 1];
+      powerStart = new int[stageCount + 1];
+      oneTimeStart = new int[stageCount + 1];
+      checkStart = new int[stageCount + 1];
+    }
+
+    private void add(int slot, int delta) {
+      addSlot.add(slot);
+      addDelta.add(delta);
+    }
+
+    private void absolute(int slot, int value) {
+      absoluteSlot.add(slot);
+      absoluteValue.add(value);
+    }
+
+    private void power(int slot, TerraMysticaPowerResourceChange power) {
+      powerSlot.add(slot);
+      powerArgs.add(power.bowl1());
+      powerArgs.add(power.bowl2());
+      powerArgs.add(power.bowl3());
+      powerArgs.add(power.gain());
+      powerArgs.add(power.burn());
+      powerArgs.add(power.use());
+      // if all bowl inputs are zero, the bowls are not set, but the previous values are used
+      powerSetsBowls.add(power.bowl1() != 0 || power.bowl2() != 0 || power.bowl3() != 0 ? 1 : 0);
+    }
+
+    private void oneTime(int bit, boolean value) {
+      oneTimeBit.add(bit);
+      oneTimeValues.add(value ? 1 : 0);
+    }
+
+    private void check(int slot) {
+      checkSlot.add(slot);
+    }
+
+    private void endStage(int stageIndex) {
+      addStart[stageIndex + 1] = addSlot.size();
+      absoluteStart[stageIndex + 1] = absoluteSlot.size();
+      powerStart[stageIndex + 1] = powerSlot.size();
+      oneTimeStart[stageIndex + 1] = oneTimeBit.size();
+      checkStart[stageIndex + 1] = checkSlot.size();
+    }
+
+    private CompiledPlan build(ResourceLayout layout, int stageCount) {
+      return new CompiledPlan(layout, stageCount, //
+              addStart, addSlot.toArray(), addDelta.toArray(), //
+              absoluteStart, absoluteSlot.toArray(), absoluteValue.toArray(), //
+              powerStart, powerSlot.toArray(), powerArgs.toArray(), powerSetsBowls.toBitSet(), //
+              oneTimeStart, oneTimeBit.toArray(), oneTimeValues.toBitSet(), //
+              checkStart, checkSlot.toArray());
+    }
+  }
+
+  private static class IntList {
+
+    private int[] values = new int[16];
+    private int size;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private int size() {
+      return size;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Converts a list of 0/1 values to a bit set.
+     */
+    private long[] toBitSet() {
+      long[] bits = new long[PlanEvaluationState.words(size)];
+      for (int i = 0; i < size; i++) {
+        if (values[i] != 0) {
+          PlanEvaluationState.set(bits, i);
+        }
+      }
+      return bits;
+    }
+  }
+}
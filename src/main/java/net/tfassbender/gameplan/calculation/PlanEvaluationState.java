@@ -0,0 +1,112 @@
+package net.tfassbender.gameplan.calculation;
+
+import java.util.Arrays;
+
+/**
+ * The mutable resource totals of a {@link CompiledPlan} while it is evaluated.
+ * <p>
+ * A state can be reused for any number of evaluations of plans with the same (or a smaller) layout, so evaluating a
+ * plan does not allocate any objects. A state must not be shared between threads.
+ */
+public final class PlanEvaluationState {
+
+  int[] values;
+  long[] definedSlots;
+  long[] bits;
+  long[] definedBits;
+  int evaluatedStages;
+  int firstNegativeStage;
+
+  public PlanEvaluationState(ResourceLayout layout) {
+    this(layout.getSlotCount(), layout.getBitCount());
+  }
+
+  public PlanEvaluationState(int slotCount, int bitCount) {
+    values = new int[slotCount];
+    definedSlots = new long[words(slotCount)];
+    bits = new long[words(bitCount)];
+    definedBits = new long[words(bitCount)];
+    reset();
+  }
+
+  /**
+   * Resets the state to the totals before the first stage of a plan.
+   */
+  public void reset() {
+    Arrays.fill(values, 0);
+    Arrays.fill(definedSlots, 0L);
+    Arrays.fill(bits, 0L);
+    Arrays.fill(definedBits, 0L);
+    evaluatedStages = 0;
+    firstNegativeStage = -1;
+  }
+
+  /**
+   * Checks whether the state is big enough for the given layout.
+   */
+  public boolean fits(ResourceLayout layout) {
+    return values.length >= layout.getSlotCount() && bits.length >= words(layout.getBitCount());
+  }
+
+  /**
+   * The total of an int slot (see {@link ResourceLayout#getSlot(String)}).
+   */
+  public int getValue(int slot) {
+    return values[slot];
+  }
+
+  /**
+   * Whether any of the evaluated stages changed the int slot. An undefined slot has the value 0.
+   */
+  public boolean isDefined(int slot) {
+    return isSet(definedSlots, slot);
+  }
+
+  /**
+   * The value of a bit (see {@link ResourceLayout#getBit(String, String)}).
+   */
+  public boolean getBit(int bit) {
+    return isSet(bits, bit);
+  }
+
+  /**
+   * Whether any of the evaluated stages changed the bit. An undefined bit is {@code false}.
+   */
+  public boolean isBitDefined(int bit) {
+    return isSet(definedBits, bit);
+  }
+
+  /**
+   * The number of stages that were evaluated.
+   */
+  public int getEvaluatedStages() {
+    return evaluatedStages;
+  }
+
+  /**
+   * The index of the first stage that led to a negative resource total, or -1 if no resource total was negative.
+   */
+  public int getFirstNegativeStage() {
+    return firstNegativeStage;
+  }
+
+  public boolean isValid() {
+    return firstNegativeStage < 0;
+  }
+
+  static int words(int bits) {
+    return (bits + 63) >>> 6;
+  }
+
+  static boolean isSet(long[] words, int bit) {
+    return (words[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  static void set(long[] words, int bit) {
+    words[bit >>> 6] |= 1L << bit;
+  }
+
+  static void clear(long[] words, int bit) {
+    words[bit >>> 6] &= ~(1L << bit);
+  }
+}
@@ -0,0 +1,151 @@
+package net.tfassbender.gameplan.calculation;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanVariantDto;
+import net.tfassbender.gameplan.dto.PlanVariantResultDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.PlanPatcher;
+import net.tfassbender.gameplan.persistence.PlanService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates variants of a stored plan (what-if scenarios) without storing them.
+ * <p>
+ * Each variant is a copy of the stored plan, that is changed by the patch operations of the variant, compiled by the
+ * {@link PlanCompiler} and evaluated. The variants are evaluated in parallel on a fork-join pool with
+ * {@code game_plan.simulation.parallelism} threads (default: the number of processors), so the CPU bound simulations
+ * don't block the request threads.
+ */
+@ApplicationScoped
+public class PlanSimulationService {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanSimulationService.class);
+
+  @Inject
+  private PlanService planService;
+
+  @Inject
+  private GameService gameService;
+
+  @ConfigProperty(name = "game_plan.simulation.parallelism", defaultValue = "0")
+  private int parallelism;
+
+  @ConfigProperty(name = "game_plan.simulation.max_variants", defaultValue = "1000")
+  private int maxVariants;
+
+  private ForkJoinPool pool;
+
+  /**
+   * Simulates the variants of a plan.
+   *
+   * @return the results of the variants (in the order of the variants)
+   * @throws IllegalArgumentException if there are no or too many variants (the errors of single variants, like invalid
+   *         operations, are part of their results)
+   */
+  public List<PlanVariantResultDto> simulate(String username, String planName, List<PlanVariantDto> variants) throws GamePlanPersistenceException {
+    if (variants == null || variants.isEmpty()) {
+      throw new IllegalArgumentException("The variants are missing.");
+    }
+    if (variants.size() > maxVariants) {
+      throw new IllegalArgumentException("Too many variants: " + variants.size() + " (at most " + maxVariants + " variants can be simulated at once).");
+    }
+
+    PlanDto plan = planService.getPlan(username, planName);
+    GameDto game = getGame(plan.gameName);
+
+    List<Callable<PlanVariantResultDto>> tasks = new ArrayList<>(variants.size());
+    for (PlanVariantDto variant : variants) {
+      tasks.add(() -> simulate(game, plan, variant));
+    }
+
+    List<PlanVariantResultDto> results = new ArrayList<>(variants.size());
+    try {
+      for (Future<PlanVariantResultDto> future : getPool().invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GamePlanPersistenceException("The simulation of plan '" + planName + "' was interrupted.", e);
+    }
+    catch (ExecutionException e) {
+      throw new GamePlanPersistenceException("Failed to simulate plan '" + planName + "'.", e.getCause());
+    }
+    return results;
+  }
+
+  /**
+   * Simulates a single variant (the plan is not changed).
+   */
+  static PlanVariantResultDto simulate(GameDto game, PlanDto plan, PlanVariantDto variant) {
+    PlanVariantResultDto result = new PlanVariantResultDto();
+    result.name = variant != null ? variant.name : null;
+    if (variant == null) {
+      result.error = "The variant is missing.";
+      return result;
+    }
+
+    try {
+      PlanDto variantPlan = plan.copy();
+      PlanPatcher.apply(variantPlan, variant.operations);
+
+      CompiledPlan compiledPlan = PlanCompiler.compile(game, variantPlan);
+      PlanEvaluationState state = compiledPlan.newState();
+      if (compiledPlan.getStageCount() > 0) {
+        compiledPlan.evaluate(state);
+      }
+
+      result.stageCount = compiledPlan.getStageCount();
+      result.valid = state.isValid();
+      result.firstNegativeStage = state.isValid() ? null : state.getFirstNegativeStage();
+      result.totals.putAll(compiledPlan.getTotals(state));
+    }
+    catch (IllegalArgumentException e) {
+      result.error = e.getMessage();
+    }
+    return result;
+  }
+
+  private GameDto getGame(String gameName) {
+    if (gameName == null) {
+      return null;
+    }
+    try {
+      return gameService.getGame(gameName);
+    }
+    catch (GamePlanPersistenceException e) {
+      // the resources are laid out in the order of the plan then
+      log.debug("Cannot load game '{}' for the simulation: {}", gameName, e.getMessage());
+      return null;
+    }
+  }
+
+  private synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    return pool;
+  }
+
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+      pool = null;
+    }
+  }
+}
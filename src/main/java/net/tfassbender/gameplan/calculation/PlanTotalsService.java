@@ -0,0 +1,138 @@
+package net.tfassbender.gameplan.calculation;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanTotalsDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics.Cache;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics.CacheResult;
+import net.tfassbender.gameplan.persistence.PlanService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the resource totals of the stored plans.
+ * <p>
+ * The snapshots of all stages are cached per plan, so when a plan was changed only the stages from the first changed
+ * stage on have to be calculated again.
+ */
+@ApplicationScoped
+public class PlanTotalsService {
+
+  @Inject
+  private PlanService planService;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  @ConfigProperty(name = "game_plan.totals_cache.size", defaultValue = "1000")
+  private int cacheSize;
+
+  private final Map<String, CachedSnapshots> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedSnapshots> eldest) {
+      return size() > cacheSize;
+    }
+  });
+
+  public PlanTotalsService() {}
+
+  /**
+   * Creates the service without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  PlanTotalsService(PlanService planService, GamePlanMetrics metrics, int cacheSize) {
+    this.planService = planService;
+    this.metrics = metrics;
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * Calculates the resource totals of a plan after the given stage.
+   *
+   * @param upToStage the index of the last stage, that is included in the totals, or {@code null} to include all stages
+   * @throws IllegalArgumentException if the stage index is not valid for the plan
+   */
+  public PlanTotalsDto getTotals(String username, String planName, Integer upToStage) throws GamePlanPersistenceException {
+    PlanDto plan = planService.getPlan(username, planName);
+    List<StageSnapshot> snapshots = getSnapshots(username, plan);
+
+    if (upToStage != null && (upToStage < 0 || upToStage >= snapshots.size())) {
+      throw new IllegalArgumentException("The stage index " + upToStage + " is not valid for plan '" + planName + "' with " + snapshots.size() + " stages.");
+    }
+    int lastStage = upToStage != null ? upToStage : snapshots.size() - 1;
+
+    StageSnapshot snapshot = lastStage < 0 ? StageSnapshot.INITIAL : snapshots.get(lastStage);
+    PlanTotalsDto totals = new PlanTotalsDto();
+    totals.planName = plan.name;
+    totals.stageCount = snapshots.size();
+    totals.upToStage = lastStage;
+    totals.valid = snapshot.isValid();
+    totals.firstNegativeStage = snapshot.isValid() ? null : snapshot.firstNegativeStage();
+    totals.totals.putAll(snapshot.totals());
+    return totals;
+  }
+
+  /**
+   * Get the snapshots of all stages of the plan. Only the stages, that changed since the last calculation, are
+   * calculated.
+   */
+  public List<StageSnapshot> getSnapshots(String username, PlanDto plan) {
+    return getSnapshots(username, plan, true);
+  }
+
+  /**
+   * Get the snapshots of all stages of the plan, reusing the cached snapshots of the unchanged stages.
+   *
+   * @param updateCache {@code false} if the calculated snapshots should not be cached (e.g. when all plans of a game
+   *         are validated, so the snapshots of the plans that are currently edited are not evicted from the cache)
+   */
+  public List<StageSnapshot> getSnapshots(String username, PlanDto plan, boolean updateCache) {
+    String cacheKey = username + "/" + plan.name;
+    List<PlanStageDto> stages = plan.stages != null ? plan.stages : List.of();
+
+    CachedSnapshots cached = cache.get(cacheKey);
+    // the modification timestamp is set on every save, so an equal timestamp means that the stages did not change
+    if (cached != null && plan.lastModified != null && plan.lastModified.equals(cached.lastModified()) && cached.resourceChanges().size() == stages.size()) {
+      metrics.recordCacheRequest(Cache.TOTALS, CacheResult.HIT);
+      return cached.snapshots();
+    }
+
+    int firstChangedStage = cached == null ? 0 : findFirstChangedStage(cached.resourceChanges(), stages);
+    metrics.recordCacheRequest(Cache.TOTALS, firstChangedStage > 0 ? CacheResult.PARTIAL : CacheResult.MISS);
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(stages, firstChangedStage, cached == null ? List.of() : cached.snapshots());
+    if (!updateCache) {
+      return snapshots;
+    }
+
+    List<Map<String, ResourceChangeValue>> resourceChanges = stages.stream() //
+            .map(stage -> stage == null || stage.resourceChanges == null ? Map.<String, ResourceChangeValue>of() : Collections.unmodifiableMap(new HashMap<>(stage.resourceChanges))) //
+            .toList();
+    cache.put(cacheKey, new CachedSnapshots(plan.lastModified, resourceChanges, snapshots));
+    return snapshots;
+  }
+
+  private static int findFirstChangedStage(List<Map<String, ResourceChangeValue>> cachedResourceChanges, List<PlanStageDto> stages) {
+    int commonStages = Math.min(cachedResourceChanges.size(), stages.size());
+    for (int i = 0; i < commonStages; i++) {
+      PlanStageDto stage = stages.get(i);
+      Map<String, ResourceChangeValue> resourceChanges = stage == null || stage.resourceChanges == null ? Map.of() : stage.resourceChanges;
+      if (!cachedResourceChanges.get(i).equals(resourceChanges)) {
+        return i;
+      }
+    }
+    return commonStages;
+  }
+
+  private record CachedSnapshots(String lastModified, List<Map<String, ResourceChangeValue>> resourceChanges, List<StageSnapshot> snapshots) {}
+}
@@ -0,0 +1,219 @@
+package net.tfassbender.gameplan.calculation;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.ObservesAsync;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.GameValidationDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.dto.PlanValidationDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.persistence.GameConfigChangedEvent;
+import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.UserService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Validates the stored plans with the {@link PlanValidator}.
+ * <p>
+ * The snapshots of the stages are taken from the {@link PlanTotalsService}, so the stages that did not change since the
+ * last calculation are not calculated again. When the config of a game is changed, all plans of the game are validated
+ * in the background and the invalid plans are logged. The plans of a game are read without caching them, so the plans
+ * that are currently edited are not evicted from the cache.
+ */
+@ApplicationScoped
+public class PlanValidationService {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanValidationService.class);
+
+  @Inject
+  private PlanService planService;
+
+  @Inject
+  private UserService userService;
+
+  @Inject
+  private GameService gameService;
+
+  @Inject
+  private PlanTotalsService planTotalsService;
+
+  @ConfigProperty(name = "game_plan.validation.on_save", defaultValue = "false")
+  private boolean validateOnSave;
+
+  @ConfigProperty(name = "game_plan.validation.on_game_change", defaultValue = "true")
+  private boolean validateOnGameChange;
+
+  /**
+   * Whether the plans are validated when they are saved (the result is sent in the headers of the response).
+   */
+  public boolean isValidateOnSave() {
+    return validateOnSave;
+  }
+
+  /**
+   * Validates a stored plan.
+   */
+  public PlanValidationDto validate(String username, String planName) throws GamePlanPersistenceException {
+    return validate(username, planService.getPlan(username, planName));
+  }
+
+  /**
+   * Validates a plan, that was just loaded or saved.
+   */
+  public PlanValidationDto validate(String username, PlanDto plan) {
+    return validate(username, plan, getGame(plan.gameName), true);
+  }
+
+  /**
+   * Validates all plans of all users, that belong to the game.
+   *
+   * @throws GamePlanResourceNotFoundException if the game does not exist
+   */
+  public GameValidationDto validateGame(String gameName) throws GamePlanPersistenceException {
+    GameDto game = gameService.getGame(gameName);
+    List<GamePlan> plans = getPlansOfGame(gameName);
+
+    GameValidationDto result = validatePlans(gameName, game, plans);
+    result.pageSize = plans.size();
+    return result;
+  }
+
+  /**
+   * Validates a page of the plans of all users, that belong to the game (sorted by the user and plan names), so a single
+   * request does not read all plans of the game.
+   *
+   * @throws GamePlanResourceNotFoundException if the game does not exist
+   */
+  public GameValidationDto validateGame(String gameName, int page, int pageSize) throws GamePlanPersistenceException {
+    GameDto game = gameService.getGame(gameName);
+    List<GamePlan> plans = getPlansOfGame(gameName);
+
+    int fromIndex = (int) Math.min((long) page * pageSize, plans.size());
+    int toIndex = (int) Math.min((long) fromIndex + pageSize, plans.size());
+    GameValidationDto result = validatePlans(gameName, game, plans.subList(fromIndex, toIndex));
+    result.page = page;
+    result.pageSize = pageSize;
+    return result;
+  }
+
+  private GameValidationDto validatePlans(String gameName, GameDto game, List<GamePlan> plans) {
+    GameValidationDto result = new GameValidationDto();
+    result.gameName = gameName;
+    result.totalCount = plans.size();
+    for (GamePlan gamePlan : plans) {
+      PlanDto plan;
+      try {
+        plan = planService.getUncachedPlan(gamePlan.username(), gamePlan.planName());
+      }
+      catch (GamePlanResourceNotFoundException e) {
+        // the plan was deleted in the meantime
+        continue;
+      }
+      catch (GamePlanPersistenceException e) {
+        // a single plan that cannot be read does not prevent the validation of the other plans
+        log.warn("Failed to load plan '{}' of user '{}' for the validation: {}", gamePlan.planName(), gamePlan.username(), e.getMessage());
+        continue;
+      }
+
+      // the snapshots are not cached either
+      PlanValidationDto validation = validate(gamePlan.username(), plan, game, false);
+      result.validatedPlans++;
+      if (!validation.valid) {
+        result.invalidPlans.add(validation);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Lists the plans of all users, that belong to the game (from the plan summaries, so the plans are not read).
+   */
+  private List<GamePlan> getPlansOfGame(String gameName) throws GamePlanPersistenceException {
+    List<GamePlan> plans = new ArrayList<>();
+    for (String username : userService.getUsers()) {
+      for (PlanSummaryDto summary : getPlanSummaries(username)) {
+        if (gameName.equals(summary.gameName)) {
+          plans.add(new GamePlan(username, summary.name));
+        }
+      }
+    }
+    plans.sort(Comparator.comparing(GamePlan::username).thenComparing(GamePlan::planName));
+    return plans;
+  }
+
+  private record GamePlan(String username, String planName) {}
+
+  void onGameConfigChanged(@ObservesAsync GameConfigChangedEvent event) {
+    if (!validateOnGameChange) {
+      return;
+    }
+
+    try {
+      GameValidationDto result = validateGame(event.gameName());
+      if (result.invalidPlans.isEmpty()) {
+        log.info("All {} plans of game '{}' are valid with the changed config", result.validatedPlans, event.gameName());
+        return;
+      }
+
+      log.warn("{} of {} plans of game '{}' are invalid with the changed config", result.invalidPlans.size(), result.validatedPlans, event.gameName());
+      for (PlanValidationDto plan : result.invalidPlans) {
+        log.warn("Plan '{}' of user '{}' has {} issues (first negative stage: {}): {}", plan.planName, plan.username, plan.issues.size(), plan.firstNegativeStage,
+                plan.issues.get(0).message);
+      }
+    }
+    catch (GamePlanPersistenceException e) {
+      log.error("Failed to validate the plans of game '{}': {}", event.gameName(), e.getMessage(), e);
+    }
+  }
+
+  private PlanValidationDto validate(String username, PlanDto plan, GameDto game, boolean updateCache) {
+    List<PlanStageDto> stages = plan.stages != null ? plan.stages : List.of();
+    List<StageSnapshot> snapshots = planTotalsService.getSnapshots(username, plan, updateCache);
+    StageSnapshot lastSnapshot = snapshots.isEmpty() ? StageSnapshot.INITIAL : snapshots.get(snapshots.size() - 1);
+
+    PlanValidationDto validation = new PlanValidationDto();
+    validation.username = username;
+    validation.planName = plan.name;
+    validation.gameName = plan.gameName;
+    validation.stageCount = stages.size();
+    validation.firstNegativeStage = lastSnapshot.isValid() ? null : lastSnapshot.firstNegativeStage();
+    validation.issues.addAll(PlanValidator.validate(game, stages, snapshots));
+    validation.valid = validation.issues.isEmpty();
+    return validation;
+  }
+
+  private List<PlanSummaryDto> getPlanSummaries(String username) {
+    try {
+      return planService.getPlanSummaries(username);
+    }
+    catch (GamePlanPersistenceException e) {
+      log.warn("Failed to list the plans of user '{}' for the validation: {}", username, e.getMessage());
+      return List.of();
+    }
+  }
+
+  private GameDto getGame(String gameName) {
+    if (gameName == null) {
+      return null;
+    }
+    try {
+      return gameService.getGame(gameName);
+    }
+    catch (GamePlanPersistenceException e) {
+      // only the totals are validated then
+      log.debug("Cannot load game '{}' for the validation: {}", gameName, e.getMessage());
+      return null;
+    }
+  }
+}
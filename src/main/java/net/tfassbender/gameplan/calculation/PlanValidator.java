@@ -0,0 +1,109 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanValidationIssueDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the issues of the stages of a plan (like {@code allowNegative} in {@code calculatePlanResources} in the
+ * frontend): the resource totals, that are negative after a stage (including the power bowls, that underflow when
+ * power is burned or used), and the changes, whose type does not match the type of the resource in the game config.
+ * <p>
+ * Like in {@link ResourceTotalsCalculator#isNegative(ResourceChangeValue, ResourceChangeValue)}, a negative total is
+ * only reported for the stages that change the resource.
+ */
+public class PlanValidator {
+
+  private PlanValidator() {}
+
+  /**
+   * Validates the stages of a plan.
+   * <p>
+   * The stages before the first negative stage of the snapshots cannot have negative totals, so only the stages from
+   * the first negative stage on are checked for negative totals. With cached snapshots (see
+   * {@link PlanTotalsService#getSnapshots(String, net.tfassbender.gameplan.dto.PlanDto)}) neither the unchanged stages
+   * are calculated again nor the valid prefix of the plan is checked again.
+   *
+   * @param game the game config of the plan, or {@code null} if the types of the resources should not be checked
+   * @param stages all stages of the plan
+   * @param snapshots the snapshots of all stages of the plan
+   * @return the issues, ordered by stage
+   */
+  public static List<PlanValidationIssueDto> validate(GameDto game, List<PlanStageDto> stages, List<StageSnapshot> snapshots) {
+    if (snapshots.size() != stages.size()) {
+      throw new IllegalArgumentException("The plan has " + stages.size() + " stages, but there are " + snapshots.size() + " snapshots.");
+    }
+
+    StageSnapshot lastSnapshot = snapshots.isEmpty() ? StageSnapshot.INITIAL : snapshots.get(snapshots.size() - 1);
+    int firstNegativeStage = lastSnapshot.isValid() ? stages.size() : lastSnapshot.firstNegativeStage();
+    Map<String, ResourceType> gameResources = game != null && game.resources != null ? game.resources : Map.of();
+
+    List<PlanValidationIssueDto> issues = new ArrayList<>();
+    for (int i = 0; i < stages.size(); i++) {
+      PlanStageDto stage = stages.get(i);
+      if (stage == null || stage.resourceChanges == null) {
+        continue;
+      }
+
+      // sorted by resource name, so the issues of a stage are always in the same order
+      for (Map.Entry<String, ResourceChangeValue> resourceChange : new TreeMap<>(stage.resourceChanges).entrySet()) {
+        String resource = resourceChange.getKey();
+        ResourceChangeValue change = resourceChange.getValue();
+
+        ResourceType changeType = PlanCompiler.getResourceType(change);
+        ResourceType gameType = gameResources.get(resource);
+        if (changeType != null && gameType != null && changeType != gameType) {
+          issues.add(PlanValidationIssueDto.typeMismatch(i, resource, changeType, gameType));
+        }
+        if (i >= firstNegativeStage) {
+          addNegativeTotals(issues, i, resource, change, snapshots.get(i).totals().get(resource));
+        }
+      }
+    }
+    return issues;
+  }
+
+  /**
+   * Adds an issue for every part of the total, that is negative and can be changed by the change.
+   */
+  private static void addNegativeTotals(List<PlanValidationIssueDto> issues, int stage, String resource, ResourceChangeValue change, ResourceChangeValue total) {
+    if (total == null || !ResourceTotalsCalculator.isNegative(change, total)) {
+      return;
+    }
+
+    if (total instanceof SimpleResourceChange simple) {
+      issues.add(PlanValidationIssueDto.negativeTotal(stage, resource, null, simple.value()));
+    }
+    else if (total instanceof TerraMysticaPowerResourceChange power) {
+      addIfNegative(issues, stage, resource, "bowl1", power.bowl1());
+      addIfNegative(issues, stage, resource, "bowl2", power.bowl2());
+      addIfNegative(issues, stage, resource, "bowl3", power.bowl3());
+    }
+    else if (total instanceof TerraMysticaCultsResourceChange cults) {
+      addIfNegative(issues, stage, resource, "fire", cults.fire());
+      addIfNegative(issues, stage, resource, "water", cults.water());
+      addIfNegative(issues, stage, resource, "earth", cults.earth());
+      addIfNegative(issues, stage, resource, "air", cults.air());
+    }
+    else if (total instanceof SimpleCombinedResourceChange combined && change instanceof SimpleCombinedResourceChange combinedChange) {
+      for (String name : new TreeMap<>(combinedChange.resources()).keySet()) {
+        Integer value = combined.resources().get(name);
+        addIfNegative(issues, stage, resource, name, value == null ? 0 : value);
+      }
+    }
+  }
+
+  private static void addIfNegative(List<PlanValidationIssueDto> issues, int stage, String resource, String part, int value) {
+    if (value < 0) {
+      issues.add(PlanValidationIssueDto.negativeTotal(stage, resource, part, value));
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.ResourceType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the resources of a game to dense slots of a {@link PlanEvaluationState}.
+ * <p>
+ * Every resource gets one or more int slots, depending on its type:
+ * <ul>
+ *   <li>{@code SIMPLE} and {@code ABSOLUTE}: one slot</li>
+ *   <li>{@code TERRA_MYSTICA_POWER}: three slots (bowl 1, 2 and 3)</li>
+ *   <li>{@code TERRA_MYSTICA_CULTS}: four slots (fire, water, earth and air)</li>
+ *   <li>{@code SIMPLE_COMBINED}: one slot per combined resource</li>
+ * </ul>
+ * The combined resources of a {@code ONE_TIME_COMBINED} resource are mapped to bits instead of int slots.
+ * <p>
+ * A layout is created by the {@link PlanCompiler} and is not changed after the plan was compiled.
+ */
+public final class ResourceLayout {
+
+  public static final int POWER_BOWL_1 = 0;
+  public static final int POWER_BOWL_2 = 1;
+  public static final int POWER_BOWL_3 = 2;
+
+  public static final int CULT_FIRE = 0;
+  public static final int CULT_WATER = 1;
+  public static final int CULT_EARTH = 2;
+  public static final int CULT_AIR = 3;
+
+  private final Map<String, Resource> resources = new LinkedHashMap<>();
+  private int slotCount;
+  private int bitCount;
+
+  ResourceLayout() {}
+
+  /**
+   * The names of all resources in the order of their slots.
+   */
+  public List<String> getResourceNames() {
+    return List.copyOf(resources.keySet());
+  }
+
+  /**
+   * The type of the resource, or {@code null} if the resource is not part of the layout.
+   */
+  public ResourceType getType(String resource) {
+    Resource entry = resources.get(resource);
+    return entry != null ? entry.type : null;
+  }
+
+  /**
+   * The (first) slot of a resource, or -1 if the resource has no slot.
+   */
+  public int getSlot(String resource) {
+    Resource entry = resources.get(resource);
+    return entry != null ? entry.slot : -1;
+  }
+
+  /**
+   * The slot of a combined resource (of a {@code SIMPLE_COMBINED} resource), or -1 if the resource has no slot.
+   */
+  public int getSlot(String resource, String combinedResource) {
+    Resource entry = resources.get(resource);
+    if (entry == null || entry.type != ResourceType.SIMPLE_COMBINED) {
+      return -1;
+    }
+    return entry.combined.getOrDefault(combinedResource, -1);
+  }
+
+  /**
+   * The bit of a combined resource (of a {@code ONE_TIME_COMBINED} resource), or -1 if the resource has no bit.
+   */
+  public int getBit(String resource, String combinedResource) {
+    Resource entry = resources.get(resource);
+    if (entry == null || entry.type != ResourceType.ONE_TIME_COMBINED) {
+      return -1;
+    }
+    return entry.combined.getOrDefault(combinedResource, -1);
+  }
+
+  /**
+   * The names of the combined resources of a resource in the order of their slots or bits.
+   */
+  public List<String> getCombinedResourceNames(String resource) {
+    Resource entry = resources.get(resource);
+    return entry != null ? List.copyOf(entry.combined.keySet()) : List.of();
+  }
+
+  public int getSlotCount() {
+    return slotCount;
+  }
+
+  public int getBitCount() {
+    return bitCount;
+  }
+
+  /**
+   * Adds a resource to the layout (if it's not yet part of it).
+   *
+   * @return the type of the resource in the layout (that is the type of the first definition of the resource)
+   */
+  ResourceType addResource(String resource, ResourceType type) {
+    Resource entry = resources.computeIfAbsent(resource, name -> new Resource(type, allocateSlots(type)));
+    return entry.type;
+  }
+
+  /**
+   * Adds a combined resource to a {@code SIMPLE_COMBINED} or {@code ONE_TIME_COMBINED} resource (if it's not yet part
+   * of it).
+   *
+   * @return the slot or bit of the combined resource
+   */
+  int addCombinedResource(String resource, String combinedResource) {
+    Resource entry = resources.get(resource);
+    return entry.combined.computeIfAbsent(combinedResource, name -> entry.type == ResourceType.ONE_TIME_COMBINED ? bitCount++ : slotCount++);
+  }
+
+  private int allocateSlots(ResourceType type) {
+    int slots = switch (type) {
+      case SIMPLE, ABSOLUTE -> 1;
+      case TERRA_MYSTICA_POWER -> 3;
+      case TERRA_MYSTICA_CULTS -> 4;
+      // the combined resources are added one by one
+      case SIMPLE_COMBINED, ONE_TIME_COMBINED -> 0;
+    };
+    if (slots == 0) {
+      return -1;
+    }
+    int slot = slotCount;
+    slotCount += slots;
+    return slot;
+  }
+
+  private static final class Resource {
+
+    private final ResourceType type;
+    private final int slot;
+    private final Map<String, Integer> combined = new LinkedHashMap<>();
+
+    private Resource(ResourceType type, int slot) {
+      this.type = type;
+      this.slot = slot;
+    }
+  }
+}
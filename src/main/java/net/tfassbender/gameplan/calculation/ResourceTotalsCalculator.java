@@ -0,0 +1,200 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.resource.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the resource totals of the stages of a plan (like {@code calculatePlanResources} in the frontend).
+ */
+public class ResourceTotalsCalculator {
+
+  private ResourceTotalsCalculator() {}
+
+  /**
+   * Calculates the snapshots of all stages of a plan.
+   */
+  public static List<StageSnapshot> calculateSnapshots(List<PlanStageDto> stages) {
+    return calculateSnapshots(stages, 0, List.of());
+  }
+
+  /**
+   * Calculates the snapshots of the stages of a plan, starting at the given stage and reusing the snapshots of the
+   * stages before it.
+   *
+   * @param stages all stages of the plan
+   * @param fromStage the index of the first stage, that has to be calculated
+   * @param previousSnapshots snapshots of (at least) all stages before {@code fromStage}
+   * @return the snapshots of all stages of the plan
+   */
+  public static List<StageSnapshot> calculateSnapshots(List<PlanStageDto> stages, int fromStage, List<StageSnapshot> previousSnapshots) {
+    StageSnapshot[] snapshots = new StageSnapshot[stages.size()];
+    for (int i = 0; i < fromStage; i++) {
+      snapshots[i] = previousSnapshots.get(i);
+    }
+
+    StageSnapshot previous = fromStage == 0 ? StageSnapshot.INITIAL : snapshots[fromStage - 1];
+    for (int i = fromStage; i < stages.size(); i++) {
+      previous = applyStage(previous, stages.get(i), i);
+      snapshots[i] = previous;
+    }
+    return List.of(snapshots);
+  }
+
+  /**
+   * Applies the resource changes of a stage to the totals of the previous stage.
+   *
+   * @param previous the snapshot of the previous stage
+   * @param stage the stage to apply
+   * @param stageIndex the index of the stage in the plan
+   * @return the snapshot after the stage
+   */
+  public static StageSnapshot applyStage(StageSnapshot previous, PlanStageDto stage, int stageIndex) {
+    if (stage == null || stage.resourceChanges == null || stage.resourceChanges.isEmpty()) {
+      return previous;
+    }
+
+    Map<String, ResourceChangeValue> totals = new HashMap<>(previous.totals());
+    boolean negative = false;
+    for (Map.Entry<String, ResourceChangeValue> resourceChange : stage.resourceChanges.entrySet()) {
+      String resource = resourceChange.getKey();
+      ResourceChangeValue change = resourceChange.getValue();
+      ResourceChangeValue previousTotal = totals.get(resource);
+
+      ResourceChangeValue total = applyChange(previousTotal, change);
+      if (total != null) {
+        totals.put(resource, total);
+        negative |= isNegative(change, total);
+      }
+    }
+
+    int firstNegativeStage = previous.firstNegativeStage() < 0 && negative ? stageIndex : previous.firstNegativeStage();
+    return new StageSnapshot(Collections.unmodifiableMap(totals), firstNegativeStage);
+  }
+
+  /**
+   * Applies a single resource change to the previous total of the resource.
+   *
+   * @return the new total or {@code null} if the type of the change is unknown (the total is not changed then)
+   */
+  public static ResourceChangeValue applyChange(ResourceChangeValue previousTotal, ResourceChangeValue change) {
+    if (change instanceof SimpleResourceChange simple) {
+      int previousValue = previousTotal instanceof SimpleResourceChange previousSimple ? previousSimple.value() : 0;
+      return new SimpleResourceChange(previousValue + simple.value());
+    }
+    if (change instanceof AbsoluteResourceChange absolute) {
+      Integer previousValue = previousTotal instanceof AbsoluteResourceChange previousAbsolute ? previousAbsolute.value() : null;
+      return new AbsoluteResourceChange(absolute.value() != null ? absolute.value() : previousValue);
+    }
+    if (change instanceof TerraMysticaPowerResourceChange power) {
+      return applyPowerChange(previousTotal, power);
+    }
+    if (change instanceof TerraMysticaCultsResourceChange cults) {
+      TerraMysticaCultsResourceChange previousCults = previousTotal instanceof TerraMysticaCultsResourceChange previousValue ? previousValue : new TerraMysticaCultsResourceChange(0, 0, 0, 0);
+      return new TerraMysticaCultsResourceChange(previousCults.fire() + cults.fire(), previousCults.water() + cults.water(), //
+              previousCults.earth() + cults.earth(), previousCults.air() + cults.air());
+    }
+    if (change instanceof SimpleCombinedResourceChange combined) {
+      SimpleCombinedResourceChange previousCombined = previousTotal instanceof SimpleCombinedResourceChange previousValue ? previousValue : null;
+      Map<String, Integer> previousResources = previousCombined != null && previousCombined.resources() != null ? previousCombined.resources() : Map.of();
+
+      Map<String, Integer> resources = new LinkedHashMap<>();
+      if (combined.resources() != null) {
+        combined.resources().forEach((name, value) -> resources.put(name, valueOrZero(previousResources.get(name)) + valueOrZero(value)));
+      }
+      previousResources.forEach(resources::putIfAbsent);
+
+      return new SimpleCombinedResourceChange(Collections.unmodifiableMap(resources), getColors(combined.colors(), previousCombined != null ? previousCombined.colors() : null));
+    }
+    if (change instanceof OneTimeCombinedResourceChange oneTime) {
+      OneTimeCombinedResourceChange previousOneTime = previousTotal instanceof OneTimeCombinedResourceChange previousValue ? previousValue : null;
+      Map<String, Boolean> previousResources = previousOneTime != null && previousOneTime.resources() != null ? previousOneTime.resources() : Map.of();
+
+      Map<String, Boolean> resources = new LinkedHashMap<>();
+      if (oneTime.resources() != null) {
+        // null values do not change the previous value
+        oneTime.resources().forEach((name, value) -> resources.put(name, value != null ? value : previousResources.get(name)));
+      }
+      previousResources.forEach(resources::putIfAbsent);
+
+      return new OneTimeCombinedResourceChange(Collections.unmodifiableMap(resources), getColors(oneTime.colors(), previousOneTime != null ? previousOneTime.colors() : null));
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a total that was changed by the given change is negative. Only the parts of the total, that can be
+   * changed by the change, are checked.
+   */
+  public static boolean isNegative(ResourceChangeValue change, ResourceChangeValue total) {
+    if (total instanceof SimpleResourceChange simple) {
+      return simple.value() < 0;
+    }
+    if (total instanceof TerraMysticaPowerResourceChange power) {
+      return power.bowl1() < 0 || power.bowl2() < 0 || power.bowl3() < 0;
+    }
+    if (total instanceof TerraMysticaCultsResourceChange cults) {
+      return cults.fire() < 0 || cults.water() < 0 || cults.earth() < 0 || cults.air() < 0;
+    }
+    if (total instanceof SimpleCombinedResourceChange combined && change instanceof SimpleCombinedResourceChange combinedChange && combinedChange.resources() != null) {
+      return combinedChange.resources().keySet().stream().anyMatch(name -> valueOrZero(combined.resources().get(name)) < 0);
+    }
+    return false;
+  }
+
+  private static TerraMysticaPowerResourceChange applyPowerChange(ResourceChangeValue previousTotal, TerraMysticaPowerResourceChange power) {
+    int bowl1;
+    int bowl2;
+    int bowl3;
+    if (power.bowl1() == 0 && power.bowl2() == 0 && power.bowl3() == 0) {
+      // if all bowl inputs are zero, the bowls are not set, but the previous values are used
+      TerraMysticaPowerResourceChange previousPower = previousTotal instanceof TerraMysticaPowerResourceChange previousValue ? previousValue : null;
+      bowl1 = previousPower != null ? previousPower.bowl1() : 0;
+      bowl2 = previousPower != null ? previousPower.bowl2() : 0;
+      bowl3 = previousPower != null ? previousPower.bowl3() : 0;
+    }
+    else {
+      bowl1 = power.bowl1();
+      bowl2 = power.bowl2();
+      bowl3 = power.bowl3();
+    }
+
+    // gaining power moves tokens from bowl 1 to bowl 2 and (if bowl 1 is empty) from bowl 2 to bowl 3
+    int gain = Math.max(power.gain(), 0);
+    int gainFromBowl1 = Math.min(gain, Math.max(bowl1, 0));
+    bowl1 -= gainFromBowl1;
+    bowl2 += gainFromBowl1;
+    int gainFromBowl2 = Math.min(gain - gainFromBowl1, Math.max(bowl2, 0));
+    bowl2 -= gainFromBowl2;
+    bowl3 += gainFromBowl2;
+
+    // burning power removes two tokens from bowl 2 and moves one of them to bowl 3
+    int burn = Math.max(power.burn(), 0);
+    bowl2 -= 2 * burn;
+    bowl3 += burn;
+
+    // using power moves tokens from bowl 3 back to bowl 1
+    int use = Math.max(power.use(), 0);
+    bowl3 -= use;
+    bowl1 += use;
+
+    return new TerraMysticaPowerResourceChange(bowl1, bowl2, bowl3, power.gain(), power.burn(), power.use());
+  }
+
+  private static Map<String, String> getColors(Map<String, String> colors, Map<String, String> previousColors) {
+    if (colors != null) {
+      return colors;
+    }
+    return previousColors != null ? previousColors : Map.of();
+  }
+
+  private static int valueOrZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+}
@@ -0,0 +1,21 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+
+import java.util.Map;
+
+/**
+ * The cumulative resource totals of a plan after a stage.
+ *
+ * @param totals the resource totals after the stage (unmodifiable)
+ * @param firstNegativeStage the index of the first stage (up to this stage) that leads to a negative resource total, or
+ *         -1 if no resource total was negative so far
+ */
+public record StageSnapshot(Map<String, ResourceChangeValue> totals, int firstNegativeStage) {
+
+  public static final StageSnapshot INITIAL = new StageSnapshot(Map.of(), -1);
+
+  public boolean isValid() {
+    return firstNegativeStage < 0;
+  }
+}
@@ -0,0 +1,18 @@
+package net.tfassbender.gameplan.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of the validation of (a page of) the plans of a game. Only the plans with issues are listed.
+ */
+public class GameValidationDto {
+
+  public String gameName;
+  public int page;
+  public int pageSize;
+  // the number of plans of the game (on all pages)
+  public int totalCount;
+  public int validatedPlans;
+  public List<PlanValidationDto> invalidPlans = new ArrayList<>();
+}
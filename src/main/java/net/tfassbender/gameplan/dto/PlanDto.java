@@ -14,4 +14,46 @@ public class PlanDto {
   public Map<String, ResourceType> resourceTypes = new HashMap<>();
   public List<String> resourceOrder = new ArrayList<>();
   public List<PlanStageDto> stages = new ArrayList<>();
+
+  /**
+   * Creates a copy of this plan, that can be modified without changing this plan.
+   */
+  public PlanDto copy() {
+    PlanDto copy = new PlanDto();
+    copy.name = name;
+    copy.gameName = gameName;
+    copy.description = description;
+    copy.lastModified = lastModified;
+    if (resourceTypes != null) {
+      copy.resourceTypes.putAll(resourceTypes);
+    }
+    if (resourceOrder != null) {
+      copy.resourceOrder.addAll(resourceOrder);
+    }
+    if (stages != null) {
+      stages.stream().map(stage -> stage == null ? null : stage.copy()).forEach(copy.stages::add);
+    }
+    return copy;
+  }
+
+  /**
+   * Creates a clone of this plan with a new name. The stages are not copied, but shared with this plan, so the stages
+   * of both plans must not be modified afterwards (use {@link #copy()} to get a plan that can be modified).
+   */
+  public PlanDto createClone(String cloneName) {
+    PlanDto clone = new PlanDto();
+    clone.name = cloneName;
+    clone.gameName = gameName;
+    clone.description = "Cloned from '" + name + "'\n" + (description != null ? description : "");
+    if (resourceTypes != null) {
+      clone.resourceTypes.putAll(resourceTypes);
+    }
+    if (resourceOrder != null) {
+      clone.resourceOrder.addAll(resourceOrder);
+    }
+    if (stages != null) {
+      clone.stages.addAll(stages);
+    }
+    return clone;
+  }
 }
@@ -0,0 +1,37 @@
+package net.tfassbender.gameplan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A single change of a plan, that is sent in a {@code PATCH} request, so a client does not need to send the whole plan
+ * for every change. Which of the fields are needed depends on the operation.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanPatchOperationDto {
+
+  public enum Operation {
+    /** inserts the {@link #stage} at the {@link #index} (an index equal to the number of stages appends the stage) */
+    @JsonProperty("insert_stage") INSERT_STAGE,
+    /** removes the stage at the {@link #index} */
+    @JsonProperty("remove_stage") REMOVE_STAGE,
+    /** moves the stage at the {@link #index} to the {@link #toIndex} */
+    @JsonProperty("move_stage") MOVE_STAGE,
+    /** sets the {@link #change} of the {@link #resource} in the stage at the {@link #index} */
+    @JsonProperty("set_resource_change") SET_RESOURCE_CHANGE,
+    /** removes the change of the {@link #resource} from the stage at the {@link #index} */
+    @JsonProperty("remove_resource_change") REMOVE_RESOURCE_CHANGE,
+    /** sets the {@link #description} of the stage at the {@link #index} */
+    @JsonProperty("set_stage_description") SET_STAGE_DESCRIPTION,
+    /** sets the {@link #description} of the plan */
+    @JsonProperty("set_description") SET_DESCRIPTION
+  }
+
+  public Operation op;
+  public Integer index;
+  public Integer toIndex;
+  public PlanStageDto stage;
+  public String resource;
+  public ResourceChangeValue change;
+  public String description;
+}
@@ -7,4 +7,16 @@ public class PlanStageDto {
 
   public String description;
   public Map<String, ResourceChangeValue> resourceChanges = new HashMap<>();
+
+  /**
+   * Creates a copy of this stage. The resource change values are records, so they are shared between the copies.
+   */
+  public PlanStageDto copy() {
+    PlanStageDto copy = new PlanStageDto();
+    copy.description = description;
+    if (resourceChanges != null) {
+      copy.resourceChanges.putAll(resourceChanges);
+    }
+    return copy;
+  }
 }
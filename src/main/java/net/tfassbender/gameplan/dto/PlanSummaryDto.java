@@ -0,0 +1,23 @@
+package net.tfassbender.gameplan.dto;
+
+/**
+ * The metadata of a plan, that is needed to list the plans without loading their stages.
+ */
+public class PlanSummaryDto {
+
+  public String name;
+  public String gameName;
+  public String description;
+  public String lastModified;
+  public int stageCount;
+
+  public static PlanSummaryDto of(PlanDto plan) {
+    PlanSummaryDto summary = new PlanSummaryDto();
+    summary.name = plan.name;
+    summary.gameName = plan.gameName;
+    summary.description = plan.description;
+    summary.lastModified = plan.lastModified;
+    summary.stageCount = plan.stages == null ? 0 : plan.stages.size();
+    return summary;
+  }
+}
@@ -0,0 +1,12 @@
+package net.tfassbender.gameplan.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PlanSummaryPageDto {
+
+  public int page;
+  public int pageSize;
+  public int totalCount;
+  public List<PlanSummaryDto> summaries = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package net.tfassbender.gameplan.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The resource totals of a plan after a stage.
+ */
+public class PlanTotalsDto {
+
+  public String planName;
+  public int stageCount;
+  public int upToStage;
+  public boolean valid;
+  public Integer firstNegativeStage;
+  public Map<String, ResourceChangeValue> totals = new HashMap<>();
+}
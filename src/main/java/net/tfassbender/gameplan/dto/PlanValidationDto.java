@@ -0,0 +1,22 @@
+package net.tfassbender.gameplan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of the validation of a plan, with the issues of all stages (ordered by stage).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanValidationDto {
+
+  public String username;
+  public String planName;
+  public String gameName;
+  public int stageCount;
+  /** {@code true} if the plan has no issues */
+  public boolean valid;
+  public Integer firstNegativeStage;
+  public List<PlanValidationIssueDto> issues = new ArrayList<>();
+}
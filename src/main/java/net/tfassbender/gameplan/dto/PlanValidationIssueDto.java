@@ -0,0 +1,44 @@
+package net.tfassbender.gameplan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A problem in a stage of a plan, that was found by the validation of the plan.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanValidationIssueDto {
+
+  public enum Type {
+    NEGATIVE_TOTAL, // the total of a resource (or a part of it, like a power bowl) is negative after the stage
+    TYPE_MISMATCH, // the change has a different type than the resource in the game config
+  }
+
+  public Type type;
+  public int stage;
+  public String resource;
+  /** the part of the resource, that is negative (like {@code bowl2} or the name of a combined resource), or {@code null} */
+  public String part;
+  /** the negative total, or {@code null} for type mismatches */
+  public Integer value;
+  public String message;
+
+  public static PlanValidationIssueDto negativeTotal(int stage, String resource, String part, int value) {
+    PlanValidationIssueDto issue = new PlanValidationIssueDto();
+    issue.type = Type.NEGATIVE_TOTAL;
+    issue.stage = stage;
+    issue.resource = resource;
+    issue.part = part;
+    issue.value = value;
+    issue.message = "The total of '" + (part != null ? resource + "." + part : resource) + "' is negative after stage " + stage + ": " + value;
+    return issue;
+  }
+
+  public static PlanValidationIssueDto typeMismatch(int stage, String resource, ResourceType changeType, ResourceType gameType) {
+    PlanValidationIssueDto issue = new PlanValidationIssueDto();
+    issue.type = Type.TYPE_MISMATCH;
+    issue.stage = stage;
+    issue.resource = resource;
+    issue.message = "The change of resource '" + resource + "' in stage " + stage + " has the type " + changeType + ", but the game defines the type " + gameType + ".";
+    return issue;
+  }
+}
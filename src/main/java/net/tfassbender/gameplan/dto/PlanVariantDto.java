@@ -0,0 +1,14 @@
+package net.tfassbender.gameplan.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A variant of a plan for a simulation: the changes of the variant are described by the same operations as the changes
+ * of a {@code PATCH} request (e.g. inserting or removing stages or changing resource changes).
+ */
+public class PlanVariantDto {
+
+  public String name;
+  public List<PlanPatchOperationDto> operations = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package net.tfassbender.gameplan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The resource totals of a simulated {@link PlanVariantDto} after its last stage.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanVariantResultDto {
+
+  public String name;
+  public int stageCount;
+  public boolean valid;
+  public Integer firstNegativeStage;
+  public Map<String, ResourceChangeValue> totals = new HashMap<>();
+  /** the reason why the variant could not be simulated (e.g. an invalid operation), or {@code null} */
+  public String error;
+}
@@ -0,0 +1,22 @@
+package net.tfassbender.gameplan.dto;
+
+import java.util.Map;
+
+/**
+ * A sampled call of a persistence service (see {@code PersistenceTracer}).
+ */
+public class TraceSpanDto {
+
+  public String traceId;
+  public String spanId;
+  /** the span of the calling service method, or {@code null} if the span is the root of the trace */
+  public String parentSpanId;
+  public String service;
+  public String operation;
+  public String outcome;
+  /** the start of the call (ISO-8601) */
+  public String start;
+  public long durationMicros;
+  /** the counters of the call (e.g. the number of scanned plan files or the bytes read) */
+  public Map<String, Long> counters;
+}
@@ -0,0 +1,20 @@
+package net.tfassbender.gameplan.exception;
+
+import java.io.Serial;
+
+/**
+ * Thrown if a resource was changed by another request since the client loaded it.
+ */
+public class GamePlanConflictException extends GamePlanPersistenceException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  public GamePlanConflictException(String message) {
+    super(message);
+  }
+
+  public GamePlanConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
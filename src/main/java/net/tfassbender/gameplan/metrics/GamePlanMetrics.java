@@ -0,0 +1,189 @@
+package net.tfassbender.gameplan.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of the persistence layer and the caches, that are exposed (with the metrics of the HTTP server) in the
+ * Prometheus format at {@code /q/metrics}. The values are additionally added to the counters of the current trace (if
+ * the current call is sampled by the {@link PersistenceTracer}).
+ * <p>
+ * The meters with fixed tags are registered once, so recording a value does not need a lookup in the registry.
+ */
+@ApplicationScoped
+public class GamePlanMetrics {
+
+  static final String OUTCOME_SUCCESS = "success";
+
+  /**
+   * The kind of a file of the persistence layer (used as tag of the file metrics).
+   */
+  public enum FileType {
+    PLAN, PLAN_LOG, PLAN_INDEX, GAME;
+
+    /**
+     * The type of a file, derived from its location and extension.
+     */
+    public static FileType of(Path file) {
+      String fileName = file.getFileName().toString();
+      Path dir = file.getParent();
+      String dirName = dir != null && dir.getFileName() != null ? dir.getFileName().toString() : "";
+      if (fileName.endsWith(".log")) {
+        return PLAN_LOG;
+      }
+      if (dirName.equals(".index")) {
+        return PLAN_INDEX;
+      }
+      if (dirName.equals(".games")) {
+        return GAME;
+      }
+      return PLAN;
+    }
+
+    private String tag() {
+      return name().toLowerCase();
+    }
+  }
+
+  public enum Cache {
+    PLANS, TOTALS
+  }
+
+  public enum CacheResult {
+    /** the value was found in the cache */
+    HIT,
+    /** a part of the value was found in the cache (e.g. the totals of the unchanged stages) */
+    PARTIAL,
+    MISS
+  }
+
+  private final MeterRegistry registry;
+
+  private final Map<FileType, Counter> bytesRead = new EnumMap<>(FileType.class);
+  private final Map<FileType, Counter> bytesWritten = new EnumMap<>(FileType.class);
+  private final Map<Cache, Map<CacheResult, Counter>> cacheRequests = new EnumMap<>(Cache.class);
+  private final Timer planParseTime;
+  private final DistributionSummary planStages;
+  private final DistributionSummary planFileSize;
+  private final DistributionSummary scannedPlanFiles;
+  private final DistributionSummary parsedPlanFiles;
+
+  @Inject
+  public GamePlanMetrics(MeterRegistry registry) {
+    this.registry = registry;
+
+    for (FileType type : FileType.values()) {
+      bytesRead.put(type, Counter.builder("gameplan.file.read") //
+              .description("The bytes read from the files of the persistence layer") //
+              .baseUnit(BaseUnits.BYTES).tag("type", type.tag()).register(registry));
+      bytesWritten.put(type, Counter.builder("gameplan.file.written") //
+              .description("The bytes written to the files of the persistence layer") //
+              .baseUnit(BaseUnits.BYTES).tag("type", type.tag()).register(registry));
+    }
+    for (Cache cache : Cache.values()) {
+      Map<CacheResult, Counter> counters = new EnumMap<>(CacheResult.class);
+      for (CacheResult result : CacheResult.values()) {
+        counters.put(result, Counter.builder("gameplan.cache.requests") //
+                .description("The lookups in the caches") //
+                .tag("cache", cache.name().toLowerCase()).tag("result", result.name().toLowerCase()).register(registry));
+      }
+      cacheRequests.put(cache, counters);
+    }
+
+    planParseTime = Timer.builder("gameplan.plan.parse") //
+            .description("The time to read and parse a plan (including its plan log)") //
+            .publishPercentileHistogram().register(registry);
+    planStages = DistributionSummary.builder("gameplan.plan.stages") //
+            .description("The number of stages of the loaded and saved plans") //
+            .publishPercentileHistogram().register(registry);
+    planFileSize = DistributionSummary.builder("gameplan.plan.file.size") //
+            .description("The size of the read and written plans") //
+            .baseUnit(BaseUnits.BYTES).publishPercentileHistogram().register(registry);
+    scannedPlanFiles = DistributionSummary.builder("gameplan.plan_index.scan.files") //
+            .description("The number of plan files that were listed by a scan of a user directory") //
+            .publishPercentileHistogram().register(registry);
+    parsedPlanFiles = DistributionSummary.builder("gameplan.plan_index.scan.parsed") //
+            .description("The number of plan files that had to be parsed by a scan of a user directory") //
+            .publishPercentileHistogram().register(registry);
+  }
+
+  /**
+   * Records a call of a service method (see {@link MeasuredInterceptor}).
+   */
+  public void recordServiceCall(String service, String method, String outcome, long nanos) {
+    // the registry returns the existing timer, if it was registered before
+    Timer.builder("gameplan.service.calls") //
+            .description("The duration of the calls of the persistence services") //
+            .tag("service", service).tag("method", method).tag("outcome", outcome) //
+            .publishPercentileHistogram() //
+            .register(registry) //
+            .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordFileRead(Path file, long bytes) {
+    FileType type = FileType.of(file);
+    bytesRead.get(type).increment(bytes);
+    if (PersistenceTracer.isTracing()) {
+      PersistenceTracer.count("file." + type.tag() + ".read_bytes", bytes);
+    }
+  }
+
+  public void recordFileWritten(Path file, long bytes) {
+    FileType type = FileType.of(file);
+    bytesWritten.get(type).increment(bytes);
+    if (PersistenceTracer.isTracing()) {
+      PersistenceTracer.count("file." + type.tag() + ".written_bytes", bytes);
+    }
+  }
+
+  /**
+   * Records a plan that was read and parsed (from a plan file or from the database).
+   */
+  public void recordPlanRead(long fileSize, int stageCount, long parseNanos) {
+    bytesRead.get(FileType.PLAN).increment(fileSize);
+    planFileSize.record(fileSize);
+    planStages.record(stageCount);
+    planParseTime.record(parseNanos, TimeUnit.NANOSECONDS);
+    PersistenceTracer.count("plan.parsed", 1);
+    PersistenceTracer.count("plan.parse_micros", TimeUnit.NANOSECONDS.toMicros(parseNanos));
+    PersistenceTracer.count("file.plan.read_bytes", fileSize);
+  }
+
+  /**
+   * Records a plan that was saved (the written bytes are recorded by the writer of the file, like the bytes of the
+   * other files).
+   *
+   */
+  public void recordPlanWritten(long fileSize, int stageCount) {
+    planFileSize.record(fileSize);
+    planStages.record(stageCount);
+  }
+
+  /**
+   * Records a scan of the plan files of a user directory.
+   */
+  public void recordPlanScan(int listedFiles, int parsedFiles) {
+    scannedPlanFiles.record(listedFiles);
+    parsedPlanFiles.record(parsedFiles);
+    PersistenceTracer.count("plan_index.scans", 1);
+    PersistenceTracer.count("plan_index.scanned_files", listedFiles);
+    PersistenceTracer.count("plan_index.parsed_files", parsedFiles);
+  }
+
+  public void recordCacheRequest(Cache cache, CacheResult result) {
+    cacheRequests.get(cache).get(result).increment();
+    if (PersistenceTracer.isTracing()) {
+      PersistenceTracer.count("cache." + cache.name().toLowerCase() + "." + result.name().toLowerCase(), 1);
+    }
+  }
+}
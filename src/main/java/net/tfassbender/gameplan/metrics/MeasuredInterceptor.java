@@ -0,0 +1,45 @@
+package net.tfassbender.gameplan.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Records the duration and the outcome (the simple name of the exception or {@code success}) of every call of a
+ * {@link Measured} service, and the sampled traces of the calls (see {@link PersistenceTracer}).
+ */
+@Measured
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class MeasuredInterceptor {
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  @Inject
+  private PersistenceTracer tracer;
+
+  @AroundInvoke
+  Object measure(InvocationContext context) throws Exception {
+    // the declaring class is the service (the class of the target is the generated subclass of the container)
+    String service = context.getMethod().getDeclaringClass().getSimpleName();
+    String method = context.getMethod().getName();
+    PersistenceTracer.Span span = tracer.startSpan(service, method);
+    long start = System.nanoTime();
+    String outcome = GamePlanMetrics.OUTCOME_SUCCESS;
+    try {
+      return context.proceed();
+    }
+    catch (Exception e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    }
+    finally {
+      long duration = System.nanoTime() - start;
+      metrics.recordServiceCall(service, method, outcome, duration);
+      tracer.endSpan(span, outcome, duration);
+    }
+  }
+}
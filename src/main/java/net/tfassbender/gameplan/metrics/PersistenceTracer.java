@@ -0,0 +1,263 @@
+package net.tfassbender.gameplan.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.TraceSpanDto;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records sampled traces of the calls of the persistence services (see {@link MeasuredInterceptor}).
+ * <p>
+ * A trace starts with the outermost call of a {@link Measured} service and contains a span for every nested service
+ * call. Each span contains the duration of the call and the counters that were recorded while it was running (e.g. the
+ * plan files that were scanned or parsed, see {@link #count(String, long)}). Only a part of the traces is recorded,
+ * that is configured with {@code game_plan.tracing.sample_rate} (from 0 = no traces to 1 = all traces). The nested
+ * calls are sampled with their trace.
+ * <p>
+ * The last {@code game_plan.tracing.buffer_size} spans are kept in memory (see {@link #getRecentSpans()}). If
+ * {@code game_plan.tracing.file} is set, the spans are additionally appended to this file as JSON lines. The file is
+ * written by a background thread, so the traced calls never wait for the disk (spans are dropped if the thread can't
+ * keep up).
+ */
+@ApplicationScoped
+public class PersistenceTracer {
+
+  private static final Logger log = LoggerFactory.getLogger(PersistenceTracer.class);
+
+  // the span of the service call that is currently running on the thread (a virtual thread per request)
+  private static final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+  @ConfigProperty(name = "game_plan.tracing.sample_rate", defaultValue = "0.01")
+  private double sampleRate;
+
+  @ConfigProperty(name = "game_plan.tracing.buffer_size", defaultValue = "1000")
+  private int bufferSize;
+
+  @ConfigProperty(name = "game_plan.tracing.file")
+  private Optional<String> traceFile;
+
+  @Inject
+  private ObjectMapper objectMapper;
+
+  // the recent spans (not a monitor, so waiting virtual threads are not pinned)
+  private final ReentrantLock recentSpansLock = new ReentrantLock();
+  private final Deque<TraceSpanDto> recentSpans = new ArrayDeque<>();
+
+  private BlockingQueue<TraceSpanDto> exportQueue;
+  private ExecutorService exportExecutor;
+  private final AtomicLong droppedSpans = new AtomicLong();
+
+  /**
+   * Starts the span of a service call.
+   *
+   * @return the span, that has to be ended with {@link #endSpan(Span, String, long)}
+   */
+  public Span startSpan(String service, String operation) {
+    Span parent = currentSpan.get();
+    boolean sampled = parent != null ? parent.sampled : sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    Span span = new Span(parent, sampled, service, operation);
+    currentSpan.set(span);
+    return span;
+  }
+
+  public void endSpan(Span span, String outcome, long durationNanos) {
+    if (span.parent != null) {
+      currentSpan.set(span.parent);
+    }
+    else {
+      currentSpan.remove();
+    }
+    if (span.sampled) {
+      record(span.toDto(outcome, durationNanos));
+    }
+  }
+
+  /**
+   * Adds a value to a counter of the current span (if the current call is traced).
+   */
+  public static void count(String counter, long value) {
+    Span span = currentSpan.get();
+    if (span != null && span.sampled) {
+      span.counters.merge(counter, value, Long::sum);
+    }
+  }
+
+  /**
+   * Checks whether the current call is traced (to skip the creation of counter names, if it's not).
+   */
+  public static boolean isTracing() {
+    Span span = currentSpan.get();
+    return span != null && span.sampled;
+  }
+
+  /**
+   * The recorded spans (the newest first).
+   */
+  public List<TraceSpanDto> getRecentSpans() {
+    recentSpansLock.lock();
+    try {
+      return new ArrayList<>(recentSpans);
+    }
+    finally {
+      recentSpansLock.unlock();
+    }
+  }
+
+  private void record(TraceSpanDto span) {
+    recentSpansLock.lock();
+    try {
+      recentSpans.addFirst(span);
+      while (recentSpans.size() > bufferSize) {
+        recentSpans.removeLast();
+      }
+    }
+    finally {
+      recentSpansLock.unlock();
+    }
+
+    if (traceFile.isPresent() && !getExportQueue().offer(span)) {
+      droppedSpans.incrementAndGet();
+    }
+  }
+
+  private synchronized BlockingQueue<TraceSpanDto> getExportQueue() {
+    if (exportQueue == null) {
+      exportQueue = new ArrayBlockingQueue<>(Math.max(bufferSize, 1));
+      exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trace-export");
+        thread.setDaemon(true);
+        return thread;
+      });
+      Path file = Paths.get(traceFile.get());
+      exportExecutor.execute(() -> exportSpans(exportQueue, file));
+      log.info("Writing the sampled persistence traces to '{}'", file);
+    }
+    return exportQueue;
+  }
+
+  private void exportSpans(BlockingQueue<TraceSpanDto> queue, Path file) {
+    List<TraceSpanDto> spans = new ArrayList<>();
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      while (!Thread.currentThread().isInterrupted()) {
+        spans.add(queue.take());
+        queue.drainTo(spans);
+        for (TraceSpanDto span : spans) {
+          writer.write(objectMapper.writeValueAsString(span));
+          writer.newLine();
+        }
+        spans.clear();
+        writer.flush();
+
+        long dropped = droppedSpans.getAndSet(0);
+        if (dropped > 0) {
+          log.warn("Dropped {} spans, because the trace file could not be written fast enough", dropped);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (IOException e) {
+      log.error("Failed to write the trace file '{}': {}", file, e.getMessage(), e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ExecutorService executor;
+    synchronized (this) {
+      executor = exportExecutor;
+      exportExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+      try {
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * A running service call.
+   */
+  public static final class Span {
+
+    private final Span parent;
+    private final boolean sampled;
+    private final String service;
+    private final String operation;
+    private final String traceId;
+    private final String spanId;
+    private final Instant start;
+    private final Map<String, Long> counters;
+
+    private Span(Span parent, boolean sampled, String service, String operation) {
+      this.parent = parent;
+      this.sampled = sampled;
+      this.service = service;
+      this.operation = operation;
+      if (sampled) {
+        this.traceId = parent != null ? parent.traceId : createId();
+        this.spanId = createId();
+        this.start = Instant.now();
+        this.counters = new LinkedHashMap<>();
+      }
+      else {
+        // the spans that are not sampled don't need any data
+        this.traceId = null;
+        this.spanId = null;
+        this.start = null;
+        this.counters = null;
+      }
+    }
+
+    private static String createId() {
+      return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    private TraceSpanDto toDto(String outcome, long durationNanos) {
+      TraceSpanDto dto = new TraceSpanDto();
+      dto.traceId = traceId;
+      dto.spanId = spanId;
+      dto.parentSpanId = parent != null ? parent.spanId : null;
+      dto.service = service;
+      dto.operation = operation;
+      dto.outcome = outcome;
+      dto.start = start.toString();
+      dto.durationMicros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+      dto.counters = counters;
+      return dto;
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package net.tfassbender.gameplan.persistence;
+
+/**
+ * A CDI event, that is fired (asynchronously) when the config of a game was changed, so the plans of the game can be
+ * checked against the new config.
+ */
+public record GameConfigChangedEvent(String gameName) {}
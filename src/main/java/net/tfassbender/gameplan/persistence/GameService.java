@@ -9,4 +9,9 @@ public interface GameService {
 
   List<String> getGameNames() throws GamePlanPersistenceException;
   GameDto getGame(String gameName) throws GamePlanPersistenceException;
+
+  /**
+   * Get the version of the game config without loading the config itself.
+   */
+  ResourceVersion getGameVersion(String gameName) throws GamePlanPersistenceException;
 }
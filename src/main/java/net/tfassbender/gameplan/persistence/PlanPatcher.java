@@ -0,0 +1,226 @@
+package net.tfassbender.gameplan.persistence;
+
+import net.tfassbender.gameplan.calculation.PlanCompiler;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.ResourceType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies the operations of a {@code PATCH} request to a plan, and calculates the operations that change one plan into
+ * another one (e.g. to store only the changes of a saved plan in the plan log).
+ */
+public class PlanPatcher {
+
+  private PlanPatcher() {}
+
+  /**
+   * Applies the operations in the given order. The plan is changed in place, so it has to be a copy of the stored plan
+   * (the operations before an invalid operation are already applied when the exception is thrown).
+   *
+   * @throws IllegalArgumentException if an operation is incomplete or does not fit the plan (e.g. an invalid stage
+   *         index)
+   */
+  public static void apply(PlanDto plan, List<PlanPatchOperationDto> operations) {
+    if (operations == null) {
+      throw new IllegalArgumentException("The patch operations are missing.");
+    }
+    if (plan.stages == null) {
+      plan.stages = new ArrayList<>();
+    }
+
+    for (int i = 0; i < operations.size(); i++) {
+      PlanPatchOperationDto operation = operations.get(i);
+      if (operation == null || operation.op == null) {
+        throw new IllegalArgumentException("The operation " + i + " has no type.");
+      }
+      apply(plan, operation, i);
+    }
+  }
+
+  /**
+   * Calculates the operations, that change the stages and the description of a plan into the ones of the changed plan.
+   * The stages at the start and at the end of the plans, that are equal, are skipped, so a change of a single stage
+   * leads to operations for this stage only.
+   *
+   * @return the operations (that might be empty, if the plans are equal) or {@code null} if the changes cannot be
+   *         expressed as operations (e.g. if the resource types were changed)
+   */
+  public static List<PlanPatchOperationDto> diff(PlanDto plan, PlanDto changedPlan) {
+    if (!Objects.equals(plan.name, changedPlan.name) || !Objects.equals(plan.gameName, changedPlan.gameName) //
+            || !Objects.equals(plan.resourceTypes, changedPlan.resourceTypes) || !Objects.equals(plan.resourceOrder, changedPlan.resourceOrder)) {
+      return null;
+    }
+
+    List<PlanStageDto> stages = plan.stages != null ? plan.stages : List.of();
+    List<PlanStageDto> changedStages = changedPlan.stages != null ? changedPlan.stages : List.of();
+    int commonSize = Math.min(stages.size(), changedStages.size());
+    int prefix = 0;
+    while (prefix < commonSize && isEqual(stages.get(prefix), changedStages.get(prefix))) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < commonSize - prefix && isEqual(stages.get(stages.size() - 1 - suffix), changedStages.get(changedStages.size() - 1 - suffix))) {
+      suffix++;
+    }
+
+    List<PlanPatchOperationDto> operations = new ArrayList<>();
+    int removedStages = stages.size() - prefix - suffix;
+    int insertedStages = changedStages.size() - prefix - suffix;
+    int changedStageCount = Math.min(removedStages, insertedStages);
+    for (int i = prefix; i < prefix + changedStageCount; i++) {
+      if (!diffStage(i, stages.get(i), changedStages.get(i), operations)) {
+        return null;
+      }
+    }
+    for (int i = changedStageCount; i < removedStages; i++) {
+      operations.add(stageOperation(PlanPatchOperationDto.Operation.REMOVE_STAGE, prefix + changedStageCount));
+    }
+    for (int i = changedStageCount; i < insertedStages; i++) {
+      PlanPatchOperationDto insert = stageOperation(PlanPatchOperationDto.Operation.INSERT_STAGE, prefix + i);
+      insert.stage = changedStages.get(prefix + i);
+      operations.add(insert);
+    }
+
+    if (!Objects.equals(plan.description, changedPlan.description)) {
+      PlanPatchOperationDto setDescription = new PlanPatchOperationDto();
+      setDescription.op = PlanPatchOperationDto.Operation.SET_DESCRIPTION;
+      setDescription.description = changedPlan.description;
+      operations.add(setDescription);
+    }
+    return operations;
+  }
+
+  private static boolean diffStage(int index, PlanStageDto stage, PlanStageDto changedStage, List<PlanPatchOperationDto> operations) {
+    if (stage == null || changedStage == null) {
+      return false;
+    }
+
+    if (!Objects.equals(stage.description, changedStage.description)) {
+      PlanPatchOperationDto setDescription = stageOperation(PlanPatchOperationDto.Operation.SET_STAGE_DESCRIPTION, index);
+      setDescription.description = changedStage.description;
+      operations.add(setDescription);
+    }
+
+    Map<String, ResourceChangeValue> changes = stage.resourceChanges != null ? stage.resourceChanges : Map.of();
+    Map<String, ResourceChangeValue> newChanges = changedStage.resourceChanges != null ? changedStage.resourceChanges : Map.of();
+    for (String resource : changes.keySet()) {
+      if (!newChanges.containsKey(resource)) {
+        PlanPatchOperationDto remove = stageOperation(PlanPatchOperationDto.Operation.REMOVE_RESOURCE_CHANGE, index);
+        remove.resource = resource;
+        operations.add(remove);
+      }
+    }
+    for (Map.Entry<String, ResourceChangeValue> change : newChanges.entrySet()) {
+      if (change.getValue() == null) {
+        // a missing change cannot be set by an operation
+        return false;
+      }
+      if (!change.getValue().equals(changes.get(change.getKey()))) {
+        PlanPatchOperationDto set = stageOperation(PlanPatchOperationDto.Operation.SET_RESOURCE_CHANGE, index);
+        set.resource = change.getKey();
+        set.change = change.getValue();
+        operations.add(set);
+      }
+    }
+    return true;
+  }
+
+  private static boolean isEqual(PlanStageDto stage, PlanStageDto otherStage) {
+    if (stage == null || otherStage == null) {
+      return stage == otherStage;
+    }
+    return Objects.equals(stage.description, otherStage.description) && Objects.equals(stage.resourceChanges, otherStage.resourceChanges);
+  }
+
+  private static PlanPatchOperationDto stageOperation(PlanPatchOperationDto.Operation op, int index) {
+    PlanPatchOperationDto operation = new PlanPatchOperationDto();
+    operation.op = op;
+    operation.index = index;
+    return operation;
+  }
+
+  private static void apply(PlanDto plan, PlanPatchOperationDto operation, int operationIndex) {
+    List<PlanStageDto> stages = plan.stages;
+    switch (operation.op) {
+      case INSERT_STAGE -> {
+        int index = getIndex(operation.index, stages.size() + 1, operationIndex);
+        PlanStageDto stage = operation.stage != null ? operation.stage : new PlanStageDto();
+        if (stage.resourceChanges == null) {
+          stage.resourceChanges = new HashMap<>();
+        }
+        stage.resourceChanges.forEach((resource, change) -> checkResourceType(plan, resource, change, operationIndex));
+        stages.add(index, stage);
+      }
+      case REMOVE_STAGE -> stages.remove(getIndex(operation.index, stages.size(), operationIndex));
+      case MOVE_STAGE -> {
+        int from = getIndex(operation.index, stages.size(), operationIndex);
+        int to = getIndex(operation.toIndex, stages.size(), operationIndex);
+        stages.add(to, stages.remove(from));
+      }
+      case SET_RESOURCE_CHANGE -> {
+        PlanStageDto stage = getStage(plan, operation, operationIndex);
+        checkResourceName(operation, operationIndex);
+        if (operation.change == null) {
+          throw new IllegalArgumentException("The operation " + operationIndex + " has no resource change.");
+        }
+        checkResourceType(plan, operation.resource, operation.change, operationIndex);
+        stage.resourceChanges.put(operation.resource, operation.change);
+      }
+      case REMOVE_RESOURCE_CHANGE -> {
+        PlanStageDto stage = getStage(plan, operation, operationIndex);
+        checkResourceName(operation, operationIndex);
+        stage.resourceChanges.remove(operation.resource);
+      }
+      case SET_STAGE_DESCRIPTION -> getStage(plan, operation, operationIndex).description = operation.description;
+      case SET_DESCRIPTION -> plan.description = operation.description;
+    }
+  }
+
+  private static PlanStageDto getStage(PlanDto plan, PlanPatchOperationDto operation, int operationIndex) {
+    int index = getIndex(operation.index, plan.stages.size(), operationIndex);
+    PlanStageDto stage = plan.stages.get(index);
+    if (stage == null) {
+      stage = new PlanStageDto();
+      plan.stages.set(index, stage);
+    }
+    else if (stage.resourceChanges == null) {
+      stage.resourceChanges = new HashMap<>();
+    }
+    return stage;
+  }
+
+  private static int getIndex(Integer index, int size, int operationIndex) {
+    if (index == null || index < 0 || index >= size) {
+      throw new IllegalArgumentException("The stage index " + index + " of operation " + operationIndex + " is not valid (the index must be between 0 and " + (size - 1) + ").");
+    }
+    return index;
+  }
+
+  private static void checkResourceName(PlanPatchOperationDto operation, int operationIndex) {
+    if (operation.resource == null || operation.resource.isBlank()) {
+      throw new IllegalArgumentException("The operation " + operationIndex + " has no resource name.");
+    }
+  }
+
+  /**
+   * Changes of the resources that are configured in the plan must match the configured type.
+   */
+  private static void checkResourceType(PlanDto plan, String resource, ResourceChangeValue change, int operationIndex) {
+    ResourceType type = plan.resourceTypes != null ? plan.resourceTypes.get(resource) : null;
+    if (type == null || change == null) {
+      return;
+    }
+    ResourceType changeType = PlanCompiler.getResourceType(change);
+    if (changeType != null && changeType != type) {
+      throw new IllegalArgumentException("The change of resource '" + resource + "' in operation " + operationIndex + " has the type " + changeType + ", but the resource has the type " + type + ".");
+    }
+  }
+}
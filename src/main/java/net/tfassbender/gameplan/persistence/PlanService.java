@@ -1,15 +1,84 @@
 package net.tfassbender.gameplan.persistence;
 
 import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PlanService {
 
   List<String> getPlanNames(String username) throws GamePlanPersistenceException;
+  List<PlanSummaryDto> getPlanSummaries(String username) throws GamePlanPersistenceException;
   PlanDto getPlan(String username, String planName) throws GamePlanPersistenceException;
+  VersionedPlan getVersionedPlan(String username, String planName) throws GamePlanPersistenceException;
+
+  /**
+   * Get the plan without adding it to a cache of the backend, so reading many plans (like the migration) does not fill
+   * the cache.
+   */
+  default PlanDto getUncachedPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getPlan(username, planName);
+  }
+
+  /**
+   * Get the version of the stored plan without loading the plan itself.
+   */
+  ResourceVersion getPlanVersion(String username, String planName) throws GamePlanPersistenceException;
+
+  /**
+   * Finds the file of the stored plan, if the plan can be sent directly from the file (without loading it). The
+   * returned file is already opened and has to be closed by the caller.
+   *
+   * @return the file of the plan or an empty optional, if the plan has to be loaded with
+   *         {@link #getVersionedPlan(String, String)}
+   */
+  default Optional<StoredPlanFile> findPlanFile(String username, String planName) throws GamePlanPersistenceException {
+    return Optional.empty();
+  }
+
   PlanDto createPlan(String username, String gameName) throws GamePlanPersistenceException;
-  PlanDto savePlan(String username, PlanDto plan) throws GamePlanPersistenceException;
+
+  /**
+   * Creates a clone of a plan (with a new unique name and the stages of the original plan) with one lookup of the
+   * original plan and one write.
+   */
+  VersionedPlan clonePlan(String username, String originalPlanName) throws GamePlanPersistenceException;
+
+  default PlanDto savePlan(String username, PlanDto plan) throws GamePlanPersistenceException {
+    return savePlan(username, plan, null).plan();
+  }
+
+  /**
+   * Saves the plan, if the stored plan still has the expected version. Only existing plans can be saved (new plans are
+   * created with {@link #createPlan(String, String)}, {@link #clonePlan(String, String)} or
+   * {@link #importPlan(String, PlanDto)}).
+   *
+   * @param expectedVersion the version tag of the plan, that the changes are based on, or {@code null} to overwrite any
+   *         version
+   * @throws net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException if the plan does not exist
+   * @throws net.tfassbender.gameplan.exception.GamePlanConflictException if the stored plan has a different version
+   */
+  VersionedPlan savePlan(String username, PlanDto plan, String expectedVersion) throws GamePlanPersistenceException;
+
+  /**
+   * Stores the plan under its name without checking a version: a plan that does not exist yet is created and an
+   * existing plan is overwritten. This is used to copy the plans between the storage backends, so the plan is not
+   * added to a cache of the backend.
+   */
+  VersionedPlan importPlan(String username, PlanDto plan) throws GamePlanPersistenceException;
+
+  /**
+   * Applies the operations to the stored plan and saves it, if the stored plan still has the expected version.
+   *
+   * @param expectedVersion the version tag of the plan, that the operations are based on, or {@code null} to change any
+   *         version
+   * @throws IllegalArgumentException if an operation does not fit the plan (the plan is not changed in this case)
+   * @throws net.tfassbender.gameplan.exception.GamePlanConflictException if the stored plan has a different version
+   */
+  VersionedPlan patchPlan(String username, String planName, List<PlanPatchOperationDto> operations, String expectedVersion) throws GamePlanPersistenceException;
+
   void deletePlan(String username, String planName) throws GamePlanPersistenceException;
 }
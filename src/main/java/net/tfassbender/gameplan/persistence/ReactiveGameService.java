@@ -0,0 +1,15 @@
+package net.tfassbender.gameplan.persistence;
+
+import io.smallrye.mutiny.Uni;
+import net.tfassbender.gameplan.dto.GameDto;
+
+import java.util.List;
+
+/**
+ * The non-blocking variant of the {@link GameService}, that can be used on an event loop thread.
+ */
+public interface ReactiveGameService {
+
+  Uni<List<String>> getGameNames();
+  Uni<GameDto> getGame(String gameName);
+}
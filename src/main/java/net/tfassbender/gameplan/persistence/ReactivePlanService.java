@@ -0,0 +1,26 @@
+package net.tfassbender.gameplan.persistence;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+
+import java.util.List;
+
+/**
+ * The non-blocking variant of the {@link PlanService}, that can be used on an event loop thread. The operations fail
+ * with the same exceptions as the ones of the {@link PlanService}.
+ */
+public interface ReactivePlanService {
+
+  Uni<List<String>> getPlanNames(String username);
+  Multi<PlanSummaryDto> getPlanSummaries(String username);
+  Uni<VersionedPlan> getVersionedPlan(String username, String planName);
+
+  /**
+   * @see PlanService#savePlan(String, PlanDto, String)
+   */
+  Uni<VersionedPlan> savePlan(String username, PlanDto plan, String expectedVersion);
+
+  Uni<Void> deletePlan(String username, String planName);
+}
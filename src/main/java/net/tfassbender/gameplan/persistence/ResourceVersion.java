@@ -0,0 +1,11 @@
+package net.tfassbender.gameplan.persistence;
+
+import java.time.Instant;
+
+/**
+ * The version of a stored resource (like a plan or a game config).
+ *
+ * @param tag an opaque token, that changes whenever the stored resource changes (used as ETag)
+ * @param lastModified the time of the last modification of the stored resource
+ */
+public record ResourceVersion(String tag, Instant lastModified) {}
@@ -0,0 +1,79 @@
+package net.tfassbender.gameplan.persistence;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.persistence.file.PlanFileService;
+import net.tfassbender.gameplan.persistence.file.ReactivePlanFileService;
+import net.tfassbender.gameplan.persistence.file.UserFileService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStorePlanService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStoreUserService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Selects the implementations of the {@link PlanService}, the {@link ReactivePlanService} and the {@link UserService}
+ * by the config property {@code game_plan.storage.backend}:
+ * <ul>
+ *   <li>{@code file}: the users and plans are stored in the directory {@code game_plan.path} (one file per plan)</li>
+ *   <li>{@code mvstore}: the users and plans are stored in the embedded database file
+ *   {@code game_plan.storage.mvstore.file}</li>
+ * </ul>
+ * The games are always loaded from the game config files.
+ */
+@ApplicationScoped
+public class StorageBackends {
+
+  public enum StorageBackend {
+    FILE, MVSTORE
+  }
+
+  @ConfigProperty(name = "game_plan.storage.backend", defaultValue = "file")
+  private StorageBackend backend;
+
+  @Inject
+  private Instance<PlanFileService> planFileService;
+
+  @Inject
+  private Instance<MVStorePlanService> mvStorePlanService;
+
+  @Inject
+  private Instance<ReactivePlanFileService> reactivePlanFileService;
+
+  @Inject
+  private Instance<UserFileService> userFileService;
+
+  @Inject
+  private Instance<MVStoreUserService> mvStoreUserService;
+
+  @Produces
+  @ApplicationScoped
+  public PlanService planService() {
+    return switch (backend) {
+      case FILE -> planFileService.get();
+      case MVSTORE -> mvStorePlanService.get();
+    };
+  }
+
+  @Produces
+  @ApplicationScoped
+  public ReactivePlanService reactivePlanService() {
+    return switch (backend) {
+      case FILE -> reactivePlanFileService.get();
+      case MVSTORE -> new WorkerPoolPlanService(mvStorePlanService.get());
+    };
+  }
+
+  @Produces
+  @ApplicationScoped
+  public UserService userService() {
+    return switch (backend) {
+      case FILE -> userFileService.get();
+      case MVSTORE -> mvStoreUserService.get();
+    };
+  }
+
+  public StorageBackend getBackend() {
+    return backend;
+  }
+}
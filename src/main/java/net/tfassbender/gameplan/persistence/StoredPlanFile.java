@@ -0,0 +1,85 @@
+package net.tfassbender.gameplan.persistence;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A plan, that is stored as JSON file in the format of the REST API, so it can be sent without loading it (see
+ * {@link PlanService#findPlanFile(String, String)}).
+ * <p>
+ * The file is opened when the plan is found, so the sent content always matches the version, even if the plan is
+ * saved (the file is replaced) or deleted while it's sent. The file has to be closed after it was sent.
+ *
+ * @param channel the opened plan file
+ * @param stageCount the number of stages of the plan
+ */
+public record StoredPlanFile(FileChannel channel, ResourceVersion version, int stageCount) implements Closeable {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * Copies the whole plan file to the output stream.
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    // the target channel is not closed, because it would close the output stream
+    WritableByteChannel target = Channels.newChannel(outputStream);
+    long size = channel.size();
+    for (long position = 0; position < size; ) {
+      position += channel.transferTo(position, size - position, target);
+    }
+  }
+
+  /**
+   * Copies the plan file token by token to the output stream, but writes only the stages from {@code fromStage} to
+   * {@code toStage} (both inclusive). The other stages are skipped without being parsed into objects, so the memory
+   * usage does not depend on the size of the plan.
+   */
+  public void writeStages(OutputStream outputStream, int fromStage, int toStage) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(Channels.newInputStream(channel.position(0))); //
+         JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("The plan file does not contain a JSON object.");
+      }
+
+      generator.writeStartObject();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        generator.writeFieldName(field);
+        if (field.equals("stages") && value == JsonToken.START_ARRAY) {
+          generator.writeStartArray();
+          int stage = 0;
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (stage >= fromStage && stage <= toStage) {
+              generator.copyCurrentStructure(parser);
+            }
+            else {
+              parser.skipChildren();
+            }
+            stage++;
+          }
+          generator.writeEndArray();
+        }
+        else {
+          generator.copyCurrentStructure(parser);
+        }
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,8 @@
+package net.tfassbender.gameplan.persistence;
+
+import net.tfassbender.gameplan.dto.PlanDto;
+
+/**
+ * A plan together with the version of its stored state.
+ */
+public record VersionedPlan(PlanDto plan, ResourceVersion version) {}
@@ -0,0 +1,34 @@
+package net.tfassbender.gameplan.persistence;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+
+/**
+ * Runs blocking calls of the persistence services on the worker pool, so the reactive services can use them without
+ * blocking the event loop.
+ */
+public final class WorkerPool {
+
+  /**
+   * A call of a blocking service.
+   */
+  @FunctionalInterface
+  public interface BlockingCall<T> {
+
+    T call() throws GamePlanPersistenceException;
+  }
+
+  private WorkerPool() {}
+
+  public static <T> Uni<T> run(BlockingCall<T> call) {
+    return Uni.createFrom().<T> emitter(emitter -> {
+      try {
+        emitter.complete(call.call());
+      }
+      catch (GamePlanPersistenceException | RuntimeException e) {
+        emitter.fail(e);
+      }
+    }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+  }
+}
@@ -0,0 +1,44 @@
+package net.tfassbender.gameplan.persistence;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+
+import java.util.List;
+
+/**
+ * A {@link ReactivePlanService}, that runs all operations of a blocking {@link PlanService} on the worker pool (for
+ * the storage backends without a non-blocking implementation).
+ */
+public class WorkerPoolPlanService implements ReactivePlanService {
+
+  private final PlanService planService;
+
+  public WorkerPoolPlanService(PlanService planService) {
+    this.planService = planService;
+  }
+
+  public Uni<List<String>> getPlanNames(String username) {
+    return WorkerPool.run(() -> planService.getPlanNames(username));
+  }
+
+  public Multi<PlanSummaryDto> getPlanSummaries(String username) {
+    return WorkerPool.run(() -> planService.getPlanSummaries(username)).onItem().transformToMulti(summaries -> Multi.createFrom().iterable(summaries));
+  }
+
+  public Uni<VersionedPlan> getVersionedPlan(String username, String planName) {
+    return WorkerPool.run(() -> planService.getVersionedPlan(username, planName));
+  }
+
+  public Uni<VersionedPlan> savePlan(String username, PlanDto plan, String expectedVersion) {
+    return WorkerPool.run(() -> planService.savePlan(username, plan, expectedVersion));
+  }
+
+  public Uni<Void> deletePlan(String username, String planName) {
+    return WorkerPool.run(() -> {
+      planService.deletePlan(username, planName);
+      return null;
+    });
+  }
+}
@@ -0,0 +1,388 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes files atomically: the content is written to a temp file in the same directory, which is then moved to the
+ * target file. So a reader (or the server after a crash) sees either the old or the new content, but never a truncated
+ * file. Additionally content can be appended to (log) files, that are synced in the same way.
+ * <p>
+ * When the data is forced to the disk is configured with {@code game_plan.fsync.policy}:
+ * <ul>
+ *   <li>{@code always}: the temp file is synced before it's moved and the directory is synced after the move (the
+ *   directory syncs of concurrent writes are done together)</li>
+ *   <li>{@code batched} (a deferred directory sync): the data of the temp file is synced by the writing thread before
+ *   it's moved (so the moved file is never truncated), but the directory is synced in the background every
+ *   {@code game_plan.fsync.batch_interval_ms} milliseconds (so a file can have its old content after a crash, if it was
+ *   changed in the last interval). Appended files are synced in the background completely.</li>
+ *   <li>{@code never}: the files are not synced (the operating system decides when the data is written)</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class AtomicFileWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(AtomicFileWriter.class);
+
+  public static final String TEMP_FILE_EXTENSION = ".tmp";
+
+  public enum FsyncPolicy {
+    ALWAYS, BATCHED, NEVER
+  }
+
+  /**
+   * Writes the content of a file to the given stream.
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+
+    void write(OutputStream outputStream) throws IOException;
+  }
+
+  // BATCHED is a deferred directory sync for the written files - the temp files are still synced on the request path
+  @ConfigProperty(name = "game_plan.fsync.policy", defaultValue = "always")
+  private FsyncPolicy fsyncPolicy;
+
+  // the interval of the background syncs (policy BATCHED)
+  @ConfigProperty(name = "game_plan.fsync.batch_interval_ms", defaultValue = "100")
+  private long batchIntervalMillis;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  // group commit of the directory syncs (policy ALWAYS) - a lock instead of a monitor, so waiting virtual threads are
+  // not pinned to their carrier threads
+  private final ReentrantLock commitLock = new ReentrantLock();
+  private final Condition commitDone = commitLock.newCondition();
+  private List<PendingCommit> pendingCommits = new ArrayList<>();
+  private boolean committing;
+
+  // appended files and directories of moved files, that are not yet synced (policy BATCHED)
+  private final Set<Path> unsyncedFiles = new LinkedHashSet<>();
+  private final Set<Path> unsyncedDirs = new LinkedHashSet<>();
+  private ScheduledExecutorService syncExecutor;
+
+  public AtomicFileWriter() {}
+
+  /**
+   * Creates the writer without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  AtomicFileWriter(FsyncPolicy fsyncPolicy, long batchIntervalMillis, GamePlanMetrics metrics) {
+    this.fsyncPolicy = fsyncPolicy;
+    this.batchIntervalMillis = batchIntervalMillis;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Writes the file atomically and syncs it according to the fsync policy.
+   */
+  public void write(Path file, ContentWriter contentWriter) throws IOException {
+    write(file, contentWriter, fsyncPolicy);
+  }
+
+  /**
+   * Writes the file atomically without syncing it (for files that can be recreated, like the plan index files).
+   */
+  public void writeUnsynced(Path file, ContentWriter contentWriter) throws IOException {
+    write(file, contentWriter, FsyncPolicy.NEVER);
+  }
+
+  /**
+   * Appends the content to a file (that is created if it does not exist) and syncs it according to the fsync policy.
+   * Appending is not atomic, so a reader of the file has to ignore a truncated last part after a crash.
+   */
+  public void append(Path file, ContentWriter contentWriter) throws IOException {
+    boolean created = !Files.exists(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      long initialSize = channel.size();
+      OutputStream outputStream = new NonClosingOutputStream(Channels.newOutputStream(channel));
+      contentWriter.write(outputStream);
+      outputStream.flush();
+      metrics.recordFileWritten(file, channel.size() - initialSize);
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        channel.force(true);
+      }
+    }
+
+    switch (fsyncPolicy) {
+      case ALWAYS -> {
+        if (created) {
+          syncDirectory(file.toAbsolutePath().getParent());
+        }
+      }
+      case BATCHED -> scheduleSync(unsyncedFiles, file);
+      case NEVER -> {
+        // the operating system decides when the data is written
+      }
+    }
+  }
+
+  private void write(Path file, ContentWriter contentWriter, FsyncPolicy policy) throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    // the temp file is created in the same directory, so it can be moved atomically
+    Path tempFile = dir.resolve("." + file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_FILE_EXTENSION);
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        OutputStream outputStream = new NonClosingOutputStream(Channels.newOutputStream(channel));
+        contentWriter.write(outputStream);
+        outputStream.flush();
+        metrics.recordFileWritten(file, channel.size());
+        if (policy != FsyncPolicy.NEVER) {
+          // the data has to be on the disk before the move, otherwise the moved file could be empty after a crash (the
+          // temp files of concurrent writes are synced in parallel by the writing threads)
+          forceTempFile(channel, tempFile);
+        }
+      }
+
+      switch (policy) {
+        case ALWAYS -> commit(new PendingCommit(tempFile, file));
+        case BATCHED -> {
+          move(tempFile, file);
+          // only the rename is not yet durable
+          scheduleSync(unsyncedDirs, dir);
+        }
+        case NEVER -> move(tempFile, file);
+      }
+    }
+    finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Moves the synced temp file to the target file and syncs the directory. If other writes are waiting for a commit,
+   * one thread commits all of them, so the directory is synced only once for all of them.
+   */
+  private void commit(PendingCommit commit) throws IOException {
+    commitLock.lock();
+    try {
+      pendingCommits.add(commit);
+    }
+    finally {
+      commitLock.unlock();
+    }
+
+    while (true) {
+      List<PendingCommit> batch;
+      commitLock.lock();
+      try {
+        while (committing && !commit.done) {
+          try {
+            commitDone.await();
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the commit of " + commit.file);
+          }
+        }
+        if (commit.done) {
+          break;
+        }
+        committing = true;
+        batch = pendingCommits;
+        pendingCommits = new ArrayList<>();
+      }
+      finally {
+        commitLock.unlock();
+      }
+
+      try {
+        commitBatch(batch);
+      }
+      finally {
+        commitLock.lock();
+        try {
+          batch.forEach(pendingCommit -> pendingCommit.done = true);
+          committing = false;
+          commitDone.signalAll();
+        }
+        finally {
+          commitLock.unlock();
+        }
+      }
+    }
+
+    if (commit.error != null) {
+      throw new IOException("Failed to commit file " + commit.file, commit.error);
+    }
+  }
+
+  /**
+   * Syncs the content of a temp file before it's moved to the target file.
+   */
+  void forceTempFile(FileChannel channel, Path tempFile) throws IOException {
+    channel.force(true);
+  }
+
+  /**
+   * Moves the temp files of a group commit and syncs their directories.
+   */
+  void commitBatch(List<PendingCommit> batch) {
+    Set<Path> dirs = new LinkedHashSet<>();
+    for (PendingCommit commit : batch) {
+      try {
+        move(commit.tempFile, commit.file);
+        dirs.add(commit.file.toAbsolutePath().getParent());
+      }
+      catch (IOException e) {
+        commit.error = e;
+      }
+    }
+    dirs.forEach(AtomicFileWriter::syncDirectory);
+    if (batch.size() > 1) {
+      log.debug("Committed {} files with one directory sync", batch.size());
+    }
+  }
+
+  private static void move(Path tempFile, Path file) throws IOException {
+    try {
+      Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      log.warn("The file system does not support atomic moves - replacing file '{}' non-atomically", file);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * The number of writes, that wait for the current group commit to finish.
+   */
+  int getPendingCommitCount() {
+    commitLock.lock();
+    try {
+      return pendingCommits.size();
+    }
+    finally {
+      commitLock.unlock();
+    }
+  }
+
+  /**
+   * The directories, that contain moved files but were not yet synced (policy BATCHED).
+   */
+  synchronized Set<Path> getUnsyncedDirs() {
+    return Set.copyOf(unsyncedDirs);
+  }
+
+  private synchronized void scheduleSync(Set<Path> unsyncedPaths, Path path) {
+    unsyncedPaths.add(path);
+    if (syncExecutor == null) {
+      syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-sync");
+        thread.setDaemon(true);
+        return thread;
+      });
+      syncExecutor.scheduleWithFixedDelay(this::syncUnsyncedFiles, batchIntervalMillis, batchIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void syncUnsyncedFiles() {
+    List<Path> files;
+    Set<Path> dirs;
+    synchronized (this) {
+      if (unsyncedFiles.isEmpty() && unsyncedDirs.isEmpty()) {
+        return;
+      }
+      files = new ArrayList<>(unsyncedFiles);
+      unsyncedFiles.clear();
+      dirs = new LinkedHashSet<>(unsyncedDirs);
+      unsyncedDirs.clear();
+    }
+
+    for (Path file : files) {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.force(true);
+        dirs.add(file.toAbsolutePath().getParent());
+      }
+      catch (NoSuchFileException e) {
+        // the file was deleted in the meantime
+      }
+      catch (IOException e) {
+        log.warn("Failed to sync file '{}': {}", file, e.getMessage());
+      }
+    }
+    dirs.forEach(AtomicFileWriter::syncDirectory);
+    log.debug("Synced {} files and {} directories", files.size(), dirs.size());
+  }
+
+  private static void syncDirectory(Path dir) {
+    try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+    catch (IOException e) {
+      // directories cannot be synced on some platforms (e.g. Windows)
+      log.trace("Failed to sync directory '{}': {}", dir, e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ScheduledExecutorService executor;
+    synchronized (this) {
+      executor = syncExecutor;
+      syncExecutor = null;
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    syncUnsyncedFiles();
+  }
+
+  /**
+   * A buffered stream, that is not closed by the content writer (e.g. by Jackson), because the channel is still needed
+   * to sync the file.
+   */
+  private static class NonClosingOutputStream extends BufferedOutputStream {
+
+    private NonClosingOutputStream(OutputStream outputStream) {
+      super(outputStream, 8192);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  static class PendingCommit {
+
+    private final Path tempFile;
+    final Path file;
+    private boolean done;
+    private IOException error;
+
+    private PendingCommit(Path tempFile, Path file) {
+      this.tempFile = tempFile;
+      this.file = file;
+    }
+  }
+}
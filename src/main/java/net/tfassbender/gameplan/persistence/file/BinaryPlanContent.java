@@ -0,0 +1,13 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import net.tfassbender.gameplan.dto.PlanDto;
+
+import java.util.Map;
+
+/**
+ * The content of a binary plan file (after the header, see {@link PlanFileFormat}).
+ *
+ * @param colors the colors, that were removed from the combined resource changes of the plan (by resource name)
+ * @param plan the plan, whose combined resource changes have no colors, if their colors were removed
+ */
+public record BinaryPlanContent(Map<String, Map<String, String>> colors, PlanDto plan) {}
@@ -0,0 +1,106 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the games directory and updates the game catalog of the {@link GameFileService} when game config files are
+ * added, changed or removed.
+ */
+@ApplicationScoped
+public class GameConfigWatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(GameConfigWatcher.class);
+
+  @Inject
+  private GameFileService gameFileService;
+
+  private WatchService watchService;
+
+  public synchronized void start() throws GamePlanPersistenceException {
+    if (watchService != null) {
+      return;
+    }
+
+    Path gamesDir = gameFileService.getGamesDir();
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+      gamesDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+    catch (IOException e) {
+      stop();
+      throw new GamePlanPersistenceException("Failed to watch the games directory: " + gamesDir, e);
+    }
+
+    Thread watcherThread = new Thread(() -> watch(watchService), "game-config-watcher");
+    watcherThread.setDaemon(true);
+    watcherThread.start();
+    log.info("Watching the games directory '{}' for changes", gamesDir);
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      }
+      catch (IOException e) {
+        log.warn("Failed to close the watch service of the games directory: {}", e.getMessage());
+      }
+      watchService = null;
+    }
+  }
+
+  private void watch(WatchService watchService) {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        for (WatchEvent<?> event : key.pollEvents()) {
+          handleEvent(event);
+        }
+        if (!key.reset()) {
+          log.warn("The games directory can no longer be watched - game configs are only reloaded when the game list is requested");
+          return;
+        }
+      }
+    }
+    catch (ClosedWatchServiceException e) {
+      // the watcher was stopped
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handleEvent(WatchEvent<?> event) {
+    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+      // some events were lost, so the whole catalog has to be checked
+      try {
+        gameFileService.loadGameCatalog();
+      }
+      catch (GamePlanPersistenceException e) {
+        log.error("Failed to reload the game catalog: {}", e.getMessage(), e);
+      }
+      return;
+    }
+
+    String fileName = ((Path) event.context()).getFileName().toString();
+    if (fileName.endsWith(GameFileService.GAME_CONFIG_FILE_EXTENSION)) {
+      String gameName = fileName.substring(0, fileName.length() - GameFileService.GAME_CONFIG_FILE_EXTENSION.length());
+      gameFileService.reloadGame(gameName);
+    }
+  }
+}
@@ -1,72 +1,268 @@
 package net.tfassbender.gameplan.persistence.file;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.metrics.Measured;
+import net.tfassbender.gameplan.persistence.GameConfigChangedEvent;
 import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
 import net.tfassbender.gameplan.util.FileUtil;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
+/**
+ * Provides the game configs from the games directory.
+ * <p>
+ * The configs are held in an in-memory catalog, that is loaded on startup and kept up to date by the
+ * {@link GameConfigWatcher}, so reading a game config does not need any disk I/O. The catalog entries are immutable
+ * snapshots, that can be shared between all callers.
+ */
+@Measured
 @ApplicationScoped
 public class GameFileService implements GameService {
 
+  private static final Logger log = LoggerFactory.getLogger(GameFileService.class);
+
   public static final String GAMES_SUB_DIR = ".games";
   public static final String GAME_CONFIG_FILE_EXTENSION = ".json";
 
   @ConfigProperty(name = "game_plan.path")
   private String gamePlanPath;
 
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  @Inject
+  private Event<GameConfigChangedEvent> gameConfigChangedEvent;
+
+  private final Map<String, CatalogEntry> catalog = new ConcurrentHashMap<>();
+  private volatile FileTime catalogDirModified;
+  // serializes the scans of the games directory (not a monitor, so waiting virtual threads are not pinned)
+  private final ReentrantLock catalogLock = new ReentrantLock();
+
+  public GameFileService() {}
+
+  /**
+   * Creates the service without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  GameFileService(String gamePlanPath, PersistenceJsonMapper jsonMapper, GamePlanMetrics metrics, Event<GameConfigChangedEvent> gameConfigChangedEvent) {
+    this.gamePlanPath = gamePlanPath;
+    this.jsonMapper = jsonMapper;
+    this.metrics = metrics;
+    this.gameConfigChangedEvent = gameConfigChangedEvent;
+  }
+
   public List<String> getGameNames() throws GamePlanPersistenceException {
-    Path gamesDir = Paths.get(gamePlanPath, GAMES_SUB_DIR);
-    if (!Files.exists(gamesDir)) {
-      throw new GamePlanResourceNotFoundException("The games directory does not exist: " + gamesDir);
+    Path gamesDir = getGamesDir();
+    FileTime gamesDirModified;
+    try {
+      gamesDirModified = Files.getLastModifiedTime(gamesDir);
     }
-
-    try (Stream<Path> files = Files.list(gamesDir)) {
-      return files.filter(Files::isRegularFile) //
-              .filter(path -> path.toString().endsWith(GAME_CONFIG_FILE_EXTENSION)) //
-              .map(path -> path.getFileName().toString()) //
-              .map(fileName -> fileName.substring(0, fileName.length() - GAME_CONFIG_FILE_EXTENSION.length())) // Remove file extension
-              .toList();
+    catch (NoSuchFileException e) {
+      throw new GamePlanResourceNotFoundException("The games directory does not exist: " + gamesDir, e);
     }
     catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to list game files in directory: " + gamesDir, e);
+      throw new GamePlanPersistenceException("Failed to read the games directory: " + gamesDir, e);
     }
+
+    // config files that were added or removed since the last scan are also found if the watcher did not yet notice them
+    if (!gamesDirModified.equals(catalogDirModified)) {
+      loadGameCatalog();
+    }
+
+    return catalog.keySet().stream().sorted().toList();
   }
 
   public GameDto getGame(String gameName) throws GamePlanPersistenceException {
+    return getCatalogEntry(gameName).game();
+  }
+
+  public ResourceVersion getGameVersion(String gameName) throws GamePlanPersistenceException {
+    return getCatalogEntry(gameName).version();
+  }
+
+  /**
+   * The game config, if it's already loaded into the catalog (without accessing the disk). The catalog is kept up to
+   * date by the {@link GameConfigWatcher}.
+   */
+  public Optional<GameDto> findLoadedGame(String gameName) {
+    return Optional.ofNullable(catalog.get(gameName)).map(CatalogEntry::game);
+  }
+
+  /**
+   * (Re-)loads all game configs from the games directory. Configs that did not change since they were loaded are not
+   * parsed again.
+   */
+  public void loadGameCatalog() throws GamePlanPersistenceException {
+    catalogLock.lock();
+    try {
+      Path gamesDir = getGamesDir();
+      if (!Files.exists(gamesDir)) {
+        throw new GamePlanResourceNotFoundException("The games directory does not exist: " + gamesDir);
+      }
+
+      try {
+        FileTime gamesDirModified = Files.getLastModifiedTime(gamesDir);
+        List<String> gameNames;
+        try (Stream<Path> files = Files.list(gamesDir)) {
+          gameNames = files.filter(Files::isRegularFile) //
+                  .filter(path -> path.toString().endsWith(GAME_CONFIG_FILE_EXTENSION)) //
+                  .map(path -> path.getFileName().toString()) //
+                  .map(fileName -> fileName.substring(0, fileName.length() - GAME_CONFIG_FILE_EXTENSION.length())) // Remove file extension
+                  .toList();
+        }
+
+        for (String gameName : gameNames) {
+          CatalogEntry entry = catalog.get(gameName);
+          if (entry == null || !entry.modified().equals(getLastModifiedTime(gameName))) {
+            reloadGame(gameName);
+          }
+        }
+        catalog.keySet().retainAll(gameNames);
+        catalogDirModified = gamesDirModified;
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to list game files in directory: " + gamesDir, e);
+      }
+    }
+    finally {
+      catalogLock.unlock();
+    }
+  }
+
+  /**
+   * Reloads a single game config after the config file was added or changed, or removes it from the catalog if the
+   * file was deleted. If the file cannot be parsed (e.g. because it is just being written), the last loaded config is
+   * kept.
+   * <p>
+   * If a loaded config was changed, a {@link GameConfigChangedEvent} is fired asynchronously.
+   */
+  public void reloadGame(String gameName) {
+    try {
+      CatalogEntry entry = loadCatalogEntry(gameName);
+      if (entry == null) {
+        log.info("Removing game config '{}' from the game catalog", gameName);
+        catalog.remove(gameName);
+      }
+      else {
+        log.info("Loading game config '{}' into the game catalog", gameName);
+        CatalogEntry previous = catalog.put(gameName, entry);
+        // the watcher reports several events for one write, so the event is only fired if the file really changed
+        if (previous != null && !previous.version().equals(entry.version())) {
+          gameConfigChangedEvent.fireAsync(new GameConfigChangedEvent(gameName));
+        }
+      }
+    }
+    catch (GamePlanPersistenceException e) {
+      log.warn("Failed to reload game config '{}' - keeping the last loaded config: {}", gameName, e.getMessage());
+    }
+  }
+
+  private CatalogEntry getCatalogEntry(String gameName) throws GamePlanPersistenceException {
     FileUtil.checkResourceNameValid(gameName);
 
-    Path gameFilePath = Paths.get(gamePlanPath, GAMES_SUB_DIR, gameName + GAME_CONFIG_FILE_EXTENSION);
-    if (!Files.exists(gameFilePath)) {
+    CatalogEntry entry = catalog.get(gameName);
+    if (entry != null) {
+      return entry;
+    }
+
+    // the config might have been added right now, so the watcher did not yet update the catalog
+    entry = loadCatalogEntry(gameName);
+    if (entry == null) {
       throw new GamePlanResourceNotFoundException("A config for a game with the name '" + gameName + "' does not exist.");
     }
+    catalog.put(gameName, entry);
+    return entry;
+  }
+
+  Path getGamesDir() {
+    return Paths.get(gamePlanPath, GAMES_SUB_DIR);
+  }
+
+  private CatalogEntry loadCatalogEntry(String gameName) throws GamePlanPersistenceException {
+    Path gameFilePath = getGamesDir().resolve(gameName + GAME_CONFIG_FILE_EXTENSION);
+    if (!Files.exists(gameFilePath)) {
+      return null;
+    }
 
     try {
-      String content = Files.readString(gameFilePath);
-      return parseGameConfig(gameName, content);
+      BasicFileAttributes attributes = Files.readAttributes(gameFilePath, BasicFileAttributes.class);
+      GameDto game = jsonMapper.readGame(gameFilePath);
+      metrics.recordFileRead(gameFilePath, attributes.size());
+      return new CatalogEntry(createImmutableSnapshot(game), attributes.lastModifiedTime(), attributes.size());
+    }
+    catch (NoSuchFileException e) {
+      return null;
     }
     catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to read game config file: " + gameName + GAME_CONFIG_FILE_EXTENSION, e);
+      throw new GamePlanPersistenceException("Failed to parse game config for: " + gameName, e);
     }
   }
 
-  private GameDto parseGameConfig(String gameName, String content) throws GamePlanPersistenceException {
+  private FileTime getLastModifiedTime(String gameName) {
     try {
-      ObjectMapper mapper = new ObjectMapper();
-      return mapper.readValue(content, GameDto.class);
+      return Files.getLastModifiedTime(getGamesDir().resolve(gameName + GAME_CONFIG_FILE_EXTENSION));
     }
     catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to parse game config for: " + gameName, e);
+      // the file was deleted in the meantime
+      return null;
+    }
+  }
+
+  private static GameDto createImmutableSnapshot(GameDto game) {
+    GameDto snapshot = new GameDto();
+    snapshot.name = game.name;
+    snapshot.description = game.description;
+    snapshot.resourceOrder = game.resourceOrder == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(game.resourceOrder));
+    snapshot.resources = game.resources == null ? Map.of() : Collections.unmodifiableMap(new HashMap<>(game.resources));
+
+    PlanStageDto defaultStartingResources = new PlanStageDto();
+    if (game.defaultStartingResources != null) {
+      defaultStartingResources.description = game.defaultStartingResources.description;
+      if (game.defaultStartingResources.resourceChanges != null) {
+        defaultStartingResources.resourceChanges.putAll(game.defaultStartingResources.resourceChanges);
+      }
+    }
+    defaultStartingResources.resourceChanges = Collections.unmodifiableMap(defaultStartingResources.resourceChanges);
+    snapshot.defaultStartingResources = defaultStartingResources;
+
+    return snapshot;
+  }
+
+  private record CatalogEntry(GameDto game, FileTime modified, long size) {
+
+    private ResourceVersion version() {
+      String tag = Long.toHexString(modified.to(TimeUnit.NANOSECONDS)) + "-" + Long.toHexString(size);
+      return new ResourceVersion(tag, modified.toInstant());
     }
   }
-}
\ No newline at end of file
+}
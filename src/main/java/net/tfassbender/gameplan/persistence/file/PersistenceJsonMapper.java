@@ -0,0 +1,126 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads and writes the JSON files of the persistence layer.
+ * <p>
+ * The readers and writers are created once from the object mapper that is managed by Quarkus, so the (de-)serializers
+ * and the subtypes of the polymorphic resource change values are resolved only once and not on every request.
+ * <p>
+ * Plans can additionally be written in the binary Smile format (see {@link PlanFileFormat}), using a copy of the same
+ * object mapper. Repeated property names and string values (like the types of the resource changes) are written only
+ * once per file in this format.
+ */
+@ApplicationScoped
+public class PersistenceJsonMapper {
+
+  private final ObjectReader planReader;
+  private final ObjectWriter planWriter;
+  private final ObjectReader binaryPlanReader;
+  private final ObjectWriter binaryPlanWriter;
+  private final ObjectReader binaryPlanContentReader;
+  private final ObjectWriter binaryPlanContentWriter;
+  private final ObjectReader gameReader;
+  private final ObjectWriter gameWriter;
+  private final ObjectReader planIndexReader;
+  private final ObjectWriter planIndexWriter;
+  private final ObjectReader planLogEntryReader;
+  private final ObjectWriter planLogEntryWriter;
+
+  @Inject
+  public PersistenceJsonMapper(ObjectMapper objectMapper) {
+    planReader = objectMapper.readerFor(PlanDto.class);
+    planWriter = objectMapper.writerFor(PlanDto.class);
+    ObjectMapper binaryMapper = objectMapper.copyWith(SmileFactory.builder() //
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES) //
+            .build());
+    binaryPlanReader = binaryMapper.readerFor(PlanDto.class);
+    binaryPlanWriter = binaryMapper.writerFor(PlanDto.class);
+    binaryPlanContentReader = binaryMapper.readerFor(BinaryPlanContent.class);
+    binaryPlanContentWriter = binaryMapper.writerFor(BinaryPlanContent.class);
+    gameReader = objectMapper.readerFor(GameDto.class);
+    gameWriter = objectMapper.writerFor(GameDto.class);
+    planIndexReader = objectMapper.readerForListOf(PlanIndexFileEntry.class);
+    planIndexWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, PlanIndexFileEntry.class));
+    planLogEntryReader = objectMapper.readerFor(PlanLogEntry.class);
+    planLogEntryWriter = objectMapper.writerFor(PlanLogEntry.class);
+  }
+
+  public PlanDto readPlan(Path planFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(planFile)) {
+      return planReader.readValue(inputStream);
+    }
+  }
+
+  public PlanDto readPlan(InputStream inputStream) throws IOException {
+    return planReader.readValue(inputStream);
+  }
+
+  public void writePlan(OutputStream outputStream, PlanDto plan) throws IOException {
+    planWriter.writeValue(outputStream, plan);
+  }
+
+  public byte[] writePlanAsBytes(PlanDto plan) throws IOException {
+    return planWriter.writeValueAsBytes(plan);
+  }
+
+  public PlanDto readBinaryPlan(InputStream inputStream) throws IOException {
+    return binaryPlanReader.readValue(inputStream);
+  }
+
+  public void writeBinaryPlan(OutputStream outputStream, PlanDto plan) throws IOException {
+    binaryPlanWriter.writeValue(outputStream, plan);
+  }
+
+  public BinaryPlanContent readBinaryPlanContent(InputStream inputStream) throws IOException {
+    return binaryPlanContentReader.readValue(inputStream);
+  }
+
+  public void writeBinaryPlanContent(OutputStream outputStream, BinaryPlanContent content) throws IOException {
+    binaryPlanContentWriter.writeValue(outputStream, content);
+  }
+
+  public GameDto readGame(Path gameFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(gameFile)) {
+      return gameReader.readValue(inputStream);
+    }
+  }
+
+  public List<PlanIndexFileEntry> readPlanIndex(Path planIndexFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(planIndexFile)) {
+      return planIndexReader.readValue(inputStream);
+    }
+  }
+
+  public void writePlanIndex(OutputStream outputStream, List<PlanIndexFileEntry> entries) throws IOException {
+    planIndexWriter.writeValue(outputStream, entries);
+  }
+
+  public PlanLogEntry readPlanLogEntry(String line) throws IOException {
+    return planLogEntryReader.readValue(line);
+  }
+
+  public byte[] writePlanLogEntryAsBytes(PlanLogEntry entry) throws IOException {
+    return planLogEntryWriter.writeValueAsBytes(entry);
+  }
+
+  public byte[] writeGameAsBytes(GameDto game) throws IOException {
+    return gameWriter.writeValueAsBytes(game);
+  }
+}
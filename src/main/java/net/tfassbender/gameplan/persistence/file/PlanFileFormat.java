@@ -0,0 +1,303 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.resource.OneTimeCombinedResourceChange;
+import net.tfassbender.gameplan.dto.resource.SimpleCombinedResourceChange;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.util.CompressionUtil;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The format of the plan files, that is configured with {@code game_plan.plan_format}:
+ * <ul>
+ *   <li>{@code json} (default): the plans are written as JSON</li>
+ *   <li>{@code binary}: the plans are written in the binary Smile format (see {@link PersistenceJsonMapper}), with a
+ *   header that contains the version of the schema</li>
+ * </ul>
+ * Additionally the files can be compressed with gzip ({@code game_plan.plan_compression.type}, with the level
+ * {@code game_plan.plan_compression.level} from 1 = fastest to 9 = smallest).
+ * <p>
+ * The format and the compression of a file are detected when it's read, so all plan files can be read, independent of
+ * the configuration (e.g. the JSON files that were written before the format was changed). A file is converted to the
+ * configured format when the plan is saved the next time.
+ * <p>
+ * In the binary format the colors of the combined resources are stored only once per file, if they are the same as the
+ * colors of the default starting resources of the game (which is the case for nearly all stages, because the colors are
+ * copied to every new stage). The removed colors are stored in the file (see {@link BinaryPlanContent}), so the plan is
+ * read with the same colors, even if the colors of the game were changed in the meantime. Files of the first version
+ * of the binary format don't contain the removed colors, so they are taken from the game config.
+ */
+@ApplicationScoped
+public class PlanFileFormat {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanFileFormat.class);
+
+  public enum Format {
+    JSON, BINARY
+  }
+
+  public enum Compression {
+    NONE, GZIP
+  }
+
+  /**
+   * The first bytes of a binary plan file (followed by one byte that contains the {@link #BINARY_SCHEMA_VERSION}). A
+   * JSON file cannot start with these bytes.
+   */
+  static final byte[] BINARY_MAGIC = {'G', 'P', 'L', 'N'};
+  static final int BINARY_SCHEMA_VERSION = 2;
+  // the removed colors are not stored in the files of the first version of the binary format
+  private static final int BINARY_SCHEMA_VERSION_WITHOUT_COLORS = 1;
+  private static final int BINARY_HEADER_LENGTH = BINARY_MAGIC.length + 1;
+  private static final int GZIP_MAGIC_LENGTH = 2;
+
+  @ConfigProperty(name = "game_plan.plan_format", defaultValue = "json")
+  private Format format;
+
+  @ConfigProperty(name = "game_plan.plan_compression.type", defaultValue = "none")
+  private Compression compression;
+
+  @ConfigProperty(name = "game_plan.plan_compression.level", defaultValue = "6")
+  private int compressionLevel;
+
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  @Inject
+  private GameFileService gameFileService;
+
+  public PlanFileFormat() {}
+
+  /**
+   * Creates the plan file format without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  PlanFileFormat(Format format, Compression compression, int compressionLevel, PersistenceJsonMapper jsonMapper, GameFileService gameFileService) {
+    this.format = format;
+    this.compression = compression;
+    this.compressionLevel = compressionLevel;
+    this.jsonMapper = jsonMapper;
+    this.gameFileService = gameFileService;
+  }
+
+  public Format getFormat() {
+    return format;
+  }
+
+  /**
+   * Writes the plan in the configured format (and compression). The plan itself is not changed.
+   */
+  public void writePlan(OutputStream outputStream, PlanDto plan) throws IOException {
+    if (compression == Compression.NONE) {
+      writeUncompressedPlan(outputStream, plan);
+      return;
+    }
+
+    try (GZIPOutputStream gzipOutputStream = CompressionUtil.gzip(outputStream, compressionLevel)) {
+      writeUncompressedPlan(gzipOutputStream, plan);
+    }
+  }
+
+  private void writeUncompressedPlan(OutputStream outputStream, PlanDto plan) throws IOException {
+    if (format == Format.JSON) {
+      jsonMapper.writePlan(outputStream, plan);
+      return;
+    }
+
+    outputStream.write(BINARY_MAGIC);
+    outputStream.write(BINARY_SCHEMA_VERSION);
+    jsonMapper.writeBinaryPlanContent(outputStream, withoutGameColors(plan));
+  }
+
+  /**
+   * Reads a plan file in any of the supported formats.
+   */
+  public PlanDto readPlan(Path planFile) throws IOException {
+    try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(planFile))) {
+      if (CompressionUtil.isGzip(peek(inputStream, GZIP_MAGIC_LENGTH))) {
+        return readUncompressedPlan(new BufferedInputStream(new GZIPInputStream(inputStream)));
+      }
+      return readUncompressedPlan(inputStream);
+    }
+  }
+
+  private PlanDto readUncompressedPlan(InputStream inputStream) throws IOException {
+    byte[] header = peek(inputStream, BINARY_HEADER_LENGTH);
+    if (!isBinary(header)) {
+      return jsonMapper.readPlan(inputStream);
+    }
+
+    inputStream.skipNBytes(BINARY_HEADER_LENGTH);
+    int schemaVersion = header[BINARY_MAGIC.length];
+    if (schemaVersion == BINARY_SCHEMA_VERSION) {
+      BinaryPlanContent content = jsonMapper.readBinaryPlanContent(inputStream);
+      restoreColors(content.plan(), content.colors() != null ? content.colors() : Map.of());
+      return content.plan();
+    }
+    if (schemaVersion == BINARY_SCHEMA_VERSION_WITHOUT_COLORS) {
+      PlanDto plan = jsonMapper.readBinaryPlan(inputStream);
+      restoreColors(plan, getGameColors(plan.gameName));
+      return plan;
+    }
+    throw new IOException("Unsupported version of the binary plan format: " + schemaVersion);
+  }
+
+  /**
+   * Checks whether a plan file is stored as uncompressed JSON (by reading the header of the file).
+   */
+  public static boolean isJson(Path planFile) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(planFile)) {
+      return isJson(inputStream.readNBytes(BINARY_MAGIC.length));
+    }
+  }
+
+  /**
+   * Checks whether the content of a plan file (or at least its first bytes) is stored as uncompressed JSON.
+   */
+  public static boolean isJson(byte[] content) {
+    return !CompressionUtil.isGzip(content) && !isBinary(content);
+  }
+
+  private static boolean isBinary(byte[] content) {
+    return content.length >= BINARY_MAGIC.length && Arrays.equals(content, 0, BINARY_MAGIC.length, BINARY_MAGIC, 0, BINARY_MAGIC.length);
+  }
+
+  /**
+   * Reads the first bytes of a stream (that supports marks), without consuming them.
+   */
+  private static byte[] peek(InputStream inputStream, int length) throws IOException {
+    inputStream.mark(length);
+    byte[] bytes = inputStream.readNBytes(length);
+    inputStream.reset();
+    return bytes;
+  }
+
+  /**
+   * Creates a copy of the plan, that does not contain the colors that are equal to the colors of the game. The colors of
+   * a resource are only removed, if the plan has no combined changes of the resource without colors (so a removed color
+   * can always be told apart from a missing one).
+   */
+  private BinaryPlanContent withoutGameColors(PlanDto plan) {
+    Map<String, Map<String, String>> gameColors = new HashMap<>(getGameColors(plan.gameName));
+    if (plan.stages == null) {
+      return new BinaryPlanContent(Map.of(), plan);
+    }
+    for (PlanStageDto stage : plan.stages) {
+      if (stage != null && stage.resourceChanges != null) {
+        stage.resourceChanges.forEach((resource, change) -> {
+          if (change instanceof SimpleCombinedResourceChange combined && combined.colors() == null || change instanceof OneTimeCombinedResourceChange oneTime && oneTime.colors() == null) {
+            gameColors.remove(resource);
+          }
+        });
+      }
+    }
+    if (gameColors.isEmpty()) {
+      return new BinaryPlanContent(Map.of(), plan);
+    }
+
+    Map<String, Map<String, String>> removedColors = new HashMap<>();
+    PlanDto copy = plan.copy();
+    for (PlanStageDto stage : copy.stages) {
+      if (stage == null || stage.resourceChanges == null) {
+        continue;
+      }
+      stage.resourceChanges.replaceAll((resource, change) -> {
+        Map<String, String> colors = gameColors.get(resource);
+        if (colors == null) {
+          return change;
+        }
+        if (change instanceof SimpleCombinedResourceChange combined && colors.equals(combined.colors())) {
+          removedColors.put(resource, colors);
+          return new SimpleCombinedResourceChange(combined.resources(), null);
+        }
+        if (change instanceof OneTimeCombinedResourceChange oneTime && colors.equals(oneTime.colors())) {
+          removedColors.put(resource, colors);
+          return new OneTimeCombinedResourceChange(oneTime.resources(), null);
+        }
+        return change;
+      });
+    }
+    return new BinaryPlanContent(removedColors, copy);
+  }
+
+  /**
+   * Sets the removed colors for all combined resource changes of the plan, that have no colors.
+   *
+   * @param removedColors the colors, that were removed from the plan (by resource name)
+   */
+  private static void restoreColors(PlanDto plan, Map<String, Map<String, String>> removedColors) {
+    if (removedColors.isEmpty() || plan.stages == null) {
+      return;
+    }
+
+    for (PlanStageDto stage : plan.stages) {
+      if (stage == null || stage.resourceChanges == null) {
+        continue;
+      }
+      stage.resourceChanges.replaceAll((resource, change) -> {
+        Map<String, String> colors = removedColors.get(resource);
+        if (colors == null) {
+          return change;
+        }
+        if (change instanceof SimpleCombinedResourceChange combined && combined.colors() == null) {
+          return new SimpleCombinedResourceChange(combined.resources(), new HashMap<>(colors));
+        }
+        if (change instanceof OneTimeCombinedResourceChange oneTime && oneTime.colors() == null) {
+          return new OneTimeCombinedResourceChange(oneTime.resources(), new HashMap<>(colors));
+        }
+        return change;
+      });
+    }
+  }
+
+  /**
+   * The colors of the combined resources of the default starting resources of a game (by resource name).
+   */
+  private Map<String, Map<String, String>> getGameColors(String gameName) {
+    if (gameName == null) {
+      return Map.of();
+    }
+    GameDto game;
+    try {
+      game = gameFileService.getGame(gameName);
+    }
+    catch (GamePlanPersistenceException e) {
+      // the plan is stored with all colors, if the game is unknown
+      log.debug("Cannot load the colors of game '{}': {}", gameName, e.getMessage());
+      return Map.of();
+    }
+    if (game.defaultStartingResources == null || game.defaultStartingResources.resourceChanges == null) {
+      return Map.of();
+    }
+
+    Map<String, Map<String, String>> gameColors = new HashMap<>();
+    for (Map.Entry<String, ResourceChangeValue> entry : game.defaultStartingResources.resourceChanges.entrySet()) {
+      if (entry.getValue() instanceof SimpleCombinedResourceChange combined && combined.colors() != null) {
+        gameColors.put(entry.getKey(), combined.colors());
+      }
+      else if (entry.getValue() instanceof OneTimeCombinedResourceChange oneTime && oneTime.colors() != null) {
+        gameColors.put(entry.getKey(), oneTime.colors());
+      }
+    }
+    return gameColors;
+  }
+}
@@ -0,0 +1,690 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics.Cache;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics.CacheResult;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
+import net.tfassbender.gameplan.persistence.StoredPlanFile;
+import net.tfassbender.gameplan.persistence.VersionedPlan;
+import net.tfassbender.gameplan.util.FileUtil;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the plan files of each user, that maps the plan names to the files they are stored in.
+ * <p>
+ * The index of a user is built lazily on the first access and kept in sync by the write operations of the
+ * {@link PlanFileService}. Changes that are made to the files directly (e.g. by deleting or copying plan files by hand)
+ * are detected by comparing the modification times of the user directory and the plan files, so only files that were
+ * added or changed are parsed again.
+ * <p>
+ * The summaries of the plans are additionally stored in an index file per user (in the {@link #INDEX_SUB_DIR}), so the
+ * plans can be listed after a restart without parsing all plan files. Entries of the index file that do not match the
+ * modification time and size of their plan file are ignored, so the index file is rebuilt if it's missing or stale.
+ * <p>
+ * If a plan has a {@link PlanLog}, the log is part of the stored plan: its operations are applied when the plan is
+ * loaded and a change of the log (like a change of the plan file) changes the version of the plan.
+ * <p>
+ * The plans that were read or written most recently are cached (up to {@code game_plan.plan_index.cache_size} plans).
+ * A cached plan is only used while its version matches the version of the plan file in the index. A plan that is not
+ * cached is read without holding the lock of the index, so the other reads of the user don't have to wait for it.
+ */
+@ApplicationScoped
+public class PlanFileIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanFileIndex.class);
+
+  public static final String PLAN_FILE_EXTENSION = ".json";
+  public static final String INDEX_SUB_DIR = ".index";
+  public static final String INDEX_FILE_EXTENSION = ".json";
+
+  /**
+   * A plan as it is known to the index (see {@link #findIndexedPlan(String, String)}).
+   *
+   * @param modifiedMillis the modification time of the plan file (in milliseconds)
+   * @param hasLog whether the plan has a {@link PlanLog}
+   * @param plan a copy of the cached plan, or {@code null} if the plan is not cached
+   */
+  public record IndexedPlan(Path file, long modifiedMillis, long size, boolean hasLog, PlanDto plan, ResourceVersion version) {}
+
+  @ConfigProperty(name = "game_plan.path")
+  private String gamePlanPath;
+
+  private static final int MAX_UNLOCKED_READS = 3;
+
+  @ConfigProperty(name = "game_plan.plan_index.cache_plans", defaultValue = "true")
+  private boolean cachePlans;
+
+  @ConfigProperty(name = "game_plan.plan_index.cache_size", defaultValue = "500")
+  private int cacheSize;
+
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  @Inject
+  private PlanFileFormat planFileFormat;
+
+  @Inject
+  private AtomicFileWriter atomicFileWriter;
+
+  @Inject
+  private PlanLog planLog;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  private final Map<String, UserPlanIndex> userIndexes = new ConcurrentHashMap<>();
+
+  // the cached plans by their plan files (in LRU order)
+  private final Map<Path, CachedPlan> cachedPlans = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, CachedPlan> eldest) {
+      return size() > cacheSize;
+    }
+  });
+
+  public PlanFileIndex() {}
+
+  /**
+   * Creates the plan index without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  PlanFileIndex(String gamePlanPath, boolean cachePlans, int cacheSize, PersistenceJsonMapper jsonMapper, PlanFileFormat planFileFormat, AtomicFileWriter atomicFileWriter,
+                PlanLog planLog, GamePlanMetrics metrics) {
+    this.gamePlanPath = gamePlanPath;
+    this.cachePlans = cachePlans;
+    this.cacheSize = cacheSize;
+    this.jsonMapper = jsonMapper;
+    this.planFileFormat = planFileFormat;
+    this.atomicFileWriter = atomicFileWriter;
+    this.planLog = planLog;
+    this.metrics = metrics;
+  }
+
+  public List<String> getPlanNames(String username) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      index.ensureUpToDate();
+      return index.getEntriesInFileOrder().stream().map(IndexEntry::planName).distinct().toList();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  public List<PlanSummaryDto> getPlanSummaries(String username) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      index.ensureUpToDate();
+      return index.byName.values().stream().map(IndexEntry::summary).toList();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  public PlanDto getPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getVersionedPlan(username, planName).plan();
+  }
+
+  public VersionedPlan getVersionedPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getVersionedPlan(username, planName, true);
+  }
+
+  /**
+   * Gets the plan without copying it (unlike {@link #getVersionedPlan(String, String)}), so the stages of the plan can
+   * be shared with a clone (see {@link #planCloned(String, Path, PlanDto)}). The returned plan must not be modified.
+   */
+  public PlanDto getSharedPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getVersionedPlan(username, planName, false).plan();
+  }
+
+  /**
+   * Gets the plan from the cache, or reads the plan file without holding the lock of the index. The read plan is only
+   * used (and cached), if the plan was not changed while it was read. If it was changed during every read, it's read
+   * while holding the lock.
+   *
+   * @param copy whether a copy of the cached plan is returned (if {@code false}, the returned plan must not be modified)
+   */
+  private VersionedPlan getVersionedPlan(String username, String planName, boolean copy) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    for (int attempt = 0; ; attempt++) {
+      IndexEntry entry;
+      index.lock.lock();
+      try {
+        entry = index.findEntry(planName);
+        PlanDto cachedPlan = getCachedPlan(entry);
+        if (cachedPlan != null) {
+          metrics.recordCacheRequest(Cache.PLANS, CacheResult.HIT);
+          return new VersionedPlan(copy ? cachedPlan.copy() : cachedPlan, entry.version());
+        }
+        if (attempt == 0) {
+          metrics.recordCacheRequest(Cache.PLANS, CacheResult.MISS);
+        }
+        if (attempt == MAX_UNLOCKED_READS) {
+          return cachePlan(entry, loadPlanFile(entry.file(), entry.size()), copy);
+        }
+      }
+      finally {
+        index.lock.unlock();
+      }
+
+      PlanDto plan = loadPlanFile(entry.file(), entry.size());
+
+      index.lock.lock();
+      try {
+        // the modification timestamp of the plan is changed by every save, so it detects changes of files that have the
+        // same modification time and size
+        IndexEntry currentEntry = index.findEntry(planName);
+        if (currentEntry.version().equals(entry.version()) && Objects.equals(plan.lastModified, currentEntry.summary().lastModified)) {
+          return cachePlan(currentEntry, plan, copy);
+        }
+      }
+      finally {
+        index.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Reads the plan from the plan file without caching it, so reading many plans (like the migration) does not evict the
+   * cached plans. A cached plan is still used.
+   */
+  public PlanDto getUncachedPlan(String username, String planName) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    IndexEntry entry;
+    index.lock.lock();
+    try {
+      entry = index.findEntry(planName);
+      PlanDto cachedPlan = getCachedPlan(entry);
+      if (cachedPlan != null) {
+        metrics.recordCacheRequest(Cache.PLANS, CacheResult.HIT);
+        return cachedPlan.copy();
+      }
+    }
+    finally {
+      index.lock.unlock();
+    }
+    return loadPlanFile(entry.file(), entry.size());
+  }
+
+  /**
+   * Finds a plan in the index without accessing the disk, so it can be called on an event loop thread. The plan is
+   * only found if the index of the user was already loaded and is not locked by another thread (that might be reading
+   * the files). The caller has to check that the plan file was not changed since it was indexed.
+   */
+  public Optional<IndexedPlan> findIndexedPlan(String username, String planName) {
+    UserPlanIndex index = userIndexes.get(username);
+    if (index == null || !index.lock.tryLock()) {
+      return Optional.empty();
+    }
+    try {
+      IndexEntry entry = index.byName.get(planName);
+      if (entry == null) {
+        return Optional.empty();
+      }
+      PlanDto cachedPlan = getCachedPlan(entry);
+      PlanDto plan = cachedPlan != null ? cachedPlan.copy() : null;
+      return Optional.of(new IndexedPlan(entry.file(), entry.modified().toMillis(), entry.size(), entry.logState().exists(), plan, entry.version()));
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  /**
+   * The opened plan file, if the plan has no {@link PlanLog} (the operations of the log have to be applied to the plan,
+   * so it cannot be sent directly from the file) and is stored as uncompressed JSON (see {@link PlanFileFormat}).
+   * <p>
+   * The file is opened while holding the lock and is only returned, if it's still the indexed file after it was opened,
+   * so the content of the opened file always matches the version of the entry.
+   */
+  public Optional<StoredPlanFile> findPlanFile(String username, String planName) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      IndexEntry entry = index.findEntry(planName);
+      if (entry.logState().exists()) {
+        return Optional.empty();
+      }
+
+      FileChannel channel = FileChannel.open(entry.file(), StandardOpenOption.READ);
+      try {
+        ByteBuffer header = ByteBuffer.allocate(PlanFileFormat.BINARY_MAGIC.length);
+        channel.read(header, 0);
+        // the file might have been replaced after the entry was checked (then the plan is loaded instead)
+        if (!PlanFileFormat.isJson(Arrays.copyOf(header.array(), header.position())) || channel.size() != entry.size() || !index.isCurrent(entry)) {
+          channel.close();
+          return Optional.empty();
+        }
+        return Optional.of(new StoredPlanFile(channel, entry.version(), entry.summary().stageCount));
+      }
+      catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+    catch (NoSuchFileException e) {
+      throw new GamePlanResourceNotFoundException("A plan with the name '" + planName + "' does not exist.", e);
+    }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to read plan file of plan: " + planName, e);
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  public ResourceVersion getPlanVersion(String username, String planName) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      return index.findEntry(planName).version();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  public Path getPlanFile(String username, String planName) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      return index.findEntry(planName).file();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  /**
+   * Updates the index after a plan file was created or overwritten.
+   *
+   * @return the new version of the plan
+   */
+  public ResourceVersion planWritten(String username, Path planFile, PlanDto plan) throws GamePlanPersistenceException {
+    return planWritten(username, planFile, plan, null, true, true);
+  }
+
+  /**
+   * Updates the index after a plan file was created or overwritten, without caching the plan (see
+   * {@link #getUncachedPlan(String, String)}).
+   *
+   * @return the new version of the plan
+   */
+  public ResourceVersion planWrittenUncached(String username, Path planFile, PlanDto plan) throws GamePlanPersistenceException {
+    return planWritten(username, planFile, plan, null, false, false);
+  }
+
+  /**
+   * Updates the index after the clone of a plan was written. The clone is cached without copying it, so it shares its
+   * stages with the cached original plan (see {@link #getSharedPlan(String, String)}). This is safe, because the cached
+   * plans are never modified (only copies of them are returned), but replaced when a plan is saved.
+   */
+  public ResourceVersion planCloned(String username, Path planFile, PlanDto clonedPlan) throws GamePlanPersistenceException {
+    return planWritten(username, planFile, clonedPlan, null, true, false);
+  }
+
+  /**
+   * Updates the index after the plan log of a plan was written to a new plan file. The content of the plan was not
+   * changed, so the version of the plan is kept.
+   */
+  public void planCompacted(String username, Path planFile, PlanDto plan, ResourceVersion version) throws GamePlanPersistenceException {
+    planWritten(username, planFile, plan, version, true, true);
+  }
+
+  private ResourceVersion planWritten(String username, Path planFile, PlanDto plan, ResourceVersion version, boolean cache, boolean copyPlan) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      index.ensureUpToDate();
+      IndexEntry entry = index.put(planFile, plan, version);
+      if (cache) {
+        cachePlan(entry, plan, copyPlan);
+      }
+      else {
+        cachedPlans.remove(planFile);
+      }
+      metrics.recordPlanWritten(entry.size(), plan.stages != null ? plan.stages.size() : 0);
+      // the directory was changed by the write itself - there is no need to scan it again on the next access
+      index.dirModified = getLastModifiedTime(index.userDir);
+      index.writeIndexFile();
+      return entry.version();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  /**
+   * Updates the index after a plan file was deleted.
+   */
+  public void planDeleted(String username, String planName) throws GamePlanPersistenceException {
+    UserPlanIndex index = getUserIndex(username);
+    index.lock.lock();
+    try {
+      IndexEntry entry = index.remove(planName);
+      if (entry != null) {
+        cachedPlans.remove(entry.file());
+      }
+      index.dirModified = getLastModifiedTime(index.userDir);
+      index.writeIndexFile();
+    }
+    finally {
+      index.lock.unlock();
+    }
+  }
+
+  private UserPlanIndex getUserIndex(String username) throws GamePlanResourceNotFoundException {
+    Path userDir = Paths.get(gamePlanPath, UserFileService.USERS_SUB_DIR, username);
+    if (!Files.exists(userDir) || !Files.isDirectory(userDir)) {
+      userIndexes.remove(username);
+      throw new GamePlanResourceNotFoundException("User directory does not exist for user '" + username + "'.");
+    }
+    return userIndexes.computeIfAbsent(username, name -> new UserPlanIndex(name, userDir));
+  }
+
+  private PlanDto getCachedPlan(IndexEntry entry) {
+    CachedPlan cachedPlan = cachedPlans.get(entry.file());
+    return cachedPlan != null && cachedPlan.version().equals(entry.version()) ? cachedPlan.plan() : null;
+  }
+
+  /**
+   * Caches the plan, that was read from the plan file of the entry.
+   *
+   * @param copy whether a copy of the plan is cached (if {@code false}, the plan is shared with the caller)
+   */
+  private VersionedPlan cachePlan(IndexEntry entry, PlanDto plan, boolean copy) {
+    if (cachePlans) {
+      cachedPlans.put(entry.file(), new CachedPlan(entry.version(), copy ? plan.copy() : plan));
+    }
+    return new VersionedPlan(plan, entry.version());
+  }
+
+  private PlanDto loadPlanFile(Path planFilePath, long fileSize) throws GamePlanPersistenceException {
+    try {
+      long start = System.nanoTime();
+      PlanDto plan = planFileFormat.readPlan(planFilePath);
+      planLog.replay(planFilePath, plan);
+      metrics.recordPlanRead(fileSize, plan.stages != null ? plan.stages.size() : 0, System.nanoTime() - start);
+      return plan;
+    }
+    catch (NoSuchFileException e) {
+      throw new GamePlanResourceNotFoundException("A plan with the file name '" + planFilePath.getFileName() + "' does not exist.", e);
+    }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to read plan file: " + planFilePath.getFileName(), e);
+    }
+  }
+
+  private static FileTime getLastModifiedTime(Path path) throws GamePlanPersistenceException {
+    try {
+      return Files.getLastModifiedTime(path);
+    }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to read the modification time of '" + path.getFileName() + "'.", e);
+    }
+  }
+
+  /**
+   * A cached plan, that must not be modified (only copies of it are returned).
+   *
+   * @param version the version of the plan file, the plan was read from or written to
+   */
+  private record CachedPlan(ResourceVersion version, PlanDto plan) {}
+
+  private record IndexEntry(Path file, FileTime modified, long size, PlanLog.LogState logState, PlanSummaryDto summary, ResourceVersion version) {
+
+    private IndexEntry(Path file, FileTime modified, long size, PlanLog.LogState logState, PlanSummaryDto summary) {
+      this(file, modified, size, logState, summary, createVersion(modified, size, logState, summary));
+    }
+
+    private String planName() {
+      return summary.name;
+    }
+
+    /**
+     * The version of the plan file (and its log). The modification timestamp of the plan is included, because the
+     * modification time of the file might have a low resolution on some file systems.
+     */
+    private static ResourceVersion createVersion(FileTime modified, long size, PlanLog.LogState logState, PlanSummaryDto summary) {
+      String tag = Long.toHexString(modified.to(TimeUnit.NANOSECONDS)) + "-" + Long.toHexString(size);
+      FileTime lastModified = modified;
+      if (logState.exists()) {
+        tag += "-" + Long.toHexString(logState.size());
+        if (logState.modified().compareTo(modified) > 0) {
+          lastModified = logState.modified();
+        }
+      }
+      tag += "-" + Integer.toHexString(Objects.hashCode(summary.lastModified));
+      return new ResourceVersion(tag, lastModified.toInstant());
+    }
+
+    private PlanIndexFileEntry toIndexFileEntry() {
+      long logModified = logState.exists() ? logState.modified().to(TimeUnit.NANOSECONDS) : 0;
+      return new PlanIndexFileEntry(file.getFileName().toString(), modified.to(TimeUnit.NANOSECONDS), size, logModified, logState.size(), summary);
+    }
+  }
+
+  /**
+   * The index of a single user. All methods have to be called while holding the lock of the instance (a lock instead of
+   * a monitor, because the files are read while holding it, which would pin a virtual thread to its carrier thread).
+   */
+  private class UserPlanIndex {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String username;
+    private final Path userDir;
+    private final Path indexFile;
+
+    private FileTime dirModified;
+    private Map<String, IndexEntry> byFile = new HashMap<>();
+    private Map<String, IndexEntry> byName = new HashMap<>();
+
+    private UserPlanIndex(String username, Path userDir) {
+      this.username = username;
+      this.userDir = userDir;
+      this.indexFile = Paths.get(gamePlanPath, INDEX_SUB_DIR, username + INDEX_FILE_EXTENSION);
+    }
+
+    private void ensureUpToDate() throws GamePlanPersistenceException {
+      FileTime currentDirModified = getLastModifiedTime(userDir);
+      if (!currentDirModified.equals(dirModified)) {
+        rescan(currentDirModified);
+      }
+    }
+
+    private IndexEntry findEntry(String planName) throws GamePlanPersistenceException {
+      ensureUpToDate();
+      IndexEntry entry = byName.get(planName);
+      if (entry == null || !isCurrent(entry)) {
+        // the plan might have been added or changed in the same tick as the last scan - so scan again before giving up
+        rescan(getLastModifiedTime(userDir));
+        entry = byName.get(planName);
+      }
+      if (entry == null) {
+        throw new GamePlanResourceNotFoundException("Plan '" + planName + "' does not exist for user '" + username + "'.");
+      }
+      return entry;
+    }
+
+    /**
+     * Lists the plan files of the user and parses only the files that were added or changed since the last scan (or
+     * that are not up to date in the index file, if the index is built for the first time).
+     */
+    private void rescan(FileTime currentDirModified) throws GamePlanPersistenceException {
+      List<Path> planFiles;
+      try (Stream<Path> files = Files.list(userDir)) {
+        planFiles = files.filter(path -> path.getFileName().toString().endsWith(PLAN_FILE_EXTENSION)) //
+                .filter(Files::isRegularFile) //
+                .sorted() //
+                .toList();
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to list plan files for user '" + username + "'.", e);
+      }
+
+      Map<String, IndexEntry> knownEntries = dirModified == null ? readIndexFile() : byFile;
+      boolean changed = dirModified == null || planFiles.size() != byFile.size();
+
+      Map<String, IndexEntry> newByFile = new HashMap<>();
+      Map<String, IndexEntry> newByName = new HashMap<>();
+      int parsedFiles = 0;
+      for (Path planFile : planFiles) {
+        String fileName = planFile.getFileName().toString();
+        IndexEntry entry = knownEntries.get(fileName);
+        if (entry == null || !isCurrent(entry)) {
+          // not logged on INFO, because a scan can parse all plan files of the user
+          log.debug("Checking plan file '{}' for user '{}'", fileName, username);
+          entry = loadEntry(planFile);
+          parsedFiles++;
+          changed = true;
+        }
+        if (entry != null) {
+          newByFile.put(fileName, entry);
+          // if two files contain a plan with the same name, the first one is used (like in the full directory scan)
+          newByName.putIfAbsent(entry.planName(), entry);
+        }
+      }
+
+      metrics.recordPlanScan(planFiles.size(), parsedFiles);
+
+      byFile = newByFile;
+      byName = newByName;
+      dirModified = currentDirModified;
+      if (changed) {
+        writeIndexFile();
+      }
+    }
+
+    private IndexEntry loadEntry(Path planFile) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(planFile, BasicFileAttributes.class);
+        PlanLog.LogState logState = planLog.getState(planFile);
+        // the plan is not cached, so scanning the plans of a user (e.g. in the warm-up) does not evict the cached plans
+        PlanDto plan = loadPlanFile(planFile, attributes.size());
+        return new IndexEntry(planFile, attributes.lastModifiedTime(), attributes.size(), logState, PlanSummaryDto.of(plan));
+      }
+      catch (IOException | GamePlanPersistenceException e) {
+        log.error("Failed to load plan file '{}' for user '{}': {}", planFile.getFileName(), username, e.getMessage(), e);
+        return null;
+      }
+    }
+
+    private boolean isCurrent(IndexEntry entry) {
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(entry.file(), BasicFileAttributes.class);
+        return attributes.lastModifiedTime().equals(entry.modified()) && attributes.size() == entry.size() && planLog.getState(entry.file()).equals(entry.logState());
+      }
+      catch (IOException e) {
+        return false;
+      }
+    }
+
+    private List<IndexEntry> getEntriesInFileOrder() {
+      // ordered by file name, so the plans of a game are listed in the order they were created
+      return byFile.values().stream().sorted(Comparator.comparing(IndexEntry::file)).toList();
+    }
+
+    /**
+     * @param version the version of the plan, or {@code null} to create a new version from the state of the file
+     */
+    private IndexEntry put(Path planFile, PlanDto plan, ResourceVersion version) throws GamePlanPersistenceException {
+      String fileName = planFile.getFileName().toString();
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(planFile, BasicFileAttributes.class);
+        IndexEntry entry = new IndexEntry(planFile, attributes.lastModifiedTime(), attributes.size(), planLog.getState(planFile), PlanSummaryDto.of(plan));
+        if (version != null) {
+          entry = new IndexEntry(entry.file(), entry.modified(), entry.size(), entry.logState(), entry.summary(), version);
+        }
+        IndexEntry previous = byFile.put(fileName, entry);
+        if (previous != null && !previous.planName().equals(plan.name)) {
+          byName.remove(previous.planName());
+        }
+        byName.put(plan.name, entry);
+        return entry;
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to read the attributes of plan file: " + fileName, e);
+      }
+    }
+
+    private IndexEntry remove(String planName) {
+      IndexEntry entry = byName.remove(planName);
+      if (entry != null) {
+        byFile.remove(entry.file().getFileName().toString());
+      }
+      return entry;
+    }
+
+    private Map<String, IndexEntry> readIndexFile() {
+      if (!Files.exists(indexFile)) {
+        return Map.of();
+      }
+
+      try {
+        return jsonMapper.readPlanIndex(indexFile).stream() //
+                .filter(entry -> entry.fileName() != null && entry.summary() != null && entry.summary().name != null) //
+                .collect(Collectors.toMap(PlanIndexFileEntry::fileName, //
+                        entry -> new IndexEntry(userDir.resolve(entry.fileName()), FileTime.from(entry.modified(), TimeUnit.NANOSECONDS), entry.size(), //
+                                getLogState(entry), entry.summary()), //
+                        (entry1, entry2) -> entry1));
+      }
+      catch (IOException e) {
+        log.warn("Failed to read the plan index file of user '{}' - the index is rebuilt: {}", username, e.getMessage());
+        return Map.of();
+      }
+    }
+
+    private static PlanLog.LogState getLogState(PlanIndexFileEntry entry) {
+      return entry.logSize() > 0 ? new PlanLog.LogState(FileTime.from(entry.logModified(), TimeUnit.NANOSECONDS), entry.logSize()) : PlanLog.LogState.NONE;
+    }
+
+    private void writeIndexFile() {
+      List<PlanIndexFileEntry> entries = getEntriesInFileOrder().stream().map(IndexEntry::toIndexFileEntry).toList();
+      try {
+        FileUtil.createDirectoryIfNotExists(indexFile.getParent());
+        atomicFileWriter.writeUnsynced(indexFile, outputStream -> jsonMapper.writePlanIndex(outputStream, entries));
+      }
+      catch (IOException | GamePlanPersistenceException e) {
+        // the index file is only used to speed up loading the index, so it's not an error if it cannot be written
+        log.warn("Failed to write the plan index file of user '{}': {}", username, e.getMessage());
+      }
+    }
+  }
+}
@@ -1,16 +1,25 @@
 package net.tfassbender.gameplan.persistence.file;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
 import jakarta.inject.Inject;
 import net.tfassbender.gameplan.dto.GameDto;
 import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
 import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.exception.GamePlanConflictException;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.metrics.Measured;
+import net.tfassbender.gameplan.persistence.PlanPatcher;
 import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
+import net.tfassbender.gameplan.persistence.StoredPlanFile;
+import net.tfassbender.gameplan.persistence.VersionedPlan;
 import net.tfassbender.gameplan.util.FileUtil;
-import org.apache.commons.lang3.tuple.Pair;
+import net.tfassbender.gameplan.util.StripedLock;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,34 +30,127 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Stream;
-
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Stores each plan in a file in the directory of the user (as JSON or in a binary format - see
+ * {@link PlanFileFormat}).
+ * <p>
+ * If the plan log is enabled ({@code game_plan.plan_log.enabled}), the changes of a saved plan are appended to the
+ * {@link PlanLog} of the plan instead of rewriting the plan file. When the log gets bigger than the configured limits,
+ * it's written to a new plan file (compacted) in the background.
+ */
+@Measured
 @ApplicationScoped
+@Typed(PlanFileService.class)
 public class PlanFileService implements PlanService {
 
   private final Logger log = LoggerFactory.getLogger(PlanFileService.class);
 
+  private static final int USER_LOCK_STRIPES = 64;
+
   @ConfigProperty(name = "game_plan.path")
   private String gamePlanPath;
 
   @Inject
   private GameFileService gameFileService;
 
+  @Inject
+  private PlanFileIndex planIndex;
+
+  @Inject
+  private PlanFileFormat planFileFormat;
+
+  @Inject
+  private AtomicFileWriter atomicFileWriter;
+
+  @Inject
+  private PlanLog planLog;
+
+  @ConfigProperty(name = "game_plan.plan_log.enabled", defaultValue = "false")
+  private boolean planLogEnabled;
+
+  @ConfigProperty(name = "game_plan.plan_log.compaction.max_entries", defaultValue = "200")
+  private int compactionMaxEntries;
+
+  @ConfigProperty(name = "game_plan.plan_log.compaction.max_bytes", defaultValue = "262144")
+  private long compactionMaxBytes;
+
+  // serializes the changes of the plans of a user (the read operations don't need the lock)
+  private final StripedLock userLocks = new StripedLock(USER_LOCK_STRIPES);
+
+  // the plans (user and plan name) for which a compaction of the plan log is scheduled
+  private final Set<String> pendingCompactions = ConcurrentHashMap.newKeySet();
+  private ExecutorService compactionExecutor;
+
+  public PlanFileService() {}
+
+  /**
+   * Creates the service without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  PlanFileService(String gamePlanPath, GameFileService gameFileService, PlanFileIndex planIndex, PlanFileFormat planFileFormat, AtomicFileWriter atomicFileWriter,
+                  PlanLog planLog, boolean planLogEnabled, int compactionMaxEntries, long compactionMaxBytes) {
+    this.gamePlanPath = gamePlanPath;
+    this.gameFileService = gameFileService;
+    this.planIndex = planIndex;
+    this.planFileFormat = planFileFormat;
+    this.atomicFileWriter = atomicFileWriter;
+    this.planLog = planLog;
+    this.planLogEnabled = planLogEnabled;
+    this.compactionMaxEntries = compactionMaxEntries;
+    this.compactionMaxBytes = compactionMaxBytes;
+  }
+
   public List<String> getPlanNames(String username) throws GamePlanPersistenceException {
     FileUtil.checkResourceNameValid(username);
 
-    return getAllPlansForUser(username).map(dto -> dto.name).toList();
+    return planIndex.getPlanNames(username);
+  }
+
+  public List<PlanSummaryDto> getPlanSummaries(String username) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+
+    return planIndex.getPlanSummaries(username);
   }
 
   public PlanDto getPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getVersionedPlan(username, planName).plan();
+  }
+
+  public VersionedPlan getVersionedPlan(String username, String planName) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    return planIndex.getVersionedPlan(username, planName);
+  }
+
+  public PlanDto getUncachedPlan(String username, String planName) throws GamePlanPersistenceException {
     FileUtil.checkResourceNameValid(username);
     FileUtil.checkResourceNameValid(planName);
 
-    return getAllPlansForUser(username).filter(dto -> planName.equals(dto.name)) //
-            .findFirst() //
-            .orElseThrow(() -> new GamePlanResourceNotFoundException("Plan '" + planName + "' does not exist for user '" + username + "'."));
+    return planIndex.getUncachedPlan(username, planName);
+  }
+
+  public ResourceVersion getPlanVersion(String username, String planName) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    return planIndex.getPlanVersion(username, planName);
+  }
+
+  public Optional<StoredPlanFile> findPlanFile(String username, String planName) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    return planIndex.findPlanFile(username, planName);
   }
 
   public PlanDto createPlan(String username, String gameName) throws GamePlanPersistenceException {
@@ -60,38 +162,83 @@ public class PlanFileService implements PlanService {
       throw new GamePlanResourceNotFoundException("Game '" + gameName + "' does not exist.");
     }
 
-    Path planFilePath = createPlanFile(username, gameName);
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      Path planFilePath = createPlanFile(username, gameName);
+
+      PlanDto newPlan = new PlanDto();
+      newPlan.name = getUniquePlanName(username, gameName);
+      newPlan.gameName = gameName;
+      newPlan.lastModified = getCurrentTimestampAsString();
+      newPlan.resourceTypes.putAll(game.resources);
+      newPlan.resourceOrder.addAll(game.resourceOrder);
+      PlanStageDto initialStage = new PlanStageDto();
+      initialStage.resourceChanges.putAll(game.defaultStartingResources.resourceChanges);
+      initialStage.description = game.defaultStartingResources.description;
+      newPlan.stages.add(initialStage);
+
+      try {
+        log.info("Creating new plan file '{}' for user '{}'", planFilePath.getFileName(), username);
+        atomicFileWriter.write(planFilePath, outputStream -> planFileFormat.writePlan(outputStream, newPlan));
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to create plan file: " + gameName, e);
+      }
+      planIndex.planWritten(username, planFilePath, newPlan);
+
+      return newPlan;
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
 
-    PlanDto newPlan = new PlanDto();
-    newPlan.name = getUniquePlanName(username, gameName);
-    newPlan.gameName = gameName;
-    newPlan.lastModified = getCurrentTimestampAsString();
-    newPlan.resourceTypes.putAll(game.resources);
-    newPlan.resourceOrder.addAll(game.resourceOrder);
-    PlanStageDto initialStage = new PlanStageDto();
-    initialStage.resourceChanges.putAll(game.defaultStartingResources.resourceChanges);
-    initialStage.description = game.defaultStartingResources.description;
-    newPlan.stages.add(initialStage);
+  /**
+   * Clones a plan. The clone is created from the cached original plan and shares its stages with it in memory (see
+   * {@link PlanFileIndex#planCloned(String, Path, PlanDto)}), so only the new plan file is written.
+   */
+  public VersionedPlan clonePlan(String username, String originalPlanName) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    FileUtil.checkResourceNameValid(originalPlanName);
 
-    ObjectMapper mapper = new ObjectMapper();
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
     try {
-      String content = mapper.writeValueAsString(newPlan);
-      log.info("Creating new plan file '{}' for user '{}'", planFilePath.getFileName(), username);
-      Files.writeString(planFilePath, content);
+      PlanDto originalPlan = planIndex.getSharedPlan(username, originalPlanName);
+      PlanDto clonedPlan = originalPlan.createClone(getUniquePlanName(username, originalPlan.gameName));
+      clonedPlan.lastModified = getCurrentTimestampAsString();
+      Path planFilePath = createPlanFile(username, originalPlan.gameName);
+
+      try {
+        log.info("Cloning plan '{}' of user '{}' to plan file '{}'", originalPlanName, username, planFilePath.getFileName());
+        atomicFileWriter.write(planFilePath, outputStream -> planFileFormat.writePlan(outputStream, clonedPlan));
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to write the clone of plan: " + originalPlanName, e);
+      }
+      ResourceVersion version = planIndex.planCloned(username, planFilePath, clonedPlan);
+
+      return new VersionedPlan(clonedPlan.copy(), version);
     }
-    catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to create plan file: " + gameName, e);
+    finally {
+      userLock.unlock();
     }
-
-    return newPlan;
   }
 
   private Path createPlanFile(String username, String gameName) throws GamePlanResourceNotFoundException {
-    return getUserDirPath(username).resolve(gameName + "_" + getCurrentTimestampForFileName() + ".json");
+    Path userDir = getUserDirPath(username);
+    String fileName = gameName + "_" + getCurrentTimestampForFileName();
+    Path planFile = userDir.resolve(fileName + PlanFileIndex.PLAN_FILE_EXTENSION);
+    // plans of the same game that are created in the same second must not overwrite each other
+    for (int counter = 1; Files.exists(planFile); counter++) {
+      planFile = userDir.resolve(fileName + "_" + counter + PlanFileIndex.PLAN_FILE_EXTENSION);
+    }
+    return planFile;
   }
 
   private String getUniquePlanName(String username, String gameName) throws GamePlanPersistenceException {
-    List<String> existingPlanNames = getAllPlansForUser(username).map(dto -> dto.name).toList();
+    Set<String> existingPlanNames = new HashSet<>(planIndex.getPlanNames(username));
     if (existingPlanNames.isEmpty()) {
       return gameName;
     }
@@ -105,121 +252,222 @@ public class PlanFileService implements PlanService {
     return candidate;
   }
 
-  public PlanDto savePlan(String username, PlanDto plan) throws GamePlanPersistenceException {
+  public VersionedPlan savePlan(String username, PlanDto plan, String expectedVersion) throws GamePlanPersistenceException {
     FileUtil.checkResourceNameValid(username);
     if (plan == null) {
       throw new GamePlanPersistenceException("PlanDto cannot be null.");
     }
     FileUtil.checkResourceNameValid(plan.name);
 
-    Path planFilePath = findPlanDtoAndPathByName(username, plan.name).getRight();
-    ObjectMapper mapper = new ObjectMapper();
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
     try {
-      plan.lastModified = getCurrentTimestampAsString();
-      String content = mapper.writeValueAsString(plan);
-      log.debug("Saving plan '{}' for user '{}' - filename '{}'", plan.name, username, planFilePath.getFileName().toString());
-      Files.writeString(planFilePath, content);
+      Path planFilePath = planIndex.getPlanFile(username, plan.name);
+      if (expectedVersion != null) {
+        checkVersion(plan.name, expectedVersion, planIndex.getPlanVersion(username, plan.name));
+      }
+
+      if (planLogEnabled) {
+        VersionedPlan current = planIndex.getVersionedPlan(username, plan.name);
+        List<PlanPatchOperationDto> operations = PlanPatcher.diff(current.plan(), plan);
+        // a save without changes keeps the current version (and does not grow the log)
+        if (operations != null && operations.isEmpty()) {
+          return current;
+        }
+        // changes that cannot be expressed as operations (like changed resource types) are written to the plan file
+        if (operations != null) {
+          return appendToPlanLog(username, planFilePath, current.plan().lastModified, plan, operations);
+        }
+      }
+      return writePlan(username, planFilePath, plan);
     }
-    catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to save plan file: " + plan.name, e);
+    finally {
+      userLock.unlock();
     }
+  }
 
-    return plan;
+  /**
+   * Imports a plan (see {@link PlanService#importPlan(String, PlanDto)}). A plan that does not exist yet is written to a
+   * new plan file, that is added to the plan index (without caching the plan).
+   */
+  public VersionedPlan importPlan(String username, PlanDto plan) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    if (plan == null) {
+      throw new GamePlanPersistenceException("PlanDto cannot be null.");
+    }
+    FileUtil.checkResourceNameValid(plan.name);
+    // the name of the game is part of the name of a new plan file
+    FileUtil.checkResourceNameValid(plan.gameName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      boolean planExists = planIndex.getPlanNames(username).contains(plan.name);
+      Path planFilePath = planExists ? planIndex.getPlanFile(username, plan.name) : createPlanFile(username, plan.gameName);
+      if (!planExists) {
+        log.info("Creating new plan file '{}' for imported plan '{}' of user '{}'", planFilePath.getFileName(), plan.name, username);
+      }
+      return writePlan(username, planFilePath, plan, false);
+    }
+    finally {
+      userLock.unlock();
+    }
   }
 
-  public void deletePlan(String username, String planName) throws GamePlanPersistenceException {
+  public VersionedPlan patchPlan(String username, String planName, List<PlanPatchOperationDto> operations, String expectedVersion) throws GamePlanPersistenceException {
     FileUtil.checkResourceNameValid(username);
     FileUtil.checkResourceNameValid(planName);
 
-    Pair<PlanDto, Path> plan = findPlanDtoAndPathByName(username, planName);
-
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
     try {
-      log.info("Deleting plan '{}' for user '{}' - filename '{}'", planName, username, plan.getRight().getFileName().toString());
-      Files.delete(plan.getRight());
+      Path planFilePath = planIndex.getPlanFile(username, planName);
+      // the operations are applied to a copy of the cached plan, so the plan file is not parsed again
+      VersionedPlan current = planIndex.getVersionedPlan(username, planName);
+      if (expectedVersion != null) {
+        checkVersion(planName, expectedVersion, current.version());
+      }
+
+      PlanDto plan = current.plan();
+      String baseLastModified = plan.lastModified;
+      PlanPatcher.apply(plan, operations);
+      if (planLogEnabled) {
+        if (operations.isEmpty()) {
+          return current;
+        }
+        return appendToPlanLog(username, planFilePath, baseLastModified, plan, operations);
+      }
+      return writePlan(username, planFilePath, plan);
     }
-    catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to delete plan file: " + planName, e);
+    finally {
+      userLock.unlock();
     }
   }
 
-  private Pair<PlanDto, Path> findPlanDtoAndPathByName(String username, String planName) throws GamePlanPersistenceException {
-    Path userDir = Paths.get(gamePlanPath, UserFileService.USERS_SUB_DIR, username);
-    if (!Files.exists(userDir) || !Files.isDirectory(userDir)) {
-      throw new GamePlanResourceNotFoundException("User directory does not exist for user '" + username + "'.");
+  private static void checkVersion(String planName, String expectedVersion, ResourceVersion currentVersion) throws GamePlanConflictException {
+    if (!expectedVersion.equals(currentVersion.tag())) {
+      throw new GamePlanConflictException("Plan '" + planName + "' was changed in the meantime (expected version '" + expectedVersion + "', current version '" + currentVersion.tag() + "').");
     }
+  }
 
-    try (Stream<Path> files = Files.list(userDir)) {
-      return files.filter(Files::isRegularFile) //
-              .filter(path -> path.toString().endsWith(".json")) //
-              .map(path -> {
-                String fileName = path.getFileName().toString();
-                log.info("Checking plan file '{}' for user '{}'", fileName, username);
-                try {
-                  PlanDto planDto = loadPlanFile(username, fileName);
-                  return Pair.of(planDto, path);
-                }
-                catch (GamePlanPersistenceException e) {
-                  log.error("Failed to load plan file '{}' for user '{}': {}", fileName, username, e.getMessage(), e);
-                  return null;
-                }
-              }) //
-              .filter(Objects::nonNull) //
-              .filter(pair -> planName.equals(pair.getLeft().name)) //
-              .findFirst() //
-              .orElseThrow(() -> new GamePlanResourceNotFoundException("Plan '" + planName + "' does not exist for user '" + username + "'."));
+  private VersionedPlan writePlan(String username, Path planFilePath, PlanDto plan) throws GamePlanPersistenceException {
+    return writePlan(username, planFilePath, plan, true);
+  }
+
+  /**
+   * @param cache whether the plan is cached by the {@link PlanFileIndex}
+   */
+  private VersionedPlan writePlan(String username, Path planFilePath, PlanDto plan, boolean cache) throws GamePlanPersistenceException {
+    try {
+      plan.lastModified = getCurrentTimestampAsString();
+      log.debug("Saving plan '{}' for user '{}' - filename '{}'", plan.name, username, planFilePath.getFileName().toString());
+      atomicFileWriter.write(planFilePath, outputStream -> planFileFormat.writePlan(outputStream, plan));
+      // the plan file contains all changes now (a log of an older plan file would be ignored anyway)
+      planLog.delete(planFilePath);
     }
     catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to list plan files for user '" + userDir.getFileName().toString() + "'.", e);
+      throw new GamePlanPersistenceException("Failed to save plan file: " + plan.name, e);
     }
+    ResourceVersion version = cache ? planIndex.planWritten(username, planFilePath, plan) : planIndex.planWrittenUncached(username, planFilePath, plan);
+
+    return new VersionedPlan(plan, version);
   }
 
-  private Stream<PlanDto> getAllPlansForUser(String username) throws GamePlanPersistenceException {
-    Path usersDir = Paths.get(gamePlanPath, UserFileService.USERS_SUB_DIR, username);
-    if (!Files.exists(usersDir) || !Files.isDirectory(usersDir)) {
-      throw new GamePlanResourceNotFoundException("User directory does not exist for user '" + username + "'.");
+  /**
+   * Appends the operations, that changed the plan, to the plan log.
+   *
+   * @param baseLastModified the modification timestamp of the plan before the operations were applied
+   */
+  private VersionedPlan appendToPlanLog(String username, Path planFilePath, String baseLastModified, PlanDto plan, List<PlanPatchOperationDto> operations) throws GamePlanPersistenceException {
+    try {
+      plan.lastModified = getCurrentTimestampAsString();
+      log.debug("Appending {} operations of plan '{}' for user '{}' to the plan log", operations.size(), plan.name, username);
+      planLog.append(planFilePath, baseLastModified, plan.lastModified, operations);
     }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to append to the log of plan: " + plan.name, e);
+    }
+    ResourceVersion version = planIndex.planWritten(username, planFilePath, plan);
 
-    return getPlanFileNames(usersDir) //
-            .map(planFile -> {
-              try {
-                return loadPlanFile(username, planFile);
-              }
-              catch (GamePlanPersistenceException e) {
-                log.error("Failed to load plan file '{}' for user '{}': {}", planFile, username, e.getMessage(), e);
-                return null;
-              }
-            }) //
-            .filter(Objects::nonNull);
+    if (planLog.getEntryCount(planFilePath) >= compactionMaxEntries || planLog.getState(planFilePath).size() >= compactionMaxBytes) {
+      scheduleCompaction(username, plan.name);
+    }
+    return new VersionedPlan(plan, version);
   }
 
-  private Stream<String> getPlanFileNames(Path userDir) throws GamePlanPersistenceException {
-    try (Stream<Path> files = Files.list(userDir)) {
-      List<String> fileNames = files.filter(Files::isRegularFile) //
-              .filter(path -> path.toString().endsWith(".json")) //
-              .map(path -> path.getFileName().toString()) //
-              .toList();
+  private synchronized void scheduleCompaction(String username, String planName) {
+    if (!pendingCompactions.add(username + "/" + planName)) {
+      return;
+    }
+    if (compactionExecutor == null) {
+      compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plan-log-compaction");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    compactionExecutor.execute(() -> compactPlanLog(username, planName));
+  }
 
-      // return a new stream, since the files stream is auto-closed by the try-with-resources block
-      return fileNames.stream();
+  /**
+   * Writes the plan (including the operations of its log) to a new plan file and deletes the log.
+   */
+  void compactPlanLog(String username, String planName) {
+    // changes that are made while compacting can schedule the next compaction
+    pendingCompactions.remove(username + "/" + planName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      Path planFilePath = planIndex.getPlanFile(username, planName);
+      if (!planLog.getState(planFilePath).exists()) {
+        return;
+      }
+
+      VersionedPlan plan = planIndex.getVersionedPlan(username, planName);
+      log.debug("Compacting the plan log of plan '{}' for user '{}'", planName, username);
+      atomicFileWriter.write(planFilePath, outputStream -> planFileFormat.writePlan(outputStream, plan.plan()));
+      planLog.delete(planFilePath);
+      planIndex.planCompacted(username, planFilePath, plan.plan(), plan.version());
     }
-    catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to list plan files for user '" + userDir.getFileName().toString() + "'.", e);
+    catch (IOException | GamePlanPersistenceException e) {
+      // the log is kept, so no changes are lost - the compaction is tried again after the next change
+      log.warn("Failed to compact the plan log of plan '{}' for user '{}': {}", planName, username, e.getMessage());
+    }
+    finally {
+      userLock.unlock();
     }
   }
 
-  private PlanDto loadPlanFile(String username, String planFile) throws GamePlanPersistenceException {
-    Path planFilePath = Paths.get(gamePlanPath, UserFileService.USERS_SUB_DIR, username, planFile);
-    if (!Files.exists(planFilePath)) {
-      throw new GamePlanResourceNotFoundException("A plan with the file name '" + planFile + "' does not exist for user '" + username + "'.");
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (compactionExecutor != null) {
+      compactionExecutor.shutdownNow();
+      compactionExecutor = null;
     }
+  }
 
+  public void deletePlan(String username, String planName) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
     try {
-      String content = Files.readString(planFilePath);
-      ObjectMapper mapper = new ObjectMapper();
-      return mapper.readValue(content, PlanDto.class);
+      Path planFilePath = planIndex.getPlanFile(username, planName);
+
+      try {
+        log.info("Deleting plan '{}' for user '{}' - filename '{}'", planName, username, planFilePath.getFileName().toString());
+        Files.delete(planFilePath);
+        planLog.delete(planFilePath);
+      }
+      catch (IOException e) {
+        throw new GamePlanPersistenceException("Failed to delete plan file: " + planName, e);
+      }
+      planIndex.planDeleted(username, planName);
     }
-    catch (IOException e) {
-      throw new GamePlanPersistenceException("Failed to read plan file: " + planFile, e);
+    finally {
+      userLock.unlock();
     }
   }
 
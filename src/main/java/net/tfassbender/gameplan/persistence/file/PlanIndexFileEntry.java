@@ -0,0 +1,15 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+
+/**
+ * An entry of the plan index file of a user, that is stored next to the user directories.
+ *
+ * @param fileName the name of the plan file
+ * @param modified the modification time of the plan file (in nanoseconds since the epoch)
+ * @param size the size of the plan file (in bytes)
+ * @param logModified the modification time of the plan log (in nanoseconds since the epoch), or 0 if there is no log
+ * @param logSize the size of the plan log (in bytes), or 0 if there is no log
+ * @param summary the summary of the plan, that is stored in the file
+ */
+public record PlanIndexFileEntry(String fileName, long modified, long size, long logModified, long logSize, PlanSummaryDto summary) {}
@@ -0,0 +1,219 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.persistence.PlanPatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The append-only logs of the plan operations, that are used to store the changes of a plan without rewriting the whole
+ * plan file (see {@code game_plan.plan_log.enabled}).
+ * <p>
+ * The log of a plan is stored next to the plan file (the snapshot) in a file with the additional extension
+ * {@link #LOG_FILE_EXTENSION}. It contains one JSON object per line: the first line references the snapshot the log is
+ * based on (by the modification timestamp of the plan) and each of the following lines contains the operations of one
+ * save. A log that does not belong to the current snapshot (e.g. because the server stopped after a compaction wrote
+ * the new snapshot, but before the log was deleted) is ignored.
+ */
+@ApplicationScoped
+public class PlanLog {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanLog.class);
+
+  public static final String LOG_FILE_EXTENSION = ".log";
+
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  @Inject
+  private AtomicFileWriter atomicFileWriter;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  // the number of entries in the logs, that were read or written since the start
+  private final Map<Path, Integer> entryCounts = new ConcurrentHashMap<>();
+  // the plans with a log, that was ignored when it was read, because it does not belong to the plan file
+  private final Set<Path> staleLogs = ConcurrentHashMap.newKeySet();
+
+  public PlanLog() {}
+
+  /**
+   * Creates the plan log without the CDI container (e.g. for the benchmarks), with the dependencies and config properties,
+   * that are injected otherwise.
+   */
+  PlanLog(PersistenceJsonMapper jsonMapper, AtomicFileWriter atomicFileWriter, GamePlanMetrics metrics) {
+    this.jsonMapper = jsonMapper;
+    this.atomicFileWriter = atomicFileWriter;
+    this.metrics = metrics;
+  }
+
+  /**
+   * The modification time and size of a log file.
+   */
+  public record LogState(FileTime modified, long size) {
+
+    public static final LogState NONE = new LogState(null, 0);
+
+    public boolean exists() {
+      return modified != null;
+    }
+  }
+
+  public Path getLogFile(Path planFile) {
+    return planFile.resolveSibling(planFile.getFileName() + LOG_FILE_EXTENSION);
+  }
+
+  public LogState getState(Path planFile) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(getLogFile(planFile), BasicFileAttributes.class);
+      return new LogState(attributes.lastModifiedTime(), attributes.size());
+    }
+    catch (IOException e) {
+      // there is no log for the plan
+      return LogState.NONE;
+    }
+  }
+
+  /**
+   * The number of entries in the log of the plan (without the header), or 0 if the log was not read or written since
+   * the start.
+   */
+  public int getEntryCount(Path planFile) {
+    return entryCounts.getOrDefault(planFile, 0);
+  }
+
+  /**
+   * Appends the operations of a save to the log of the plan. The log is created, if it does not exist. A log, that was
+   * ignored when it was read (see {@link #replay(Path, PlanDto)}), is replaced by a new log, because the appended
+   * operations would be ignored too.
+   *
+   * @param base the modification timestamp of the plan in the snapshot file (used if the log is created)
+   * @param lastModified the new modification timestamp of the plan
+   */
+  public void append(Path planFile, String base, String lastModified, List<PlanPatchOperationDto> operations) throws IOException {
+    Path logFile = getLogFile(planFile);
+    boolean replaceStaleLog = staleLogs.contains(planFile);
+
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    if (replaceStaleLog || getState(planFile).size() == 0) {
+      content.write(jsonMapper.writePlanLogEntryAsBytes(PlanLogEntry.header(base)));
+      content.write('\n');
+    }
+    else if (!endsWithLineBreak(logFile)) {
+      // the last entry was not written completely - it's ignored when the log is read
+      content.write('\n');
+    }
+    content.write(jsonMapper.writePlanLogEntryAsBytes(PlanLogEntry.operations(lastModified, operations)));
+    content.write('\n');
+
+    if (replaceStaleLog) {
+      atomicFileWriter.write(logFile, content::writeTo);
+      staleLogs.remove(planFile);
+      entryCounts.put(planFile, 1);
+    }
+    else {
+      atomicFileWriter.append(logFile, content::writeTo);
+      entryCounts.merge(planFile, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * Applies the operations of the log to the plan, that was read from the snapshot file.
+   */
+  public void replay(Path planFile, PlanDto plan) throws IOException {
+    Path logFile = getLogFile(planFile);
+    List<String> lines;
+    try {
+      byte[] content = Files.readAllBytes(logFile);
+      metrics.recordFileRead(logFile, content.length);
+      lines = new String(content, StandardCharsets.UTF_8).lines().toList();
+    }
+    catch (NoSuchFileException e) {
+      entryCounts.remove(planFile);
+      staleLogs.remove(planFile);
+      return;
+    }
+    if (lines.isEmpty()) {
+      return;
+    }
+
+    PlanLogEntry header = readEntry(planFile, lines.get(0));
+    if (header == null || !Objects.equals(header.base(), plan.lastModified)) {
+      log.warn("Ignoring the plan log of '{}', because it does not belong to the plan file", planFile.getFileName());
+      entryCounts.remove(planFile);
+      staleLogs.add(planFile);
+      return;
+    }
+    staleLogs.remove(planFile);
+
+    int entryCount = 0;
+    for (String line : lines.subList(1, lines.size())) {
+      PlanLogEntry entry = readEntry(planFile, line);
+      if (entry == null || entry.operations() == null) {
+        continue;
+      }
+      try {
+        PlanPatcher.apply(plan, entry.operations());
+        plan.lastModified = entry.lastModified();
+        entryCount++;
+      }
+      catch (IllegalArgumentException e) {
+        log.warn("Failed to apply an entry of the plan log of '{}': {}", planFile.getFileName(), e.getMessage());
+      }
+    }
+    entryCounts.put(planFile, entryCount);
+  }
+
+  /**
+   * Deletes the log of the plan (e.g. after its operations were written to a new snapshot).
+   */
+  public void delete(Path planFile) throws IOException {
+    Files.deleteIfExists(getLogFile(planFile));
+    entryCounts.remove(planFile);
+    staleLogs.remove(planFile);
+  }
+
+  private PlanLogEntry readEntry(Path planFile, String line) {
+    if (line.isBlank()) {
+      return null;
+    }
+    try {
+      return jsonMapper.readPlanLogEntry(line);
+    }
+    catch (IOException e) {
+      // an entry, that was not written completely because the server stopped
+      log.warn("Ignoring an unreadable entry of the plan log of '{}': {}", planFile.getFileName(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static boolean endsWithLineBreak(Path logFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      ByteBuffer lastByte = ByteBuffer.allocate(1);
+      channel.read(lastByte, channel.size() - 1);
+      return lastByte.get(0) == '\n';
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+
+import java.util.List;
+
+/**
+ * A line of a plan log file: either the header, that references the snapshot the log is based on, or the operations of
+ * one save of the plan.
+ *
+ * @param base the modification timestamp of the plan in the snapshot file (only set in the header)
+ * @param lastModified the modification timestamp of the plan after the operations were applied
+ * @param operations the operations of the save
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PlanLogEntry(String base, String lastModified, List<PlanPatchOperationDto> operations) {
+
+  public static PlanLogEntry header(String base) {
+    return new PlanLogEntry(base, null, null);
+  }
+
+  public static PlanLogEntry operations(String lastModified, List<PlanPatchOperationDto> operations) {
+    return new PlanLogEntry(null, lastModified, operations);
+  }
+}
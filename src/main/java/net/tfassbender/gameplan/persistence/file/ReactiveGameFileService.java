@@ -0,0 +1,43 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.ReactiveGameService;
+import net.tfassbender.gameplan.persistence.WorkerPool;
+import net.tfassbender.gameplan.util.FileUtil;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The non-blocking variant of the {@link GameFileService}. The games of the catalog are returned directly and only
+ * games that are not loaded yet (and the list of games, that checks the games directory) are loaded on the worker pool.
+ */
+@ApplicationScoped
+public class ReactiveGameFileService implements ReactiveGameService {
+
+  @Inject
+  private GameFileService gameFileService;
+
+  public Uni<List<String>> getGameNames() {
+    return WorkerPool.run(gameFileService::getGameNames);
+  }
+
+  public Uni<GameDto> getGame(String gameName) {
+    try {
+      FileUtil.checkResourceNameValid(gameName);
+    }
+    catch (GamePlanPersistenceException e) {
+      return Uni.createFrom().failure(e);
+    }
+
+    Optional<GameDto> game = gameFileService.findLoadedGame(gameName);
+    if (game.isPresent()) {
+      return Uni.createFrom().item(game.get());
+    }
+    return WorkerPool.run(() -> gameFileService.getGame(gameName));
+  }
+}
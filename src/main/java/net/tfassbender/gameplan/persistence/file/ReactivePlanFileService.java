@@ -0,0 +1,125 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.file.FileProps;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.ReactivePlanService;
+import net.tfassbender.gameplan.persistence.VersionedPlan;
+import net.tfassbender.gameplan.persistence.WorkerPool;
+import net.tfassbender.gameplan.util.FileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The non-blocking variant of the {@link PlanFileService}.
+ * <p>
+ * Plans, that are known to the {@link PlanFileIndex}, are read without blocking: the plan file is checked (and read,
+ * if the plan is not cached) with the asynchronous file system of Vert.x. Everything else (plans that are not indexed
+ * yet, that have a {@link PlanLog} or that are not stored as uncompressed JSON (see {@link PlanFileFormat}), listing
+ * the plans and all changes) is done by the {@link PlanFileService} on the worker pool, because the changes have to
+ * hold the same locks as the changes of the blocking endpoints.
+ */
+@ApplicationScoped
+@Typed(ReactivePlanFileService.class)
+public class ReactivePlanFileService implements ReactivePlanService {
+
+  @Inject
+  private Vertx vertx;
+
+  @Inject
+  private PlanFileIndex planIndex;
+
+  @Inject
+  private PlanFileService planFileService;
+
+  @Inject
+  private PlanLog planLog;
+
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  public Uni<List<String>> getPlanNames(String username) {
+    return WorkerPool.run(() -> planFileService.getPlanNames(username));
+  }
+
+  public Multi<PlanSummaryDto> getPlanSummaries(String username) {
+    return WorkerPool.run(() -> planFileService.getPlanSummaries(username)).onItem().transformToMulti(summaries -> Multi.createFrom().iterable(summaries));
+  }
+
+  public Uni<VersionedPlan> getVersionedPlan(String username, String planName) {
+    try {
+      FileUtil.checkResourceNameValid(username);
+      FileUtil.checkResourceNameValid(planName);
+    }
+    catch (GamePlanPersistenceException e) {
+      return Uni.createFrom().failure(e);
+    }
+
+    Optional<PlanFileIndex.IndexedPlan> indexedPlan = planIndex.findIndexedPlan(username, planName);
+    if (indexedPlan.isEmpty() || indexedPlan.get().hasLog()) {
+      return WorkerPool.run(() -> planFileService.getVersionedPlan(username, planName));
+    }
+
+    PlanFileIndex.IndexedPlan plan = indexedPlan.get();
+    return isUnchanged(plan).chain(unchanged -> {
+      if (!unchanged) {
+        // the index has to be updated first
+        return WorkerPool.run(() -> planFileService.getVersionedPlan(username, planName));
+      }
+      if (plan.plan() != null) {
+        return Uni.createFrom().item(new VersionedPlan(plan.plan(), plan.version()));
+      }
+      return vertx.fileSystem().readFile(plan.file().toString()).chain(content -> {
+        byte[] bytes = content.getBytes();
+        if (bytes.length != plan.size() || !PlanFileFormat.isJson(bytes)) {
+          // the file was changed after it was checked, or it has to be decompressed or converted (see PlanFileFormat)
+          return WorkerPool.run(() -> planFileService.getVersionedPlan(username, planName));
+        }
+        return readPlan(bytes, planName).map(loadedPlan -> new VersionedPlan(loadedPlan, plan.version()));
+      });
+    });
+  }
+
+  public Uni<VersionedPlan> savePlan(String username, PlanDto plan, String expectedVersion) {
+    return WorkerPool.run(() -> planFileService.savePlan(username, plan, expectedVersion));
+  }
+
+  public Uni<Void> deletePlan(String username, String planName) {
+    return WorkerPool.run(() -> {
+      planFileService.deletePlan(username, planName);
+      return null;
+    });
+  }
+
+  /**
+   * Checks (like the index) that the plan file was not changed since it was indexed and that no log was added.
+   */
+  private Uni<Boolean> isUnchanged(PlanFileIndex.IndexedPlan plan) {
+    Uni<FileProps> planFileProps = vertx.fileSystem().props(plan.file().toString());
+    return planFileProps.onFailure().recoverWithNull().chain(props -> {
+      if (props == null || props.size() != plan.size() || props.lastModifiedTime() != plan.modifiedMillis()) {
+        return Uni.createFrom().item(false);
+      }
+      return vertx.fileSystem().exists(planLog.getLogFile(plan.file()).toString()).map(logExists -> !logExists);
+    });
+  }
+
+  private Uni<PlanDto> readPlan(byte[] content, String planName) {
+    try {
+      return Uni.createFrom().item(jsonMapper.readPlan(new ByteArrayInputStream(content)));
+    }
+    catch (IOException e) {
+      return Uni.createFrom().failure(new GamePlanPersistenceException("Failed to read plan: " + planName, e));
+    }
+  }
+}
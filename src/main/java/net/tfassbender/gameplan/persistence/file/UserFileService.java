@@ -1,9 +1,11 @@
 package net.tfassbender.gameplan.persistence.file;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 import net.tfassbender.gameplan.exception.GamePlanResourceAlreadyExistingException;
 import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.metrics.Measured;
 import net.tfassbender.gameplan.persistence.UserService;
 import net.tfassbender.gameplan.util.FileUtil;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -16,7 +18,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+@Measured
 @ApplicationScoped
+@Typed(UserFileService.class)
 public class UserFileService implements UserService {
 
   public static final String USERS_SUB_DIR = ".users";
@@ -0,0 +1,20 @@
+package net.tfassbender.gameplan.persistence.migration;
+
+import java.util.List;
+
+/**
+ * The result of a {@link StorageMigration}.
+ *
+ * @param users the number of migrated users
+ * @param plans the number of migrated plans
+ * @param failedPlans the plans ({@code <username>/<planName>: <reason>}), that could not be migrated (e.g. because they
+ *         are invalid)
+ * @param mismatchedPlans the plans ({@code <username>/<planName>}), that differ in the source and the target after the
+ *         migration (only if the migration was verified)
+ */
+public record MigrationResult(int users, int plans, List<String> failedPlans, List<String> mismatchedPlans) {
+
+  public boolean isSuccessful() {
+    return failedPlans.isEmpty() && mismatchedPlans.isEmpty();
+  }
+}
@@ -0,0 +1,270 @@
+package net.tfassbender.gameplan.persistence.migration;
+
+import io.quarkus.runtime.Quarkus;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.calculation.PlanCompiler;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.PlanPatcher;
+import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.UserService;
+import net.tfassbender.gameplan.persistence.file.PlanFileService;
+import net.tfassbender.gameplan.persistence.file.UserFileService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStorePlanService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStoreUserService;
+import net.tfassbender.gameplan.util.FileUtil;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies all users and plans from one storage backend to another (see {@code game_plan.storage.backend}).
+ * <p>
+ * The migration is started on startup, if {@code game_plan.migration.mode} is set:
+ * <ul>
+ *   <li>{@code import}: the plan files are imported into the MVStore database</li>
+ *   <li>{@code export}: the plans of the MVStore database are exported to plan files</li>
+ * </ul>
+ * The users are migrated in parallel by {@code game_plan.migration.threads} threads. Each thread loads only one plan at
+ * a time and only a few users are queued. The plans are read and written without caching them in the backends (see
+ * {@link PlanService#getUncachedPlan(String, String)}), so the memory usage does not depend on the number of plans.
+ * Each plan is validated before it is saved in the target. Existing plans in the target are overwritten, so a failed
+ * migration can simply be repeated.
+ * <p>
+ * If {@code game_plan.migration.verify} is {@code true} (default), each migrated plan is read from the target and its
+ * content is compared with the plan, that was read from the source. With {@code game_plan.migration.exit=true} the
+ * application is stopped after the migration (to run the migration as a command, e.g. with
+ * {@code -Dgame_plan.migration.mode=import}).
+ */
+@ApplicationScoped
+public class StorageMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(StorageMigration.class);
+
+  private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+
+  public enum MigrationMode {
+    NONE, IMPORT, EXPORT
+  }
+
+  @ConfigProperty(name = "game_plan.migration.mode", defaultValue = "none")
+  private MigrationMode mode;
+
+  @ConfigProperty(name = "game_plan.migration.threads", defaultValue = "4")
+  private int threads;
+
+  @ConfigProperty(name = "game_plan.migration.verify", defaultValue = "true")
+  private boolean verify;
+
+  @ConfigProperty(name = "game_plan.migration.exit", defaultValue = "false")
+  private boolean exitAfterMigration;
+
+  @Inject
+  private UserFileService userFileService;
+
+  @Inject
+  private PlanFileService planFileService;
+
+  @Inject
+  private MVStoreUserService mvStoreUserService;
+
+  @Inject
+  private MVStorePlanService mvStorePlanService;
+
+  /**
+   * Runs the migration, that is configured with {@code game_plan.migration.mode} (if any).
+   */
+  public void runConfiguredMigration() {
+    if (mode == MigrationMode.NONE) {
+      return;
+    }
+
+    int exitCode = 0;
+    try {
+      MigrationResult result = switch (mode) {
+        case IMPORT -> migrate(userFileService, planFileService, mvStoreUserService, mvStorePlanService);
+        case EXPORT -> migrate(mvStoreUserService, mvStorePlanService, userFileService, planFileService);
+        case NONE -> throw new IllegalStateException("No migration configured");
+      };
+      if (!result.isSuccessful()) {
+        exitCode = 1;
+      }
+    }
+    catch (GamePlanPersistenceException e) {
+      log.error("The migration failed: {}", e.getMessage(), e);
+      exitCode = 1;
+    }
+
+    if (exitAfterMigration) {
+      Quarkus.asyncExit(exitCode);
+    }
+  }
+
+  /**
+   * Copies all users and plans of the source to the target.
+   */
+  public MigrationResult migrate(UserService sourceUsers, PlanService sourcePlans, UserService targetUsers, PlanService targetPlans) throws GamePlanPersistenceException {
+    List<String> users = sourceUsers.getUsers();
+    log.info("Migrating the plans of {} users (using {} threads)", users.size(), threads);
+
+    Progress progress = new Progress(users.size());
+    // at most two users per thread are queued, so the users are not loaded faster than they are migrated
+    Semaphore queuedUsers = new Semaphore(threads * 2);
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "plan-migration");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      for (String user : users) {
+        queuedUsers.acquireUninterruptibly();
+        executor.execute(() -> {
+          try {
+            migrateUser(user, sourcePlans, targetUsers, targetPlans, progress);
+          }
+          catch (RuntimeException e) {
+            progress.failed(user + ": " + e);
+          }
+          finally {
+            queuedUsers.release();
+          }
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GamePlanPersistenceException("The migration was interrupted.", e);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    MigrationResult result = progress.toResult();
+    log.info("Migrated {} users and {} plans ({} failed, {} mismatched)", result.users(), result.plans(), result.failedPlans().size(), result.mismatchedPlans().size());
+    result.failedPlans().forEach(plan -> log.warn("Failed to migrate plan {}", plan));
+    result.mismatchedPlans().forEach(plan -> log.warn("The migrated plan {} differs from the original plan", plan));
+    return result;
+  }
+
+  private void migrateUser(String user, PlanService sourcePlans, UserService targetUsers, PlanService targetPlans, Progress progress) {
+    List<String> planNames;
+    try {
+      if (!targetUsers.userExists(user)) {
+        targetUsers.createUser(user);
+      }
+      planNames = sourcePlans.getPlanNames(user);
+    }
+    catch (GamePlanPersistenceException e) {
+      progress.failed(user + ": " + e.getMessage());
+      progress.userMigrated();
+      return;
+    }
+
+    for (String planName : planNames) {
+      String key = user + "/" + planName;
+      try {
+        PlanDto plan = sourcePlans.getUncachedPlan(user, planName);
+        validate(planName, plan);
+        // a copy is imported, because the target sets the modification time of the plan
+        targetPlans.importPlan(user, plan.copy());
+        progress.planMigrated();
+        progress.logIfDue();
+
+        if (verify) {
+          verify(key, plan, targetPlans.getUncachedPlan(user, planName), progress);
+        }
+      }
+      catch (GamePlanPersistenceException | IllegalArgumentException e) {
+        progress.failed(key + ": " + e.getMessage());
+      }
+    }
+    progress.userMigrated();
+  }
+
+  /**
+   * Checks that the plan can be stored under its name and that its resource changes match their resource types.
+   *
+   * @throws IllegalArgumentException if the plan is not valid
+   */
+  private static void validate(String planName, PlanDto plan) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(plan.name);
+    if (!planName.equals(plan.name)) {
+      throw new IllegalArgumentException("The plan is named '" + plan.name + "'.");
+    }
+    if (plan.gameName == null || plan.gameName.isBlank()) {
+      throw new IllegalArgumentException("The plan has no game.");
+    }
+    PlanCompiler.compile(null, plan);
+  }
+
+  /**
+   * Compares the content of the plans (except for their last modification time, that is set when the plan is saved).
+   */
+  private static void verify(String key, PlanDto plan, PlanDto migratedPlan, Progress progress) {
+    List<PlanPatchOperationDto> differences = PlanPatcher.diff(plan, migratedPlan);
+    if (differences == null || !differences.isEmpty()) {
+      progress.mismatched(key);
+    }
+  }
+
+  /**
+   * Counts the migrated users and plans (of all threads) and logs the progress regularly.
+   */
+  private static class Progress {
+
+    private final int userCount;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong lastLogTime = new AtomicLong(startTime);
+    private final AtomicInteger users = new AtomicInteger();
+    private final AtomicInteger plans = new AtomicInteger();
+    private final List<String> failedPlans = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> mismatchedPlans = Collections.synchronizedList(new ArrayList<>());
+
+    private Progress(int userCount) {
+      this.userCount = userCount;
+    }
+
+    private void userMigrated() {
+      users.incrementAndGet();
+    }
+
+    private void planMigrated() {
+      plans.incrementAndGet();
+    }
+
+    private void failed(String plan) {
+      failedPlans.add(plan);
+    }
+
+    private void mismatched(String plan) {
+      mismatchedPlans.add(plan);
+    }
+
+    private void logIfDue() {
+      long now = System.nanoTime();
+      long lastLog = lastLogTime.get();
+      if (now - lastLog >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS) && lastLogTime.compareAndSet(lastLog, now)) {
+        log.info("Migrated {}/{} users and {} plans in {} s", users.get(), userCount, plans.get(), TimeUnit.NANOSECONDS.toSeconds(now - startTime));
+      }
+    }
+
+    private MigrationResult toResult() {
+      // called after all users are migrated, so the lists are not changed anymore
+      return new MigrationResult(users.get(), plans.get(), List.copyOf(failedPlans), List.copyOf(mismatchedPlans));
+    }
+  }
+}
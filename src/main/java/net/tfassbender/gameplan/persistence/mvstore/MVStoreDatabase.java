@@ -0,0 +1,156 @@
+package net.tfassbender.gameplan.persistence.mvstore;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.file.AtomicFileWriter.FsyncPolicy;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The embedded MVStore database file, that stores the users and plans if {@code game_plan.storage.backend} is set to
+ * {@code mvstore}.
+ * <p>
+ * The changes are committed explicitly (the auto commit of the MVStore is disabled), so the changes of a single write
+ * operation (that might change multiple maps) are always committed together. When the committed changes are synced
+ * to the disk is configured with {@code game_plan.fsync.policy} (like for the plan files).
+ */
+@ApplicationScoped
+public class MVStoreDatabase {
+
+  private static final Logger log = LoggerFactory.getLogger(MVStoreDatabase.class);
+
+  /**
+   * Changes the maps of the database.
+   */
+  @FunctionalInterface
+  public interface Changes {
+
+    void apply() throws GamePlanPersistenceException;
+  }
+
+  @ConfigProperty(name = "game_plan.path")
+  private String gamePlanPath;
+
+  @ConfigProperty(name = "game_plan.storage.mvstore.file", defaultValue = "gameplan.mv.db")
+  private String fileName;
+
+  @ConfigProperty(name = "game_plan.fsync.policy", defaultValue = "always")
+  private FsyncPolicy fsyncPolicy;
+
+  @ConfigProperty(name = "game_plan.fsync.batch_interval_ms", defaultValue = "100")
+  private long batchIntervalMillis;
+
+  // the write operations share the lock, so a commit never contains only a part of the changes of an operation
+  private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+  private MVStore store;
+  private ScheduledExecutorService commitExecutor;
+
+  public <K, V> MVMap<K, V> openMap(String name) throws GamePlanPersistenceException {
+    return getStore().openMap(name);
+  }
+
+  /**
+   * Applies the changes and commits them according to the fsync policy.
+   */
+  public void write(Changes changes) throws GamePlanPersistenceException {
+    MVStore mvStore = getStore();
+    commitLock.readLock().lock();
+    try {
+      changes.apply();
+    }
+    finally {
+      commitLock.readLock().unlock();
+    }
+
+    if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+      try {
+        commit(mvStore, true);
+      }
+      catch (RuntimeException e) {
+        throw new GamePlanPersistenceException("Failed to commit the changes to the MVStore database.", e);
+      }
+    }
+  }
+
+  private synchronized MVStore getStore() throws GamePlanPersistenceException {
+    if (store == null) {
+      Path file = Paths.get(gamePlanPath).resolve(fileName);
+      try {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        log.info("Opening the MVStore database '{}'", file);
+        store = new MVStore.Builder().fileName(file.toString()).autoCommitDisabled().open();
+      }
+      catch (Exception e) {
+        throw new GamePlanPersistenceException("Failed to open the MVStore database: " + file, e);
+      }
+
+      if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+        MVStore mvStore = store;
+        commitExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "mvstore-commit");
+          thread.setDaemon(true);
+          return thread;
+        });
+        commitExecutor.scheduleWithFixedDelay(() -> commitInBackground(mvStore), batchIntervalMillis, batchIntervalMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    return store;
+  }
+
+  private void commitInBackground(MVStore mvStore) {
+    try {
+      // the changes are only synced to the disk with the policy BATCHED (with NEVER the operating system decides)
+      commit(mvStore, fsyncPolicy == FsyncPolicy.BATCHED);
+    }
+    catch (RuntimeException e) {
+      log.error("Failed to commit the changes to the MVStore database: {}", e.getMessage(), e);
+    }
+  }
+
+  private void commit(MVStore mvStore, boolean sync) {
+    commitLock.writeLock().lock();
+    try {
+      if (!mvStore.isClosed()) {
+        mvStore.commit();
+        if (sync) {
+          mvStore.sync();
+        }
+      }
+    }
+    finally {
+      commitLock.writeLock().unlock();
+    }
+  }
+
+  @PreDestroy
+  public synchronized void close() {
+    if (commitExecutor != null) {
+      commitExecutor.shutdownNow();
+      commitExecutor = null;
+    }
+    if (store != null) {
+      commitLock.writeLock().lock();
+      try {
+        // closing the store commits the remaining changes
+        store.close();
+      }
+      finally {
+        commitLock.writeLock().unlock();
+      }
+      store = null;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package net.tfassbender.gameplan.persistence.mvstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the JSON values of the MVStore database (like the {@code PersistenceJsonMapper} for the files).
+ */
+@ApplicationScoped
+public class MVStoreJsonMapper {
+
+  private final ObjectReader planReader;
+  private final ObjectWriter planWriter;
+  private final ObjectReader planInfoReader;
+  private final ObjectWriter planInfoWriter;
+
+  @Inject
+  public MVStoreJsonMapper(ObjectMapper objectMapper) {
+    planReader = objectMapper.readerFor(PlanDto.class);
+    planWriter = objectMapper.writerFor(PlanDto.class);
+    planInfoReader = objectMapper.readerFor(MVStorePlanInfo.class);
+    planInfoWriter = objectMapper.writerFor(MVStorePlanInfo.class);
+  }
+
+  public PlanDto readPlan(byte[] data, int offset, int length) throws IOException {
+    return planReader.readValue(data, offset, length);
+  }
+
+  public byte[] writePlan(PlanDto plan) throws IOException {
+    return planWriter.writeValueAsBytes(plan);
+  }
+
+  public MVStorePlanInfo readPlanInfo(byte[] json) throws IOException {
+    return planInfoReader.readValue(json);
+  }
+
+  public MVStorePlanInfo readPlanInfo(byte[] data, int offset, int length) throws IOException {
+    return planInfoReader.readValue(data, offset, length);
+  }
+
+  public byte[] writePlanInfo(MVStorePlanInfo planInfo) throws IOException {
+    return planInfoWriter.writeValueAsBytes(planInfo);
+  }
+}
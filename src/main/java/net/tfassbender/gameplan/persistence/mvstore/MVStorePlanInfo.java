@@ -0,0 +1,14 @@
+package net.tfassbender.gameplan.persistence.mvstore;
+
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+
+/**
+ * The metadata of a plan in the MVStore database, that is stored separately from the plan, so the plans of a user can
+ * be listed without loading them.
+ *
+ * @param created the creation time of the plan (in milliseconds since the epoch)
+ * @param revision the number of the saved revision of the plan (starting with 1)
+ * @param modified the time of the last change of the plan (in milliseconds since the epoch)
+ * @param summary the summary of the plan
+ */
+public record MVStorePlanInfo(long created, long revision, long modified, PlanSummaryDto summary) {}
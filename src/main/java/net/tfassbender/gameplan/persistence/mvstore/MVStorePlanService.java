@@ -0,0 +1,386 @@
+package net.tfassbender.gameplan.persistence.mvstore;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.exception.GamePlanConflictException;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.metrics.Measured;
+import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.PlanPatcher;
+import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
+import net.tfassbender.gameplan.persistence.VersionedPlan;
+import net.tfassbender.gameplan.util.FileUtil;
+import net.tfassbender.gameplan.util.StripedLock;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Stores the plans in the MVStore database.
+ * <p>
+ * The plans are stored in the map {@value #PLANS_MAP} together with their metadata, so a plan and its version are
+ * always read with a single (atomic) get, without a lock. The metadata is additionally stored in the map
+ * {@value #PLAN_INFOS_MAP}, so the plans of a user can be listed without loading them. Both maps use the key
+ * {@code <username>/<planName>}, so all plans of a user are found by a range scan of the sorted keys (the names can't
+ * contain a {@code /}).
+ */
+@Measured
+@ApplicationScoped
+@Typed(MVStorePlanService.class)
+public class MVStorePlanService implements PlanService {
+
+  private static final Logger log = LoggerFactory.getLogger(MVStorePlanService.class);
+
+  static final String PLANS_MAP = "plans";
+  static final String PLAN_INFOS_MAP = "plan_infos";
+
+  private static final int USER_LOCK_STRIPES = 64;
+  // the format of the values of the plans map: the format byte, the length of the info, the info and the plan
+  private static final byte STORED_PLAN_FORMAT = 1;
+  private static final int STORED_PLAN_HEADER_LENGTH = 5;
+
+  @Inject
+  private MVStoreDatabase database;
+
+  @Inject
+  private MVStoreJsonMapper jsonMapper;
+
+  @Inject
+  private MVStoreUserService userService;
+
+  @Inject
+  private GameService gameService;
+
+  @Inject
+  private GamePlanMetrics metrics;
+
+  // serializes the changes of the plans of a user (the read operations don't need the lock)
+  private final StripedLock userLocks = new StripedLock(USER_LOCK_STRIPES);
+
+  public List<String> getPlanNames(String username) throws GamePlanPersistenceException {
+    return getPlanInfos(username).stream().map(info -> info.summary().name).toList();
+  }
+
+  public List<PlanSummaryDto> getPlanSummaries(String username) throws GamePlanPersistenceException {
+    return getPlanInfos(username).stream().map(MVStorePlanInfo::summary).toList();
+  }
+
+  public PlanDto getPlan(String username, String planName) throws GamePlanPersistenceException {
+    return getVersionedPlan(username, planName).plan();
+  }
+
+  public VersionedPlan getVersionedPlan(String username, String planName) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    // the plan and its info are stored in the same value, so they always belong together
+    byte[] storedPlan = getStoredPlan(getKey(username, planName), planName);
+    MVStorePlanInfo info = readStoredPlanInfo(storedPlan, planName);
+    return new VersionedPlan(readPlan(storedPlan, planName), getVersion(info));
+  }
+
+  public ResourceVersion getPlanVersion(String username, String planName) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    String key = getKey(username, planName);
+    return getVersion(readStoredPlanInfo(getStoredPlan(key, planName), planName));
+  }
+
+  public PlanDto createPlan(String username, String gameName) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(gameName);
+
+    GameDto game = gameService.getGame(gameName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      PlanDto newPlan = new PlanDto();
+      newPlan.name = getUniquePlanName(username, gameName);
+      newPlan.gameName = gameName;
+      newPlan.resourceTypes.putAll(game.resources);
+      newPlan.resourceOrder.addAll(game.resourceOrder);
+      PlanStageDto initialStage = new PlanStageDto();
+      initialStage.resourceChanges.putAll(game.defaultStartingResources.resourceChanges);
+      initialStage.description = game.defaultStartingResources.description;
+      newPlan.stages.add(initialStage);
+
+      log.info("Creating new plan '{}' for user '{}'", newPlan.name, username);
+      writePlan(username, newPlan, null);
+      return newPlan;
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  public VersionedPlan clonePlan(String username, String originalPlanName) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(originalPlanName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      PlanDto originalPlan = readPlan(getStoredPlan(getKey(username, originalPlanName), originalPlanName), originalPlanName);
+      PlanDto clonedPlan = originalPlan.createClone(getUniquePlanName(username, originalPlan.gameName));
+
+      log.info("Cloning plan '{}' of user '{}' to plan '{}'", originalPlanName, username, clonedPlan.name);
+      return writePlan(username, clonedPlan, null);
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  private String getUniquePlanName(String username, String gameName) throws GamePlanPersistenceException {
+    Set<String> existingPlanNames = new HashSet<>(getPlanNames(username));
+    String candidate = gameName;
+    int counter = 1;
+    while (existingPlanNames.contains(candidate)) {
+      candidate = gameName + "_" + counter;
+      counter++;
+    }
+    return candidate;
+  }
+
+  public VersionedPlan savePlan(String username, PlanDto plan, String expectedVersion) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    if (plan == null) {
+      throw new GamePlanPersistenceException("PlanDto cannot be null.");
+    }
+    FileUtil.checkResourceNameValid(plan.name);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      // like with the plan files, only existing plans can be saved
+      String key = getKey(username, plan.name);
+      MVStorePlanInfo info = readStoredPlanInfo(getStoredPlan(key, plan.name), plan.name);
+      checkVersion(plan.name, expectedVersion, info);
+
+      log.debug("Saving plan '{}' for user '{}'", plan.name, username);
+      return writePlan(username, plan, info);
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  public VersionedPlan importPlan(String username, PlanDto plan) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    if (plan == null) {
+      throw new GamePlanPersistenceException("PlanDto cannot be null.");
+    }
+    FileUtil.checkResourceNameValid(plan.name);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      String key = getKey(username, plan.name);
+      byte[] storedPlan = getPlansMap().get(key);
+      MVStorePlanInfo info = storedPlan != null ? readStoredPlanInfo(storedPlan, plan.name) : null;
+
+      log.debug("Importing plan '{}' for user '{}'", plan.name, username);
+      return writePlan(username, plan, info);
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  public VersionedPlan patchPlan(String username, String planName, List<PlanPatchOperationDto> operations, String expectedVersion) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      String key = getKey(username, planName);
+      byte[] storedPlan = getStoredPlan(key, planName);
+      MVStorePlanInfo info = readStoredPlanInfo(storedPlan, planName);
+      checkVersion(planName, expectedVersion, info);
+
+      PlanDto plan = readPlan(storedPlan, planName);
+      PlanPatcher.apply(plan, operations);
+      return writePlan(username, plan, info);
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  public void deletePlan(String username, String planName) throws GamePlanPersistenceException {
+    checkUserExists(username);
+    FileUtil.checkResourceNameValid(planName);
+
+    Lock userLock = userLocks.get(username);
+    userLock.lock();
+    try {
+      String key = getKey(username, planName);
+      getStoredPlan(key, planName);
+
+      log.info("Deleting plan '{}' for user '{}'", planName, username);
+      MVMap<String, byte[]> plans = getPlansMap();
+      MVMap<String, byte[]> planInfos = getPlanInfosMap();
+      database.write(() -> {
+        planInfos.remove(key);
+        plans.remove(key);
+      });
+    }
+    finally {
+      userLock.unlock();
+    }
+  }
+
+  /**
+   * Writes the plan and its info (the user lock has to be held).
+   *
+   * @param info the info of the stored plan, or {@code null} if the plan is new
+   */
+  private VersionedPlan writePlan(String username, PlanDto plan, MVStorePlanInfo info) throws GamePlanPersistenceException {
+    long now = System.currentTimeMillis();
+    plan.lastModified = getTimestampAsString(now);
+    MVStorePlanInfo newInfo = new MVStorePlanInfo(info != null ? info.created() : now, info != null ? info.revision() + 1 : 1, now, PlanSummaryDto.of(plan));
+
+    String key = getKey(username, plan.name);
+    byte[] planJson;
+    byte[] infoJson;
+    try {
+      planJson = jsonMapper.writePlan(plan);
+      infoJson = jsonMapper.writePlanInfo(newInfo);
+    }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to serialize plan: " + plan.name, e);
+    }
+
+    byte[] storedPlan = ByteBuffer.allocate(STORED_PLAN_HEADER_LENGTH + infoJson.length + planJson.length) //
+            .put(STORED_PLAN_FORMAT).putInt(infoJson.length).put(infoJson).put(planJson).array();
+
+    MVMap<String, byte[]> plans = getPlansMap();
+    MVMap<String, byte[]> planInfos = getPlanInfosMap();
+    database.write(() -> {
+      plans.put(key, storedPlan);
+      planInfos.put(key, infoJson);
+    });
+    metrics.recordPlanWritten(planJson.length, plan.stages != null ? plan.stages.size() : 0);
+    return new VersionedPlan(plan, getVersion(newInfo));
+  }
+
+  private List<MVStorePlanInfo> getPlanInfos(String username) throws GamePlanPersistenceException {
+    checkUserExists(username);
+
+    String prefix = getKey(username, "");
+    List<MVStorePlanInfo> infos = new ArrayList<>();
+    Cursor<String, byte[]> cursor = getPlanInfosMap().cursor(prefix);
+    while (cursor.hasNext()) {
+      String key = cursor.next();
+      if (!key.startsWith(prefix)) {
+        break;
+      }
+      infos.add(readPlanInfo(cursor.getValue(), key));
+    }
+    // the plans are listed in the order they were created (like the plan files)
+    infos.sort(Comparator.comparingLong(MVStorePlanInfo::created).thenComparing(info -> info.summary().name));
+    return infos;
+  }
+
+  private byte[] getStoredPlan(String key, String planName) throws GamePlanPersistenceException {
+    byte[] storedPlan = getPlansMap().get(key);
+    if (storedPlan == null) {
+      throw new GamePlanResourceNotFoundException("Plan '" + planName + "' does not exist.");
+    }
+    if (storedPlan.length < STORED_PLAN_HEADER_LENGTH || storedPlan[0] != STORED_PLAN_FORMAT) {
+      throw new GamePlanPersistenceException("Plan '" + planName + "' is stored in an unknown format.");
+    }
+    return storedPlan;
+  }
+
+  private MVStorePlanInfo readStoredPlanInfo(byte[] storedPlan, String planName) throws GamePlanPersistenceException {
+    int infoLength = ByteBuffer.wrap(storedPlan, 1, 4).getInt();
+    try {
+      return jsonMapper.readPlanInfo(storedPlan, STORED_PLAN_HEADER_LENGTH, infoLength);
+    }
+    catch (IOException | IndexOutOfBoundsException e) {
+      throw new GamePlanPersistenceException("Failed to read the info of plan: " + planName, e);
+    }
+  }
+
+  private static void checkVersion(String planName, String expectedVersion, MVStorePlanInfo info) throws GamePlanConflictException {
+    String currentVersion = getVersion(info).tag();
+    if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+      throw new GamePlanConflictException("Plan '" + planName + "' was changed in the meantime (expected version '" + expectedVersion + "', current version '" + currentVersion + "').");
+    }
+  }
+
+  private static ResourceVersion getVersion(MVStorePlanInfo info) {
+    return new ResourceVersion(Long.toHexString(info.created()) + "-" + Long.toHexString(info.revision()), Instant.ofEpochMilli(info.modified()));
+  }
+
+  private void checkUserExists(String username) throws GamePlanPersistenceException {
+    if (!userService.userExists(username)) {
+      throw new GamePlanResourceNotFoundException("User '" + username + "' does not exist.");
+    }
+  }
+
+  private PlanDto readPlan(byte[] storedPlan, String planName) throws GamePlanPersistenceException {
+    int planOffset = STORED_PLAN_HEADER_LENGTH + ByteBuffer.wrap(storedPlan, 1, 4).getInt();
+    int planLength = storedPlan.length - planOffset;
+    try {
+      long start = System.nanoTime();
+      PlanDto plan = jsonMapper.readPlan(storedPlan, planOffset, planLength);
+      metrics.recordPlanRead(planLength, plan.stages != null ? plan.stages.size() : 0, System.nanoTime() - start);
+      return plan;
+    }
+    catch (IOException | IndexOutOfBoundsException e) {
+      throw new GamePlanPersistenceException("Failed to read plan: " + planName, e);
+    }
+  }
+
+  private MVStorePlanInfo readPlanInfo(byte[] json, String key) throws GamePlanPersistenceException {
+    try {
+      return jsonMapper.readPlanInfo(json);
+    }
+    catch (IOException e) {
+      throw new GamePlanPersistenceException("Failed to read the info of plan: " + key, e);
+    }
+  }
+
+  private MVMap<String, byte[]> getPlansMap() throws GamePlanPersistenceException {
+    return database.openMap(PLANS_MAP);
+  }
+
+  private MVMap<String, byte[]> getPlanInfosMap() throws GamePlanPersistenceException {
+    return database.openMap(PLAN_INFOS_MAP);
+  }
+
+  private static String getKey(String username, String planName) {
+    return username + "/" + planName;
+  }
+
+  private static String getTimestampAsString(long time) {
+    return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").format(new Date(time));
+  }
+}
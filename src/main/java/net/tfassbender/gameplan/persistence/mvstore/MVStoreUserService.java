@@ -0,0 +1,53 @@
+package net.tfassbender.gameplan.persistence.mvstore;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.exception.GamePlanResourceAlreadyExistingException;
+import net.tfassbender.gameplan.metrics.Measured;
+import net.tfassbender.gameplan.persistence.UserService;
+import net.tfassbender.gameplan.util.FileUtil;
+import org.h2.mvstore.MVMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the users in the MVStore database (mapping the user names to their creation time).
+ */
+@Measured
+@ApplicationScoped
+@Typed(MVStoreUserService.class)
+public class MVStoreUserService implements UserService {
+
+  static final String USERS_MAP = "users";
+
+  @Inject
+  private MVStoreDatabase database;
+
+  public List<String> getUsers() throws GamePlanPersistenceException {
+    return new ArrayList<>(getUsersMap().keySet());
+  }
+
+  public void createUser(String name) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(name);
+
+    MVMap<String, Long> users = getUsersMap();
+    database.write(() -> {
+      if (users.putIfAbsent(name, System.currentTimeMillis()) != null) {
+        throw new GamePlanResourceAlreadyExistingException("User '" + name + "' already exists.");
+      }
+    });
+  }
+
+  public boolean userExists(String name) throws GamePlanPersistenceException {
+    FileUtil.checkResourceNameValid(name);
+
+    return getUsersMap().containsKey(name);
+  }
+
+  private MVMap<String, Long> getUsersMap() throws GamePlanPersistenceException {
+    return database.openMap(USERS_MAP);
+  }
+}
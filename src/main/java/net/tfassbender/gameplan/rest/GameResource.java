@@ -1,15 +1,21 @@
 package net.tfassbender.gameplan.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.calculation.PlanValidationService;
 import net.tfassbender.gameplan.dto.ErrorResponse;
 import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.GameValidationDto;
 import net.tfassbender.gameplan.exception.GamePlanInvalidResourceNameException;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
 import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -17,13 +23,20 @@ import java.util.List;
 
 @Path("/games")
 @Produces(MediaType.APPLICATION_JSON)
+@CompressedResponse
 @Consumes(MediaType.APPLICATION_JSON)
 public class GameResource {
 
+  public static final int MAX_VALIDATION_PAGE_SIZE = 200;
+
   @Inject
   private GameService gameService;
 
+  @Inject
+  private PlanValidationService planValidationService;
+
   @GET
+  @RunOnVirtualThread
   public Response getGames() {
     List<String> gameNames;
     try {
@@ -42,14 +55,26 @@ public class GameResource {
     return Response.ok(gameNames).build();
   }
 
+  /**
+   * Gets a game config. Conditional requests ({@code If-None-Match} or {@code If-Modified-Since}) are answered with
+   * {@code 304 Not Modified}, if the config was not changed.
+   */
   @Path("/{gameName}")
   @GET
-  public Response getGameDetails(@PathParam("gameName") String gameName) {
+  @RunOnVirtualThread
+  public Response getGameDetails(@PathParam("gameName") String gameName, @Context Request request) {
     String decodedGameName = URLDecoder.decode(gameName, StandardCharsets.UTF_8);
 
     try {
+      // the version is read before the config, so the config is never older than the sent ETag
+      ResourceVersion version = gameService.getGameVersion(decodedGameName);
+      Response.ResponseBuilder notModified = ResourceVersions.evaluatePreconditions(request, version);
+      if (notModified != null) {
+        return notModified.build();
+      }
+
       GameDto gameDetails = gameService.getGame(decodedGameName);
-      return Response.ok(gameDetails).build();
+      return ResourceVersions.withVersion(Response.ok(gameDetails), version).build();
     }
     catch (GamePlanInvalidResourceNameException e) {
       return Response.status(Response.Status.BAD_REQUEST) //
@@ -64,4 +89,37 @@ public class GameResource {
               .entity(new ErrorResponse("Failed to retrieve game details for '" + gameName + "': " + e.getMessage())).build();
     }
   }
+
+  /**
+   * Validates a page of the plans of the game (of all users) and lists the invalid plans. The plans are paged, because
+   * every plan of the page is read and calculated.
+   */
+  @Path("/{gameName}/validation")
+  @GET
+  @RunOnVirtualThread
+  public Response validateGamePlans(@PathParam("gameName") String gameName, @QueryParam("page") @DefaultValue("0") int page,
+                                    @QueryParam("pageSize") @DefaultValue("50") int pageSize) {
+    String decodedGameName = URLDecoder.decode(gameName, StandardCharsets.UTF_8);
+    if (page < 0 || pageSize < 1 || pageSize > MAX_VALIDATION_PAGE_SIZE) {
+      return Response.status(Response.Status.BAD_REQUEST) //
+              .entity(new ErrorResponse("Invalid paging parameters: page must be >= 0 and pageSize between 1 and " + MAX_VALIDATION_PAGE_SIZE + ".")).build();
+    }
+
+    try {
+      GameValidationDto validation = planValidationService.validateGame(decodedGameName, page, pageSize);
+      return Response.ok(validation).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST) //
+              .entity(new ErrorResponse("Invalid game name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND) //
+              .entity(new ErrorResponse("Config for a game with name '" + gameName + "' not found.")).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR) //
+              .entity(new ErrorResponse("Failed to validate the plans of game '" + gameName + "': " + e.getMessage())).build();
+    }
+  }
 }
@@ -1,29 +1,67 @@
 package net.tfassbender.gameplan.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import net.tfassbender.gameplan.calculation.PlanSimulationService;
+import net.tfassbender.gameplan.calculation.PlanTotalsService;
+import net.tfassbender.gameplan.calculation.PlanValidationService;
 import net.tfassbender.gameplan.dto.ErrorResponse;
 import net.tfassbender.gameplan.dto.PlanCloneDto;
 import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.dto.PlanTotalsDto;
+import net.tfassbender.gameplan.dto.PlanValidationDto;
+import net.tfassbender.gameplan.dto.PlanVariantDto;
+import net.tfassbender.gameplan.dto.PlanVariantResultDto;
+import net.tfassbender.gameplan.exception.GamePlanConflictException;
 import net.tfassbender.gameplan.exception.GamePlanInvalidResourceNameException;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
 import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
 import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
+import net.tfassbender.gameplan.persistence.StoredPlanFile;
+import net.tfassbender.gameplan.persistence.VersionedPlan;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Path("users/{username}/plans")
 @Produces(MediaType.APPLICATION_JSON)
+@CompressedResponse
 public class PlanResource {
 
+  public static final String STAGE_COUNT_HEADER = "X-Stage-Count";
+  public static final String PLAN_VALID_HEADER = "X-Plan-Valid";
+  public static final String FIRST_NEGATIVE_STAGE_HEADER = "X-Plan-First-Negative-Stage";
+
+  @ConfigProperty(name = "game_plan.plan_streaming.enabled", defaultValue = "true")
+  private boolean planStreamingEnabled;
+
   @Inject
   private PlanService planService;
 
+  @Inject
+  private PlanTotalsService planTotalsService;
+
+  @Inject
+  private PlanSimulationService planSimulationService;
+
+  @Inject
+  private PlanValidationService planValidationService;
+
   @GET
+  @RunOnVirtualThread
   public Response getPlans(@PathParam("username") String username) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
 
@@ -42,15 +80,60 @@ public class PlanResource {
     }
   }
 
+  /**
+   * Gets a plan. Conditional requests ({@code If-None-Match} or {@code If-Modified-Since}) are answered with
+   * {@code 304 Not Modified} without loading the plan, if the plan was not changed.
+   * <p>
+   * With {@code fromStage} and/or {@code toStage} (both inclusive) only these stages of the plan are sent, so clients
+   * can page through very long plans. The total number of stages is sent in the header {@value #STAGE_COUNT_HEADER}.
+   * If the plan is stored in a file (in the format of the response), the file is sent without loading the plan. The
+   * file is opened before the headers are created, so the sent content always matches the version in the headers.
+   */
   @Path("/{planName}")
   @GET
-  public Response getPlan(@PathParam("username") String username, @PathParam("planName") String planName) {
+  @RunOnVirtualThread
+  public Response getPlan(@PathParam("username") String username, @PathParam("planName") String planName, @QueryParam("fromStage") Integer fromStage,
+                          @QueryParam("toStage") Integer toStage, @Context Request request) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
     String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+    if ((fromStage != null && fromStage < 0) || (toStage != null && toStage < (fromStage != null ? fromStage : 0))) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid stage range: fromStage must be >= 0 and toStage >= fromStage.")).build();
+    }
+    boolean stageRange = fromStage != null || toStage != null;
+    int firstStage = fromStage != null ? fromStage : 0;
+    int lastStage = toStage != null ? toStage : Integer.MAX_VALUE;
 
     try {
-      PlanDto planDto = planService.getPlan(decodedUsername, decodedPlanName);
-      return Response.ok(planDto).build();
+      ResourceVersion version = planService.getPlanVersion(decodedUsername, decodedPlanName);
+      Response.ResponseBuilder notModified = ResourceVersions.evaluatePreconditions(request, version);
+      if (notModified != null) {
+        return notModified.build();
+      }
+
+      Optional<StoredPlanFile> planFile = planStreamingEnabled ? planService.findPlanFile(decodedUsername, decodedPlanName) : Optional.empty();
+      if (planFile.isPresent()) {
+        StoredPlanFile storedPlanFile = planFile.get();
+        // the whole file is copied to the (compressed) response - a range of stages is streamed
+        StreamingOutput output = outputStream -> {
+          try (storedPlanFile) {
+            if (stageRange) {
+              storedPlanFile.writeStages(outputStream, firstStage, lastStage);
+            }
+            else {
+              storedPlanFile.writeTo(outputStream);
+            }
+          }
+        };
+        return ResourceVersions.withVersion(Response.ok(output), storedPlanFile.version()).header(STAGE_COUNT_HEADER, storedPlanFile.stageCount()).build();
+      }
+
+      VersionedPlan versionedPlan = planService.getVersionedPlan(decodedUsername, decodedPlanName);
+      PlanDto plan = versionedPlan.plan();
+      int stageCount = plan.stages != null ? plan.stages.size() : 0;
+      if (stageRange && plan.stages != null) {
+        plan.stages = new ArrayList<>(plan.stages.subList(Math.min(firstStage, stageCount), (int) Math.min(lastStage + 1L, stageCount)));
+      }
+      return ResourceVersions.withVersion(Response.ok(plan), versionedPlan.version()).header(STAGE_COUNT_HEADER, stageCount).build();
     }
     catch (GamePlanInvalidResourceNameException e) {
       return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
@@ -63,8 +146,90 @@ public class PlanResource {
     }
   }
 
+  @Path("/{planName}/totals")
+  @GET
+  @RunOnVirtualThread
+  public Response getPlanTotals(@PathParam("username") String username, @PathParam("planName") String planName, @QueryParam("upToStage") Integer upToStage) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+
+    try {
+      PlanTotalsDto totals = planTotalsService.getTotals(decodedUsername, decodedPlanName, upToStage);
+      return Response.ok(totals).build();
+    }
+    catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid stage: " + e.getMessage())).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Plan not found: " + e.getMessage())).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error calculating plan totals: " + e.getMessage())).build();
+    }
+  }
+
+  /**
+   * Validates a plan: lists the stages, after which a resource total (or a power bowl) is negative, and the changes
+   * that don't match the resource types of the game config.
+   */
+  @Path("/{planName}/validation")
+  @GET
+  @RunOnVirtualThread
+  public Response validatePlan(@PathParam("username") String username, @PathParam("planName") String planName) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+
+    try {
+      PlanValidationDto validation = planValidationService.validate(decodedUsername, decodedPlanName);
+      return Response.ok(validation).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Plan not found: " + e.getMessage())).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error validating plan: " + e.getMessage())).build();
+    }
+  }
+
+  /**
+   * Simulates variants of a plan (e.g. to compare the totals of different strategies) without changing or storing the
+   * plan. The changes of each variant are described by patch operations (like in a {@code PATCH} request).
+   */
+  @Path("/{planName}/simulate")
+  @POST
+  @RunOnVirtualThread
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Response simulatePlan(@PathParam("username") String username, @PathParam("planName") String planName, List<PlanVariantDto> variants) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+
+    try {
+      List<PlanVariantResultDto> results = planSimulationService.simulate(decodedUsername, decodedPlanName, variants);
+      return Response.ok(results).build();
+    }
+    catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid variants: " + e.getMessage())).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Plan not found: " + e.getMessage())).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error simulating plan: " + e.getMessage())).build();
+    }
+  }
+
   @Path("/{gameName}")
   @POST
+  @RunOnVirtualThread
   public Response createPlan(@PathParam("username") String username, @PathParam("gameName") String gameName) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
     String decodedGameName = URLDecoder.decode(gameName, StandardCharsets.UTF_8);
@@ -85,17 +250,13 @@ public class PlanResource {
   }
 
   @POST
+  @RunOnVirtualThread
   public Response clonePlan(@PathParam("username") String username, PlanCloneDto planCloneDto) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
 
     try {
-      PlanDto originalPlan = planService.getPlan(decodedUsername, planCloneDto.originalPlanName);
-      PlanDto clonedPlan = planService.createPlan(decodedUsername, originalPlan.gameName);
-      clonedPlan.stages = originalPlan.stages; // Copy stages from the original plan
-      clonedPlan.description = "Cloned from '" + originalPlan.name + "'\n" + originalPlan.description;
-      planService.savePlan(decodedUsername, clonedPlan); // Save the cloned plan
-
-      return Response.status(Response.Status.CREATED).entity(clonedPlan).build();
+      VersionedPlan clonedPlan = planService.clonePlan(decodedUsername, planCloneDto.originalPlanName);
+      return ResourceVersions.withVersion(Response.status(Response.Status.CREATED).entity(clonedPlan.plan()), clonedPlan.version()).build();
     }
     catch (GamePlanInvalidResourceNameException e) {
       return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
@@ -108,14 +269,61 @@ public class PlanResource {
     }
   }
 
+  /**
+   * Updates a plan. If the request contains an {@code If-Match} header (with the ETag of the plan, that the changes are
+   * based on), the plan is only updated if it was not changed in the meantime.
+   * <p>
+   * If {@code game_plan.validation.on_save} is enabled, the result of the validation of the saved plan is sent in the
+   * headers {@value #PLAN_VALID_HEADER} and {@value #FIRST_NEGATIVE_STAGE_HEADER}.
+   */
   @PUT
+  @RunOnVirtualThread
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Response updatePlan(@PathParam("username") String username, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, PlanDto planDto) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+
+    try {
+      VersionedPlan updatedPlan = planService.savePlan(decodedUsername, planDto, ResourceVersions.getExpectedVersion(ifMatch));
+      return withValidation(ResourceVersions.withVersion(Response.ok(updatedPlan.plan()), updatedPlan.version()), decodedUsername, updatedPlan).build();
+    }
+    catch (GamePlanConflictException e) {
+      return Response.status(Response.Status.CONFLICT).entity(new ErrorResponse("Plan was changed: " + e.getMessage())).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Plan not found: " + e.getMessage())).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error updating plan: " + e.getMessage())).build();
+    }
+  }
+
+  /**
+   * Changes single stages of a plan (or the description of the plan), so the whole plan does not need to be sent for
+   * every change. The operations are applied in the given order and only if all of them are valid. The response
+   * contains no plan, but the new ETag (to be sent in the {@code If-Match} header of the next change) and the headers
+   * of the validation (see {@link #updatePlan(String, String, PlanDto)}).
+   */
+  @Path("/{planName}")
+  @PATCH
+  @RunOnVirtualThread
   @Consumes(MediaType.APPLICATION_JSON)
-  public Response updatePlan(@PathParam("username") String username, PlanDto planDto) {
+  public Response patchPlan(@PathParam("username") String username, @PathParam("planName") String planName, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                            List<PlanPatchOperationDto> operations) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
 
     try {
-      PlanDto updatedPlan = planService.savePlan(decodedUsername, planDto);
-      return Response.ok(updatedPlan).build();
+      VersionedPlan updatedPlan = planService.patchPlan(decodedUsername, decodedPlanName, operations, ResourceVersions.getExpectedVersion(ifMatch));
+      return withValidation(ResourceVersions.withVersion(Response.noContent(), updatedPlan.version()), decodedUsername, updatedPlan).build();
+    }
+    catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid patch: " + e.getMessage())).build();
+    }
+    catch (GamePlanConflictException e) {
+      return Response.status(Response.Status.CONFLICT).entity(new ErrorResponse("Plan was changed: " + e.getMessage())).build();
     }
     catch (GamePlanInvalidResourceNameException e) {
       return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + e.getMessage())).build();
@@ -130,6 +338,7 @@ public class PlanResource {
 
   @Path("/{planName}")
   @DELETE
+  @RunOnVirtualThread
   public Response deletePlan(@PathParam("username") String username, @PathParam("planName") String planName) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
     String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
@@ -148,4 +357,21 @@ public class PlanResource {
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error deleting plan: " + e.getMessage())).build();
     }
   }
+
+  /**
+   * Adds the result of the validation of a saved plan to the response, if the plans are validated on save. The plan is
+   * saved anyway, because plans with negative totals are allowed (like in the frontend).
+   */
+  private Response.ResponseBuilder withValidation(Response.ResponseBuilder response, String username, VersionedPlan savedPlan) {
+    if (!planValidationService.isValidateOnSave()) {
+      return response;
+    }
+
+    PlanValidationDto validation = planValidationService.validate(username, savedPlan.plan());
+    response.header(PLAN_VALID_HEADER, validation.valid);
+    if (validation.firstNegativeStage != null) {
+      response.header(FIRST_NEGATIVE_STAGE_HEADER, validation.firstNegativeStage);
+    }
+    return response;
+  }
 }
@@ -0,0 +1,72 @@
+package net.tfassbender.gameplan.rest;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.dto.ErrorResponse;
+import net.tfassbender.gameplan.dto.PlanSummaryDto;
+import net.tfassbender.gameplan.dto.PlanSummaryPageDto;
+import net.tfassbender.gameplan.exception.GamePlanInvalidResourceNameException;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.persistence.PlanService;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the summaries of the plans of a user (without the stages of the plans), sorted by the last modification
+ * (most recent first).
+ */
+@Path("users/{username}/plan-summaries")
+@Produces(MediaType.APPLICATION_JSON)
+public class PlanSummaryResource {
+
+  public static final int MAX_PAGE_SIZE = 500;
+
+  private static final Comparator<PlanSummaryDto> MOST_RECENT_FIRST = Comparator //
+          .comparing((PlanSummaryDto summary) -> summary.lastModified, Comparator.nullsFirst(Comparator.naturalOrder())) //
+          .reversed() //
+          .thenComparing(summary -> summary.name);
+
+  @Inject
+  private PlanService planService;
+
+  @GET
+  @RunOnVirtualThread
+  public Response getPlanSummaries(@PathParam("username") String username, @QueryParam("page") @DefaultValue("0") int page,
+                                   @QueryParam("pageSize") @DefaultValue("50") int pageSize) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    if (page < 0 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      return Response.status(Response.Status.BAD_REQUEST) //
+              .entity(new ErrorResponse("Invalid paging parameters: page must be >= 0 and pageSize between 1 and " + MAX_PAGE_SIZE + ".")).build();
+    }
+
+    try {
+      List<PlanSummaryDto> summaries = planService.getPlanSummaries(decodedUsername).stream().sorted(MOST_RECENT_FIRST).toList();
+
+      PlanSummaryPageDto summaryPage = new PlanSummaryPageDto();
+      summaryPage.page = page;
+      summaryPage.pageSize = pageSize;
+      summaryPage.totalCount = summaries.size();
+      int fromIndex = (int) Math.min((long) page * pageSize, summaries.size());
+      int toIndex = Math.min(fromIndex + pageSize, summaries.size());
+      summaryPage.summaries.addAll(summaries.subList(fromIndex, toIndex));
+
+      return Response.ok(summaryPage).build();
+    }
+    catch (GamePlanInvalidResourceNameException e) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid user name: " + e.getMessage())).build();
+    }
+    catch (GamePlanResourceNotFoundException e) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("User not found '" + decodedUsername + "'.")).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse("Error retrieving plan summaries: " + e.getMessage())).build();
+    }
+  }
+}
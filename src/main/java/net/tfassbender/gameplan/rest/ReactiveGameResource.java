@@ -0,0 +1,52 @@
+package net.tfassbender.gameplan.rest;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.dto.ErrorResponse;
+import net.tfassbender.gameplan.exception.GamePlanInvalidResourceNameException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.persistence.ReactiveGameService;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The non-blocking variant of the {@link GameResource}, that serves the requests on the event loop.
+ */
+@Path("reactive/games")
+@Produces(MediaType.APPLICATION_JSON)
+public class ReactiveGameResource {
+
+  @Inject
+  private ReactiveGameService gameService;
+
+  @GET
+  public Uni<Response> getGames() {
+    return gameService.getGameNames() //
+            .map(gameNames -> Response.ok(gameNames).build()) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Failed to retrieve game configurations"));
+  }
+
+  @Path("/{gameName}")
+  @GET
+  public Uni<Response> getGameDetails(@PathParam("gameName") String gameName) {
+    String decodedGameName = URLDecoder.decode(gameName, StandardCharsets.UTF_8);
+
+    return gameService.getGame(decodedGameName) //
+            .map(game -> Response.ok(game).build()) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Failed to retrieve game details for '" + gameName + "'"));
+  }
+
+  private static Response toErrorResponse(Throwable failure, String message) {
+    if (failure instanceof GamePlanInvalidResourceNameException) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid game name: " + failure.getMessage())).build();
+    }
+    if (failure instanceof GamePlanResourceNotFoundException) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Game not found: " + failure.getMessage())).build();
+    }
+    return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse(message + ": " + failure.getMessage())).build();
+  }
+}
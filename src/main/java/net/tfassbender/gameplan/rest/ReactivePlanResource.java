@@ -0,0 +1,99 @@
+package net.tfassbender.gameplan.rest;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.dto.ErrorResponse;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.exception.GamePlanConflictException;
+import net.tfassbender.gameplan.exception.GamePlanInvalidResourceNameException;
+import net.tfassbender.gameplan.exception.GamePlanResourceNotFoundException;
+import net.tfassbender.gameplan.persistence.ReactivePlanService;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The non-blocking variant of the {@link PlanResource}, that serves the requests on the event loop (using the
+ * {@link ReactivePlanService}). It provides the same responses as the {@link PlanResource}, so both can be compared in
+ * benchmarks and load tests.
+ */
+@Path("reactive/users/{username}/plans")
+@Produces(MediaType.APPLICATION_JSON)
+public class ReactivePlanResource {
+
+  @Inject
+  private ReactivePlanService planService;
+
+  @GET
+  public Uni<Response> getPlans(@PathParam("username") String username) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+
+    return planService.getPlanNames(decodedUsername) //
+            .map(planNames -> Response.ok(planNames).build()) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Error retrieving plans"));
+  }
+
+  /**
+   * Gets a plan. Conditional requests are answered with {@code 304 Not Modified}, if the plan was not changed (the plan
+   * is loaded anyway, because reading it from the index is as cheap as reading its version).
+   */
+  @Path("/{planName}")
+  @GET
+  public Uni<Response> getPlan(@PathParam("username") String username, @PathParam("planName") String planName, @Context Request request) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+
+    return planService.getVersionedPlan(decodedUsername, decodedPlanName) //
+            .map(versionedPlan -> {
+              Response.ResponseBuilder notModified = ResourceVersions.evaluatePreconditions(request, versionedPlan.version());
+              if (notModified != null) {
+                return notModified.build();
+              }
+              return ResourceVersions.withVersion(Response.ok(versionedPlan.plan()), versionedPlan.version()).build();
+            }) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Error retrieving plan"));
+  }
+
+  @PUT
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Uni<Response> updatePlan(@PathParam("username") String username, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch, PlanDto planDto) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+
+    return planService.savePlan(decodedUsername, planDto, ResourceVersions.getExpectedVersion(ifMatch)) //
+            .map(updatedPlan -> ResourceVersions.withVersion(Response.ok(updatedPlan.plan()), updatedPlan.version()).build()) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Error updating plan"));
+  }
+
+  @Path("/{planName}")
+  @DELETE
+  public Uni<Response> deletePlan(@PathParam("username") String username, @PathParam("planName") String planName) {
+    String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
+    String decodedPlanName = URLDecoder.decode(planName, StandardCharsets.UTF_8);
+
+    return planService.deletePlan(decodedUsername, decodedPlanName) //
+            .map(deleted -> Response.noContent().build()) //
+            .onFailure().recoverWithItem(e -> toErrorResponse(e, "Error deleting plan"));
+  }
+
+  /**
+   * Maps the failures of the {@link ReactivePlanService} to the same responses as the {@link PlanResource}.
+   */
+  private static Response toErrorResponse(Throwable failure, String message) {
+    if (failure instanceof GamePlanConflictException) {
+      return Response.status(Response.Status.CONFLICT).entity(new ErrorResponse("Plan was changed: " + failure.getMessage())).build();
+    }
+    if (failure instanceof GamePlanInvalidResourceNameException) {
+      return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse("Invalid resource name: " + failure.getMessage())).build();
+    }
+    if (failure instanceof GamePlanResourceNotFoundException) {
+      return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse("Plan not found: " + failure.getMessage())).build();
+    }
+    return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ErrorResponse(message + ": " + failure.getMessage())).build();
+  }
+}
@@ -0,0 +1,91 @@
+package net.tfassbender.gameplan.rest;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.persistence.ResourceVersion;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Maps the versions of stored resources to the HTTP headers for conditional requests ({@code ETag},
+ * {@code Last-Modified}, {@code If-None-Match}, {@code If-Modified-Since} and {@code If-Match}).
+ */
+final class ResourceVersions {
+
+  /**
+   * The suffix of the ETags of gzip compressed responses, that are a different representation of the same version (see
+   * {@link ResponseCompressionInterceptor}).
+   */
+  static final String GZIP_TAG_SUFFIX = "-gzip";
+
+  private ResourceVersions() {}
+
+  /**
+   * Evaluates the conditional headers of a request against the current version of a resource, before the resource
+   * itself is loaded. The ETag of the compressed representation (see {@link #getGzipTag(Object)}) matches the same
+   * version, but is sent back in a {@code 304 Not Modified} response, because the client cached that representation.
+   *
+   * @return a response builder (e.g. for a {@code 304 Not Modified} response), if the resource does not need to be
+   *         sent, or {@code null} if the request has to be processed
+   */
+  static Response.ResponseBuilder evaluatePreconditions(Request request, ResourceVersion version) {
+    Date lastModified = getLastModified(version);
+    Response.ResponseBuilder builder = request.evaluatePreconditions(lastModified, new EntityTag(version.tag()));
+    if (builder != null) {
+      return withVersion(builder, version);
+    }
+    EntityTag gzipTag = getGzipTag(new EntityTag(version.tag()));
+    builder = request.evaluatePreconditions(lastModified, gzipTag);
+    return builder == null ? null : withVersion(builder, version).tag(gzipTag);
+  }
+
+  /**
+   * Creates the ETag of the gzip compressed representation of a resource from the ETag of the uncompressed one. Both
+   * representations must have different (strong) ETags, because their content differs.
+   */
+  static EntityTag getGzipTag(Object etag) {
+    EntityTag tag = etag instanceof EntityTag entityTag ? entityTag : EntityTag.valueOf(etag.toString());
+    return new EntityTag(tag.getValue() + GZIP_TAG_SUFFIX, tag.isWeak());
+  }
+
+  /**
+   * Adds the {@code ETag} and {@code Last-Modified} headers of a resource to a response. The response must be
+   * revalidated before it's used from a cache, because the resources can be changed at any time.
+   */
+  static Response.ResponseBuilder withVersion(Response.ResponseBuilder builder, ResourceVersion version) {
+    return builder.tag(new EntityTag(version.tag())) //
+            .lastModified(getLastModified(version)) //
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache");
+  }
+
+  /**
+   * Extracts the expected version from an {@code If-Match} header (the version is an opaque ETag value). The ETag of
+   * a compressed response refers to the same version as the uncompressed one.
+   *
+   * @return the expected version or {@code null} if any version can be overwritten
+   */
+  static String getExpectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+    String version = ifMatch.trim();
+    if (version.startsWith("W/")) {
+      version = version.substring(2);
+    }
+    if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+      version = version.substring(1, version.length() - 1);
+    }
+    if (version.endsWith(GZIP_TAG_SUFFIX)) {
+      version = version.substring(0, version.length() - GZIP_TAG_SUFFIX.length());
+    }
+    return version;
+  }
+
+  private static Date getLastModified(ResourceVersion version) {
+    // HTTP dates have a precision of seconds
+    return Date.from(version.lastModified().truncatedTo(ChronoUnit.SECONDS));
+  }
+}
@@ -0,0 +1,135 @@
+package net.tfassbender.gameplan.rest;
+
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import net.tfassbender.gameplan.util.CompressionUtil;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the responses of the resources, that are annotated with {@link CompressedResponse}, with gzip, if the
+ * client accepts it ({@code Accept-Encoding}) and the response is at least {@code game_plan.http_compression.min_size}
+ * bytes big. Smaller responses are sent uncompressed, because the compression would not save much, but costs time.
+ * <p>
+ * The response is buffered only up to the minimum size, so big responses are compressed while they are written. The
+ * compression is configured with {@code game_plan.http_compression.enabled} and {@code game_plan.http_compression.level}
+ * (from 1 = fastest to 9 = smallest). Compressed responses get an own ETag (with the suffix {@code -gzip}), because
+ * they are a different representation of the resource.
+ */
+@Provider
+@CompressedResponse
+public class ResponseCompressionInterceptor implements WriterInterceptor {
+
+  @ConfigProperty(name = "game_plan.http_compression.enabled", defaultValue = "true")
+  private boolean enabled;
+
+  @ConfigProperty(name = "game_plan.http_compression.min_size", defaultValue = "1024")
+  private int minSize;
+
+  @ConfigProperty(name = "game_plan.http_compression.level", defaultValue = "6")
+  private int level;
+
+  @Context
+  private HttpHeaders requestHeaders;
+
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    MultivaluedMap<String, Object> headers = context.getHeaders();
+    if (!enabled || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+      context.proceed();
+      return;
+    }
+
+    // caches have to store the compressed and the uncompressed responses separately
+    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (!CompressionUtil.acceptsGzip(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+      context.proceed();
+      return;
+    }
+
+    CompressingOutputStream outputStream = new CompressingOutputStream(context.getOutputStream(), headers);
+    context.setOutputStream(outputStream);
+    context.proceed();
+    outputStream.finish();
+  }
+
+  /**
+   * Buffers the response until it's known whether it reaches the minimum size. The headers are not sent before the
+   * first bytes are written to the response, so the {@code Content-Encoding} header can still be set then.
+   */
+  private class CompressingOutputStream extends OutputStream {
+
+    private final OutputStream response;
+    private final MultivaluedMap<String, Object> headers;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private GZIPOutputStream compressed;
+    private boolean finished;
+
+    private CompressingOutputStream(OutputStream response, MultivaluedMap<String, Object> headers) {
+      this.response = response;
+      this.headers = headers;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      if (compressed != null) {
+        compressed.write(bytes, offset, length);
+        return;
+      }
+      buffer.write(bytes, offset, length);
+      if (buffer.size() >= minSize) {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, CompressionUtil.GZIP);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag != null) {
+          headers.putSingle(HttpHeaders.ETAG, ResourceVersions.getGzipTag(etag));
+        }
+        compressed = CompressionUtil.gzip(response, level);
+        buffer.writeTo(compressed);
+        buffer = null;
+      }
+    }
+
+    /**
+     * Writes the rest of the response (without closing the response stream).
+     */
+    private void finish() throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (compressed != null) {
+        compressed.finish();
+      }
+      else {
+        buffer.writeTo(response);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // flushing is delayed until the buffer is written (otherwise the headers would be sent too early)
+      if (compressed != null) {
+        compressed.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      finish();
+      response.close();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package net.tfassbender.gameplan.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.dto.TraceSpanDto;
+import net.tfassbender.gameplan.metrics.PersistenceTracer;
+
+import java.util.List;
+
+/**
+ * Provides the sampled traces of the persistence layer, that are kept in memory (see {@link PersistenceTracer}).
+ */
+@Path("/traces")
+@Produces(MediaType.APPLICATION_JSON)
+public class TraceResource {
+
+  @Inject
+  private PersistenceTracer tracer;
+
+  /**
+   * Gets the recent spans (the newest first), optionally only the spans of one operation (service method).
+   */
+  @GET
+  public Response getTraces(@QueryParam("operation") String operation) {
+    List<TraceSpanDto> spans = tracer.getRecentSpans();
+    if (operation != null) {
+      spans = spans.stream().filter(span -> span.operation.equals(operation)).toList();
+    }
+    return Response.ok(spans).build();
+  }
+}
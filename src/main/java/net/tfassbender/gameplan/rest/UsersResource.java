@@ -1,5 +1,6 @@
 package net.tfassbender.gameplan.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -23,6 +24,7 @@ public class UsersResource {
 
   @Path("/{username}")
   @POST
+  @RunOnVirtualThread
   public Response createUser(@PathParam("username") String username) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
     try {
@@ -44,6 +46,7 @@ public class UsersResource {
 
   @Path("/{username}")
   @GET
+  @RunOnVirtualThread
   public Response userExists(@PathParam("username") String username) {
     String decodedUsername = URLDecoder.decode(username, StandardCharsets.UTF_8);
     boolean exists;
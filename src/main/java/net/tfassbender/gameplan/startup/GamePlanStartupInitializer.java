@@ -5,9 +5,11 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
-import net.tfassbender.gameplan.persistence.GameService;
+import net.tfassbender.gameplan.persistence.file.GameConfigWatcher;
 import net.tfassbender.gameplan.persistence.file.GameFileService;
+import net.tfassbender.gameplan.persistence.file.PlanFileIndex;
 import net.tfassbender.gameplan.persistence.file.UserFileService;
+import net.tfassbender.gameplan.persistence.migration.StorageMigration;
 import net.tfassbender.gameplan.util.FileUtil;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
@@ -24,7 +26,16 @@ public class GamePlanStartupInitializer {
   private String gamePlanPath;
 
   @Inject
-  private GameService gameService;
+  private GameFileService gameFileService;
+
+  @Inject
+  private GameConfigWatcher gameConfigWatcher;
+
+  @Inject
+  private StorageMigration storageMigration;
+
+  @Inject
+  private StartupWarmUp startupWarmUp;
 
   void onStartup(@Observes StartupEvent startupEvent) {
     log.info("GamePlan application is starting up...");
@@ -43,12 +54,27 @@ public class GamePlanStartupInitializer {
       FileUtil.createDirectoryIfNotExists(gamesDir);
       Path usersDir = gamePlanDir.resolve(UserFileService.USERS_SUB_DIR);
       FileUtil.createDirectoryIfNotExists(usersDir);
+      Path indexDir = gamePlanDir.resolve(PlanFileIndex.INDEX_SUB_DIR);
+      FileUtil.createDirectoryIfNotExists(indexDir);
     }
     catch (GamePlanPersistenceException e) {
       log.error("Failed to create necessary directories for GamePlan application: {}", e.getMessage(), e);
       return;
     }
 
+    try {
+      gameFileService.loadGameCatalog();
+      log.info("Loaded game configs: {}", gameFileService.getGameNames());
+      gameConfigWatcher.start();
+    }
+    catch (GamePlanPersistenceException e) {
+      // the game configs are still loaded on demand, but changes of existing configs are not noticed
+      log.error("Failed to initialize the game catalog: {}", e.getMessage(), e);
+    }
+
+    storageMigration.runConfiguredMigration();
+    startupWarmUp.start();
+
     log.info("GamePlan application startup completed successfully.");
   }
 }
@@ -0,0 +1,32 @@
+package net.tfassbender.gameplan.startup;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import net.tfassbender.gameplan.dto.*;
+import net.tfassbender.gameplan.dto.resource.*;
+import net.tfassbender.gameplan.persistence.file.BinaryPlanContent;
+import net.tfassbender.gameplan.persistence.file.PlanIndexFileEntry;
+import net.tfassbender.gameplan.persistence.file.PlanLogEntry;
+import net.tfassbender.gameplan.persistence.mvstore.MVStorePlanInfo;
+
+/**
+ * Registers the classes, that are (de-)serialized by Jackson, for reflection in the native image.
+ * <p>
+ * Quarkus registers only the parameter and return types of the REST endpoints, but not the subtypes of the polymorphic
+ * {@link ResourceChangeValue} (that are only referenced in the {@code @JsonSubTypes} annotation) and the classes that
+ * are only used by the persistence layer. New DTOs have to be added here.
+ */
+@RegisterForReflection(targets = { //
+        // REST and persistence DTOs
+        PlanDto.class, PlanStageDto.class, PlanSummaryDto.class, PlanSummaryPageDto.class, PlanTotalsDto.class, //
+        PlanPatchOperationDto.class, PlanCloneDto.class, PlanVariantDto.class, PlanVariantResultDto.class, //
+        PlanValidationDto.class, PlanValidationIssueDto.class, PlanValidationIssueDto.Type.class, GameValidationDto.class, GameDto.class, UserDto.class, ErrorResponse.class, TraceSpanDto.class, //
+        ResourceChangeValue.class, ResourceType.class, //
+
+        // the subtypes of the resource changes
+        SimpleResourceChange.class, SimpleCombinedResourceChange.class, AbsoluteResourceChange.class, OneTimeCombinedResourceChange.class, //
+        TerraMysticaPowerResourceChange.class, TerraMysticaCultsResourceChange.class, //
+
+        // the files and database entries of the persistence layer
+        PlanIndexFileEntry.class, PlanLogEntry.class, BinaryPlanContent.class, MVStorePlanInfo.class //
+})
+public class NativeReflectionConfiguration {}
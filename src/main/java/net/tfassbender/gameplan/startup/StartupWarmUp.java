@@ -0,0 +1,190 @@
+package net.tfassbender.gameplan.startup;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.calculation.ResourceTotalsCalculator;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.resource.*;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.PlanService;
+import net.tfassbender.gameplan.persistence.UserService;
+import net.tfassbender.gameplan.persistence.file.BinaryPlanContent;
+import net.tfassbender.gameplan.persistence.file.PersistenceJsonMapper;
+import net.tfassbender.gameplan.persistence.file.UserFileService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the server after the start, so the first requests don't have to wait for the class loading and the
+ * introspection of the DTOs by Jackson (especially the subtypes of the resource changes), or for the first read of the
+ * plan files:
+ * <ul>
+ *   <li>a plan with all types of resource changes is serialized and parsed (as JSON and in the binary format) and its
+ *   totals are calculated</li>
+ *   <li>the plan indexes of the {@code game_plan.warm_up.users} most recently active users are loaded (by the
+ *   modification time of their user directories), on {@code game_plan.warm_up.threads} threads</li>
+ * </ul>
+ * The warm-up runs in the background, so the server accepts requests while it's running.
+ */
+@ApplicationScoped
+public class StartupWarmUp {
+
+  private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+
+  @ConfigProperty(name = "game_plan.path")
+  private String gamePlanPath;
+
+  @ConfigProperty(name = "game_plan.warm_up.users", defaultValue = "50")
+  private int warmUpUsers;
+
+  @ConfigProperty(name = "game_plan.warm_up.threads", defaultValue = "2")
+  private int warmUpThreads;
+
+  @Inject
+  private PersistenceJsonMapper jsonMapper;
+
+  @Inject
+  private PlanService planService;
+
+  @Inject
+  private UserService userService;
+
+  /**
+   * Starts the warm-up in the background.
+   *
+   * @return a future, that is completed when the warm-up is done
+   */
+  public CompletableFuture<Void> start() {
+    long startTime = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(warmUpThreads, 1), runnable -> {
+      Thread thread = new Thread(runnable, "warm-up");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    CompletableFuture<Void> serialization = CompletableFuture.runAsync(this::warmUpSerialization, executor);
+    CompletableFuture<Void> users = CompletableFuture.supplyAsync(this::getRecentlyActiveUsers, executor) //
+            .thenCompose(usernames -> warmUpUsers(usernames, executor));
+
+    return CompletableFuture.allOf(serialization, users).whenComplete((result, error) -> {
+      executor.shutdown();
+      if (error != null) {
+        log.warn("The warm-up failed: {}", error.getMessage(), error);
+      }
+      else {
+        log.info("Warm-up completed in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+      }
+    });
+  }
+
+  /**
+   * Serializes and parses a plan with all types of resource changes, so Jackson has introspected all DTOs before the
+   * first plan is requested.
+   */
+  void warmUpSerialization() {
+    PlanDto plan = new PlanDto();
+    plan.name = "WarmUp";
+    PlanStageDto stage = new PlanStageDto();
+    stage.resourceChanges.put("simple", new SimpleResourceChange(1));
+    stage.resourceChanges.put("absolute", new AbsoluteResourceChange(1));
+    stage.resourceChanges.put("simple_combined", new SimpleCombinedResourceChange(Map.of("a", 1), Map.of("a", "#000000")));
+    stage.resourceChanges.put("one_time_combined", new OneTimeCombinedResourceChange(Map.of("a", true), Map.of("a", "#000000")));
+    stage.resourceChanges.put("terra_mystica_power", new TerraMysticaPowerResourceChange(5, 7, 0, 0, 0, 0));
+    stage.resourceChanges.put("terra_mystica_cults", new TerraMysticaCultsResourceChange(0, 0, 0, 0));
+    plan.stages.add(stage);
+
+    try {
+      ByteArrayOutputStream json = new ByteArrayOutputStream();
+      jsonMapper.writePlan(json, plan);
+      jsonMapper.readPlan(new ByteArrayInputStream(json.toByteArray()));
+
+      ByteArrayOutputStream binary = new ByteArrayOutputStream();
+      jsonMapper.writeBinaryPlanContent(binary, new BinaryPlanContent(Map.of("simple_combined", Map.of("a", "#000000")), plan));
+      jsonMapper.readBinaryPlanContent(new ByteArrayInputStream(binary.toByteArray()));
+    }
+    catch (IOException e) {
+      log.warn("Failed to warm up the serialization of the plans: {}", e.getMessage(), e);
+    }
+    ResourceTotalsCalculator.calculateSnapshots(plan.stages);
+  }
+
+  /**
+   * The users, that changed their plans most recently (the users that are not stored in user directories are added
+   * last).
+   */
+  List<String> getRecentlyActiveUsers() {
+    if (warmUpUsers <= 0) {
+      return List.of();
+    }
+
+    List<String> users;
+    try {
+      users = userService.getUsers();
+    }
+    catch (GamePlanPersistenceException e) {
+      log.warn("Failed to list the users for the warm-up: {}", e.getMessage(), e);
+      return List.of();
+    }
+
+    // the modification time of a user directory is changed by every save (because the plan files are replaced)
+    Path usersDir = Path.of(gamePlanPath, UserFileService.USERS_SUB_DIR);
+    Map<String, FileTime> modifiedTimes = new HashMap<>();
+    for (String user : users) {
+      modifiedTimes.put(user, getLastModifiedTime(usersDir.resolve(user)));
+    }
+    return users.stream() //
+            .sorted(Comparator.comparing(modifiedTimes::get, Comparator.reverseOrder())) //
+            .limit(warmUpUsers) //
+            .toList();
+  }
+
+  private CompletableFuture<Void> warmUpUsers(List<String> usernames, ExecutorService executor) {
+    AtomicInteger plans = new AtomicInteger();
+    CompletableFuture<?>[] futures = usernames.stream() //
+            .map(username -> CompletableFuture.runAsync(() -> plans.addAndGet(warmUpUser(username)), executor)) //
+            .toArray(CompletableFuture[]::new);
+    return CompletableFuture.allOf(futures).thenRun(() -> {
+      if (!usernames.isEmpty()) {
+        log.info("Loaded the plan indexes of {} users ({} plans)", usernames.size(), plans.get());
+      }
+    });
+  }
+
+  private int warmUpUser(String username) {
+    try {
+      return planService.getPlanSummaries(username).size();
+    }
+    catch (GamePlanPersistenceException e) {
+      log.warn("Failed to load the plans of user '{}' for the warm-up: {}", username, e.getMessage());
+      return 0;
+    }
+  }
+
+  private static FileTime getLastModifiedTime(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    }
+    catch (IOException e) {
+      // not stored in a user directory (e.g. in the MVStore database)
+      return FileTime.fromMillis(0);
+    }
+  }
+}
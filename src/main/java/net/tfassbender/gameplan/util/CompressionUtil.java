@@ -0,0 +1,70 @@
+package net.tfassbender.gameplan.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helpers for the gzip compression of the plan files and the responses of the REST API.
+ */
+public class CompressionUtil {
+
+  public static final String GZIP = "gzip";
+
+  private CompressionUtil() {}
+
+  /**
+   * Creates a gzip stream with the given compression level (from 1 = fastest to 9 = smallest).
+   */
+  public static GZIPOutputStream gzip(OutputStream outputStream, int level) throws IOException {
+    return new GZIPOutputStream(outputStream, 8192) {
+      {
+        def.setLevel(level);
+      }
+    };
+  }
+
+  /**
+   * Checks whether the content (or at least its first two bytes) starts with the gzip magic number.
+   */
+  public static boolean isGzip(byte[] content) {
+    return content.length >= 2 && (content[0] & 0xff) == 0x1f && (content[1] & 0xff) == 0x8b;
+  }
+
+  /**
+   * Checks whether the value of an {@code Accept-Encoding} header allows a gzip compressed response. An explicit
+   * {@code gzip} entry takes precedence over the wildcard {@code *} (e.g. {@code *;q=1, gzip;q=0} does not allow gzip).
+   */
+  public static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Boolean wildcardAccepted = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      if (name.equalsIgnoreCase(GZIP)) {
+        return !hasZeroQuality(parts);
+      }
+      if (name.equals("*") && wildcardAccepted == null) {
+        wildcardAccepted = !hasZeroQuality(parts);
+      }
+    }
+    return Boolean.TRUE.equals(wildcardAccepted);
+  }
+
+  private static boolean hasZeroQuality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2)) <= 0;
+        }
+        catch (NumberFormatException e) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
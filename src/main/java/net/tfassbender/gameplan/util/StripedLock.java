@@ -0,0 +1,31 @@
+package net.tfassbender.gameplan.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed number of locks, that are shared by all keys that are mapped to the same stripe. So operations on the same
+ * key are serialized, while operations on (most) other keys can run in parallel, without creating a lock per key.
+ */
+public class StripedLock {
+
+  private final Lock[] locks;
+
+  /**
+   * @param stripes the number of locks (rounded up to the next power of two)
+   */
+  public StripedLock(int stripes) {
+    int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+    locks = new Lock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  public Lock get(String key) {
+    int hash = key.hashCode();
+    // spread the higher bits, because only the lower bits are used for the index
+    hash ^= hash >>> 16;
+    return locks[hash & (locks.length - 1)];
+  }
+}
@@ -0,0 +1,143 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that the compiled plans are evaluated like the plans in the {@link ResourceTotalsCalculator}.
+ */
+public class PlanCompilerTest {
+
+  @Test
+  void testLayoutUsesTheResourceOrderOfTheGame() {
+    GameDto game = new GameDto();
+    game.resourceOrder.addAll(List.of("Points", "Power", "Cults"));
+    game.resources.putAll(Map.of("Points", ResourceType.SIMPLE, "Power", ResourceType.TERRA_MYSTICA_POWER, "Cults", ResourceType.SIMPLE_COMBINED));
+    game.defaultStartingResources.resourceChanges.put("Cults", new SimpleCombinedResourceChange(Map.of("Fire", 0), Map.of()));
+
+    ResourceLayout layout = PlanCompiler.createLayout(game);
+
+    assertThat(layout.getResourceNames(), is(List.of("Points", "Power", "Cults")));
+    assertThat(layout.getSlot("Points"), is(0));
+    assertThat(layout.getSlot("Power"), is(1));
+    assertThat(layout.getSlot("Cults", "Fire"), is(4));
+    assertThat(layout.getSlotCount(), is(5));
+  }
+
+  @Test
+  void testEvaluationMatchesTheResourceTotalsCalculator() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(15), //
+                    "Power", new TerraMysticaPowerResourceChange(5, 7, 0, 0, 0, 0), //
+                    "Round", new AbsoluteResourceChange(1), //
+                    "Cults", new SimpleCombinedResourceChange(Map.of("Fire", 1, "Water", 2), Map.of()), //
+                    "Buildings", new OneTimeCombinedResourceChange(Map.of("Fortress", true), Map.of()))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-5), //
+                    "Power", new TerraMysticaPowerResourceChange(0, 0, 0, 7, 0, 0), //
+                    "TmCults", new TerraMysticaCultsResourceChange(1, 0, 2, 0))), //
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(0, 0, 0, 0, 1, 3), //
+                    "Round", new AbsoluteResourceChange(2), //
+                    "Cults", new SimpleCombinedResourceChange(Map.of("Fire", 2), null), //
+                    "Buildings", new OneTimeCombinedResourceChange(Map.of("Fortress", false), Map.of()))));
+
+    CompiledPlan plan = PlanCompiler.compile(null, stages);
+    PlanEvaluationState state = plan.newState();
+    plan.evaluate(state);
+    StageSnapshot snapshot = ResourceTotalsCalculator.calculateSnapshots(stages).get(2);
+    ResourceLayout layout = plan.getLayout();
+
+    assertThat(state.getValue(layout.getSlot("Gold")), is(((SimpleResourceChange) snapshot.totals().get("Gold")).value()));
+    TerraMysticaPowerResourceChange power = (TerraMysticaPowerResourceChange) snapshot.totals().get("Power");
+    int powerSlot = layout.getSlot("Power");
+    assertThat(List.of(state.getValue(powerSlot), state.getValue(powerSlot + 1), state.getValue(powerSlot + 2)), //
+            is(List.of(power.bowl1(), power.bowl2(), power.bowl3())));
+    assertThat(state.getValue(layout.getSlot("Round")), is(((AbsoluteResourceChange) snapshot.totals().get("Round")).value()));
+    assertThat(state.getValue(layout.getSlot("TmCults") + ResourceLayout.CULT_EARTH), is(((TerraMysticaCultsResourceChange) snapshot.totals().get("TmCults")).earth()));
+    assertThat(state.getValue(layout.getSlot("Cults", "Fire")), is(((SimpleCombinedResourceChange) snapshot.totals().get("Cults")).resources().get("Fire")));
+    assertThat(state.getBit(layout.getBit("Buildings", "Fortress")), is(false));
+    assertThat(state.isBitDefined(layout.getBit("Buildings", "Fortress")), is(true));
+    assertThat(state.isValid(), is(snapshot.isValid()));
+  }
+
+  @Test
+  void testNegativeStagesAreCollected() {
+    CompiledPlan plan = PlanCompiler.compile(null, List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(2))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-3))), //
+            stage(Map.of("Gold", new SimpleResourceChange(5))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-5)))));
+    PlanEvaluationState state = plan.newState();
+    long[] negativeStages = plan.newStageBitSet();
+
+    plan.evaluate(state, 3, negativeStages);
+
+    assertThat(state.getFirstNegativeStage(), is(1));
+    assertThat(negativeStages[0], is(0b1010L));
+    assertThat(state.getValue(plan.getLayout().getSlot("Gold")), is(-1));
+  }
+
+  @Test
+  void testStateCanBeReusedAndEvaluationContinued() {
+    CompiledPlan plan = PlanCompiler.compile(null, List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(2))), //
+            stage(Map.of("Gold", new SimpleResourceChange(3)))));
+    PlanEvaluationState state = plan.newState();
+    int gold = plan.getLayout().getSlot("Gold");
+
+    plan.evaluate(state, 0, null);
+    assertThat(state.getValue(gold), is(2));
+    plan.evaluateNextStages(state, 1, null);
+    assertThat(state.getValue(gold), is(5));
+    plan.evaluate(state);
+    assertThat(state.getValue(gold), is(5));
+    assertThat(state.getEvaluatedStages(), is(2));
+  }
+
+  @Test
+  void testChangeWithWrongTypeIsRejected() {
+    GameDto game = new GameDto();
+    game.resources.put("Gold", ResourceType.SIMPLE);
+
+    assertThrows(IllegalArgumentException.class, () -> PlanCompiler.compile(game, List.of(stage(Map.of("Gold", new AbsoluteResourceChange(3))))));
+  }
+
+  @Test
+  void testTotalsContainTheChangedResources() {
+    GameDto game = new GameDto();
+    game.resources.putAll(Map.of("Gold", ResourceType.SIMPLE, "Wood", ResourceType.SIMPLE, "Cults", ResourceType.SIMPLE_COMBINED));
+    game.defaultStartingResources.resourceChanges.put("Cults", new SimpleCombinedResourceChange(Map.of("Fire", 0, "Water", 0), Map.of()));
+    CompiledPlan plan = PlanCompiler.compile(game, List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(3), "Cults", new SimpleCombinedResourceChange(Map.of("Fire", 2), null))), //
+            stage(Map.of("Gold", new SimpleResourceChange(4), //
+                    "Power", new TerraMysticaPowerResourceChange(5, 7, 0, 2, 0, 0), //
+                    "Buildings", new OneTimeCombinedResourceChange(Map.of("Fortress", true), null)))));
+    PlanEvaluationState state = plan.newState();
+    plan.evaluate(state);
+
+    Map<String, ResourceChangeValue> totals = plan.getTotals(state);
+
+    // the resources of the game, that were not changed, are not part of the totals
+    assertThat(totals.keySet(), containsInAnyOrder("Gold", "Cults", "Power", "Buildings"));
+    assertThat(totals.get("Gold"), is(new SimpleResourceChange(7)));
+    assertThat(((SimpleCombinedResourceChange) totals.get("Cults")).resources(), is(Map.of("Fire", 2)));
+    assertThat(totals.get("Power"), is(new TerraMysticaPowerResourceChange(3, 9, 0, 0, 0, 0)));
+    assertThat(((OneTimeCombinedResourceChange) totals.get("Buildings")).resources(), is(Map.of("Fortress", true)));
+  }
+
+  private static PlanStageDto stage(Map<String, ResourceChangeValue> resourceChanges) {
+    PlanStageDto stage = new PlanStageDto();
+    stage.resourceChanges.putAll(resourceChanges);
+    return stage;
+  }
+}
@@ -0,0 +1,127 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.GameDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.PlanValidationIssueDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the validation of the stages of a plan.
+ */
+public class PlanValidatorTest {
+
+  @Test
+  void testValidPlanHasNoIssues() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(5))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-5))));
+
+    assertThat(validate(null, stages), is(empty()));
+  }
+
+  @Test
+  void testNegativeTotalsAreReportedForTheStagesThatChangeTheResource() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(2))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-3))), //
+            stage(Map.of("Workers", new SimpleResourceChange(1))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-1))));
+
+    List<PlanValidationIssueDto> issues = validate(null, stages);
+
+    // stage 2 does not change the gold, so it's not reported again
+    assertThat(issues, hasSize(2));
+    assertThat(issues.get(0).type, is(PlanValidationIssueDto.Type.NEGATIVE_TOTAL));
+    assertThat(issues.get(0).stage, is(1));
+    assertThat(issues.get(0).resource, is("Gold"));
+    assertThat(issues.get(0).part, is(nullValue()));
+    assertThat(issues.get(0).value, is(-1));
+    assertThat(issues.get(1).stage, is(3));
+    assertThat(issues.get(1).value, is(-2));
+  }
+
+  @Test
+  void testPowerBowlUnderflowIsReportedPerBowl() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(5, 1, 0, 0, 0, 0))), //
+            // burning 1 power needs 2 tokens in bowl 2 and using 2 power needs 2 tokens in bowl 3
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(0, 0, 0, 0, 1, 2))));
+
+    List<PlanValidationIssueDto> issues = validate(null, stages);
+
+    assertThat(issues, hasSize(2));
+    assertThat(issues.get(0).part, is("bowl2"));
+    assertThat(issues.get(0).value, is(-1));
+    assertThat(issues.get(1).part, is("bowl3"));
+    assertThat(issues.get(1).value, is(-1));
+  }
+
+  @Test
+  void testOnlyTheChangedPartsOfCombinedResourcesAreReported() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Buildings", new SimpleCombinedResourceChange(Map.of("Houses", -1), Map.of()))), //
+            stage(Map.of("Buildings", new SimpleCombinedResourceChange(Map.of("Towers", -2), Map.of()))), //
+            stage(Map.of("Cults", new TerraMysticaCultsResourceChange(1, -1, 0, 0))));
+
+    List<PlanValidationIssueDto> issues = validate(null, stages);
+
+    assertThat(issues, hasSize(3));
+    assertThat(issues.get(0).stage, is(0));
+    assertThat(issues.get(0).part, is("Houses"));
+    assertThat(issues.get(1).stage, is(1));
+    assertThat(issues.get(1).part, is("Towers"));
+    assertThat(issues.get(1).value, is(-2));
+    assertThat(issues.get(2).stage, is(2));
+    assertThat(issues.get(2).part, is("water"));
+  }
+
+  @Test
+  void testTypeMismatchesAreReported() {
+    GameDto game = new GameDto();
+    game.resources.put("Gold", ResourceType.SIMPLE);
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(5))), //
+            stage(Map.of("Gold", new AbsoluteResourceChange(3))));
+
+    List<PlanValidationIssueDto> issues = validate(game, stages);
+
+    assertThat(issues, hasSize(1));
+    assertThat(issues.get(0).type, is(PlanValidationIssueDto.Type.TYPE_MISMATCH));
+    assertThat(issues.get(0).stage, is(1));
+    assertThat(issues.get(0).resource, is("Gold"));
+    assertThat(issues.get(0).value, is(nullValue()));
+  }
+
+  @Test
+  void testReusedSnapshotsGiveTheSameIssues() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(10))), //
+            stage(Map.of("Gold", new SimpleResourceChange(5))));
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(stages);
+
+    List<PlanStageDto> changedStages = List.of(stages.get(0), stage(Map.of("Gold", new SimpleResourceChange(-20))));
+    List<StageSnapshot> changedSnapshots = ResourceTotalsCalculator.calculateSnapshots(changedStages, 1, snapshots);
+
+    assertThat(PlanValidator.validate(null, changedStages, changedSnapshots), hasSize(1));
+    assertThat(PlanValidator.validate(null, changedStages, changedSnapshots).get(0).value, is(-10));
+  }
+
+  private static List<PlanValidationIssueDto> validate(GameDto game, List<PlanStageDto> stages) {
+    return PlanValidator.validate(game, stages, ResourceTotalsCalculator.calculateSnapshots(stages));
+  }
+
+  private static PlanStageDto stage(Map<String, ResourceChangeValue> resourceChanges) {
+    PlanStageDto stage = new PlanStageDto();
+    stage.resourceChanges.putAll(resourceChanges);
+    return stage;
+  }
+}
@@ -0,0 +1,122 @@
+package net.tfassbender.gameplan.calculation;
+
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceChangeValue;
+import net.tfassbender.gameplan.dto.resource.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the calculation of the resource totals (the same cases as the calculation in the frontend).
+ */
+public class ResourceTotalsCalculatorTest {
+
+  @Test
+  void testSimpleResourcesAreSummedUp() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(15))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-5), "Workers", new SimpleResourceChange(3)))));
+
+    assertThat(snapshots, hasSize(2));
+    assertThat(snapshots.get(0).totals().get("Gold"), is(new SimpleResourceChange(15)));
+    assertThat(snapshots.get(1).totals().get("Gold"), is(new SimpleResourceChange(10)));
+    assertThat(snapshots.get(1).totals().get("Workers"), is(new SimpleResourceChange(3)));
+    assertThat(snapshots.get(1).isValid(), is(true));
+  }
+
+  @Test
+  void testNegativeTotalsAreReportedForTheFirstNegativeStage() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(2))), //
+            stage(Map.of("Gold", new SimpleResourceChange(-3))), //
+            stage(Map.of("Gold", new SimpleResourceChange(5)))));
+
+    assertThat(snapshots.get(0).isValid(), is(true));
+    assertThat(snapshots.get(1).firstNegativeStage(), is(1));
+    // the plan stays invalid, even if the total is positive again
+    assertThat(snapshots.get(2).firstNegativeStage(), is(1));
+    assertThat(snapshots.get(2).totals().get("Gold"), is(new SimpleResourceChange(4)));
+  }
+
+  @Test
+  void testAbsoluteResourcesKeepThePreviousValueIfNotSet() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Round", new AbsoluteResourceChange(3))), //
+            stage(mapWithNullValue("Round", new AbsoluteResourceChange(null)))));
+
+    assertThat(snapshots.get(1).totals().get("Round"), is(new AbsoluteResourceChange(3)));
+  }
+
+  @Test
+  void testPowerCycle() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(5, 7, 0, 0, 0, 0))), //
+            // gain 7: 5 tokens from bowl 1 to bowl 2, then 2 tokens from bowl 2 to bowl 3
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(0, 0, 0, 7, 0, 0))), //
+            // burn 1 and use 3
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(0, 0, 0, 0, 1, 3)))));
+
+    TerraMysticaPowerResourceChange afterGain = (TerraMysticaPowerResourceChange) snapshots.get(1).totals().get("Power");
+    assertThat(List.of(afterGain.bowl1(), afterGain.bowl2(), afterGain.bowl3()), is(List.of(0, 10, 2)));
+    TerraMysticaPowerResourceChange afterUse = (TerraMysticaPowerResourceChange) snapshots.get(2).totals().get("Power");
+    assertThat(List.of(afterUse.bowl1(), afterUse.bowl2(), afterUse.bowl3()), is(List.of(3, 8, 0)));
+    assertThat(snapshots.get(2).isValid(), is(true));
+  }
+
+  @Test
+  void testPowerBowlUnderflowIsNegative() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(5, 1, 0, 0, 0, 0))), //
+            stage(Map.of("Power", new TerraMysticaPowerResourceChange(0, 0, 0, 0, 1, 0)))));
+
+    assertThat(snapshots.get(1).firstNegativeStage(), is(1));
+  }
+
+  @Test
+  void testCombinedResources() {
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(List.of( //
+            stage(Map.of("Cults", new SimpleCombinedResourceChange(Map.of("Fire", 1, "Water", 2), Map.of("Fire", "#ff0000")), //
+                    "Buildings", new OneTimeCombinedResourceChange(Map.of("Fortress", true), Map.of()))), //
+            stage(Map.of("Cults", new SimpleCombinedResourceChange(Map.of("Fire", 2), null), //
+                    "Buildings", new OneTimeCombinedResourceChange(mapWithNullValue("Fortress", null), Map.of())))));
+
+    SimpleCombinedResourceChange cults = (SimpleCombinedResourceChange) snapshots.get(1).totals().get("Cults");
+    assertThat(cults.resources(), is(Map.of("Fire", 3, "Water", 2)));
+    assertThat(cults.colors(), is(Map.of("Fire", "#ff0000")));
+    OneTimeCombinedResourceChange buildings = (OneTimeCombinedResourceChange) snapshots.get(1).totals().get("Buildings");
+    assertThat(buildings.resources().get("Fortress"), is(true));
+  }
+
+  @Test
+  void testRecalculationFromChangedStageReusesPreviousSnapshots() {
+    List<PlanStageDto> stages = List.of( //
+            stage(Map.of("Gold", new SimpleResourceChange(10))), //
+            stage(Map.of("Gold", new SimpleResourceChange(5))));
+    List<StageSnapshot> snapshots = ResourceTotalsCalculator.calculateSnapshots(stages);
+
+    List<PlanStageDto> changedStages = List.of(stages.get(0), stage(Map.of("Gold", new SimpleResourceChange(-20))));
+    List<StageSnapshot> recalculated = ResourceTotalsCalculator.calculateSnapshots(changedStages, 1, snapshots);
+
+    assertThat(recalculated.get(0), is(sameInstance(snapshots.get(0))));
+    assertThat(recalculated.get(1).totals().get("Gold"), is(new SimpleResourceChange(-10)));
+    assertThat(recalculated.get(1).firstNegativeStage(), is(1));
+  }
+
+  private static PlanStageDto stage(Map<String, ResourceChangeValue> resourceChanges) {
+    PlanStageDto stage = new PlanStageDto();
+    stage.resourceChanges.putAll(resourceChanges);
+    return stage;
+  }
+
+  private static <T> Map<String, T> mapWithNullValue(String key, T value) {
+    Map<String, T> map = new HashMap<>();
+    map.put(key, value);
+    return map;
+  }
+}
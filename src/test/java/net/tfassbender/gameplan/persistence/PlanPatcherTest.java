@@ -0,0 +1,151 @@
+package net.tfassbender.gameplan.persistence;
+
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto;
+import net.tfassbender.gameplan.dto.PlanPatchOperationDto.Operation;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.ResourceType;
+import net.tfassbender.gameplan.dto.resource.AbsoluteResourceChange;
+import net.tfassbender.gameplan.dto.resource.SimpleResourceChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PlanPatcherTest {
+
+  @Test
+  void testStagesAreInsertedRemovedAndMoved() {
+    PlanDto plan = plan("A", "B", "C");
+
+    PlanPatcher.apply(plan, List.of( //
+            stageOperation(Operation.INSERT_STAGE, 3, "D"), //
+            stageOperation(Operation.REMOVE_STAGE, 1, null), //
+            move(0, 2)));
+
+    assertThat(plan.stages.stream().map(stage -> stage.description).toList(), is(List.of("C", "D", "A")));
+  }
+
+  @Test
+  void testResourceChangesAndDescriptionsAreSet() {
+    PlanDto plan = plan("A", "B");
+    plan.stages.get(1).resourceChanges.put("Workers", new SimpleResourceChange(1));
+
+    PlanPatchOperationDto setGold = stageOperation(Operation.SET_RESOURCE_CHANGE, 1, null);
+    setGold.resource = "Gold";
+    setGold.change = new SimpleResourceChange(-3);
+    PlanPatchOperationDto removeWorkers = stageOperation(Operation.REMOVE_RESOURCE_CHANGE, 1, null);
+    removeWorkers.resource = "Workers";
+    PlanPatchOperationDto setStageDescription = stageOperation(Operation.SET_STAGE_DESCRIPTION, 0, "Start");
+    PlanPatchOperationDto setDescription = new PlanPatchOperationDto();
+    setDescription.op = Operation.SET_DESCRIPTION;
+    setDescription.description = "Changed plan";
+
+    PlanPatcher.apply(plan, List.of(setGold, removeWorkers, setStageDescription, setDescription));
+
+    assertThat(plan.stages.get(1).resourceChanges.get("Gold"), is(new SimpleResourceChange(-3)));
+    assertThat(plan.stages.get(1).resourceChanges, not(hasKey("Workers")));
+    assertThat(plan.stages.get(0).description, is("Start"));
+    assertThat(plan.description, is("Changed plan"));
+  }
+
+  @Test
+  void testInvalidOperationsAreRejected() {
+    PlanDto plan = plan("A");
+    plan.resourceTypes.put("Gold", ResourceType.SIMPLE);
+
+    assertThrows(IllegalArgumentException.class, () -> PlanPatcher.apply(plan, List.of(stageOperation(Operation.REMOVE_STAGE, 1, null))));
+    assertThrows(IllegalArgumentException.class, () -> PlanPatcher.apply(plan, List.of(stageOperation(Operation.SET_STAGE_DESCRIPTION, null, "X"))));
+    assertThrows(IllegalArgumentException.class, () -> PlanPatcher.apply(plan, List.of(new PlanPatchOperationDto())));
+
+    PlanPatchOperationDto wrongType = stageOperation(Operation.SET_RESOURCE_CHANGE, 0, null);
+    wrongType.resource = "Gold";
+    wrongType.change = new AbsoluteResourceChange(3);
+    assertThrows(IllegalArgumentException.class, () -> PlanPatcher.apply(plan, List.of(wrongType)));
+  }
+
+  @Test
+  void testDiffOfAChangedStageContainsOnlyTheChangesOfThisStage() {
+    PlanDto plan = plan("A", "B", "C");
+    plan.stages.get(1).resourceChanges.put("Gold", new SimpleResourceChange(1));
+    PlanDto changedPlan = plan.copy();
+    changedPlan.stages.get(1).resourceChanges.put("Gold", new SimpleResourceChange(2));
+
+    List<PlanPatchOperationDto> operations = PlanPatcher.diff(plan, changedPlan);
+
+    assertThat(operations, hasSize(1));
+    assertThat(operations.get(0).op, is(Operation.SET_RESOURCE_CHANGE));
+    assertThat(operations.get(0).index, is(1));
+    assertThat(operations.get(0).change, is(new SimpleResourceChange(2)));
+  }
+
+  @Test
+  void testDiffChangesThePlanIntoTheChangedPlan() {
+    PlanDto plan = plan("A", "B", "C", "D");
+    plan.stages.get(2).resourceChanges.put("Gold", new SimpleResourceChange(1));
+    PlanDto changedPlan = plan.copy();
+    changedPlan.description = "Changed";
+    changedPlan.stages.remove(1);
+    changedPlan.stages.get(1).resourceChanges.remove("Gold");
+    changedPlan.stages.add(2, plan("E").stages.get(0));
+    changedPlan.stages.add(plan("F").stages.get(0));
+
+    PlanDto patchedPlan = plan.copy();
+    PlanPatcher.apply(patchedPlan, PlanPatcher.diff(plan, changedPlan));
+
+    assertThat(patchedPlan.description, is("Changed"));
+    assertThat(patchedPlan.stages.stream().map(stage -> stage.description).toList(), is(List.of("A", "C", "E", "D", "F")));
+    assertThat(patchedPlan.stages.get(1).resourceChanges, is(anEmptyMap()));
+  }
+
+  @Test
+  void testDiffOfChangedResourceTypesIsNotPossible() {
+    PlanDto plan = plan("A");
+    PlanDto changedPlan = plan.copy();
+    changedPlan.resourceTypes.put("Gold", ResourceType.SIMPLE);
+
+    assertThat(PlanPatcher.diff(plan, changedPlan), is(nullValue()));
+  }
+
+  @Test
+  void testDiffOfEqualPlansIsEmpty() {
+    PlanDto plan = plan("A", "B");
+    plan.stages.get(1).resourceChanges.put("Gold", new SimpleResourceChange(1));
+
+    assertThat(PlanPatcher.diff(plan, plan.copy()), is(empty()));
+  }
+
+  private static PlanDto plan(String... stageDescriptions) {
+    PlanDto plan = new PlanDto();
+    plan.name = "Plan";
+    for (String description : stageDescriptions) {
+      PlanStageDto stage = new PlanStageDto();
+      stage.description = description;
+      plan.stages.add(stage);
+    }
+    return plan;
+  }
+
+  private static PlanPatchOperationDto stageOperation(Operation op, Integer index, String description) {
+    PlanPatchOperationDto operation = new PlanPatchOperationDto();
+    operation.op = op;
+    operation.index = index;
+    if (op == Operation.INSERT_STAGE) {
+      operation.stage = new PlanStageDto();
+      operation.stage.description = description;
+    }
+    else {
+      operation.description = description;
+    }
+    return operation;
+  }
+
+  private static PlanPatchOperationDto move(int from, int to) {
+    PlanPatchOperationDto operation = stageOperation(Operation.MOVE_STAGE, from, null);
+    operation.toIndex = to;
+    return operation;
+  }
+}
@@ -0,0 +1,227 @@
+package net.tfassbender.gameplan.persistence.file;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.tfassbender.gameplan.metrics.GamePlanMetrics;
+import net.tfassbender.gameplan.persistence.file.AtomicFileWriter.FsyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the atomic writes with the different fsync policies.
+ */
+public class AtomicFileWriterTest {
+
+  private static final Path TEST_DIR = Paths.get("build/test-atomic-file-writer");
+
+  private RecordingFileWriter writer;
+
+  @BeforeEach
+  void setup() throws IOException {
+    deleteDirectoryRecursively(TEST_DIR);
+    Files.createDirectories(TEST_DIR);
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    if (writer != null) {
+      writer.shutdown();
+    }
+    deleteDirectoryRecursively(TEST_DIR);
+  }
+
+  @Test
+  void testAlwaysSyncsTheTempFileBeforeTheMoveAndCommitsTheFile() throws Exception {
+    writer = createWriter(FsyncPolicy.ALWAYS);
+    Path file = TEST_DIR.resolve("plan.json");
+    Files.writeString(file, "old");
+
+    writer.write(file, outputStream -> outputStream.write("new".getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(Files.readString(file), is("new"));
+    // the target file still had the old content, when the temp file was synced
+    assertThat(writer.targetContentsWhenForced, contains("old"));
+    assertThat(writer.commitBatchSizes, contains(1));
+    assertThat(writer.getUnsyncedDirs(), is(empty()));
+    assertThat(getTempFiles(), is(empty()));
+  }
+
+  @Test
+  void testBatchedSyncsTheTempFileBeforeTheMoveAndDefersOnlyTheDirectorySync() throws Exception {
+    writer = createWriter(FsyncPolicy.BATCHED);
+    Path file = TEST_DIR.resolve("plan.json");
+    Files.writeString(file, "old");
+
+    writer.write(file, outputStream -> outputStream.write("new".getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(Files.readString(file), is("new"));
+    assertThat(writer.targetContentsWhenForced, contains("old"));
+    assertThat(writer.commitBatchSizes, is(empty()));
+    assertThat(writer.getUnsyncedDirs(), contains(file.toAbsolutePath().getParent()));
+    assertThat(getTempFiles(), is(empty()));
+
+    // the pending directory syncs are done on shutdown at the latest
+    writer.shutdown();
+    assertThat(writer.getUnsyncedDirs(), is(empty()));
+  }
+
+  @Test
+  void testNeverDoesNotSyncTheFile() throws Exception {
+    writer = createWriter(FsyncPolicy.NEVER);
+    Path file = TEST_DIR.resolve("plan.json");
+
+    writer.write(file, outputStream -> outputStream.write("new".getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(Files.readString(file), is("new"));
+    assertThat(writer.targetContentsWhenForced, is(empty()));
+    assertThat(writer.commitBatchSizes, is(empty()));
+    assertThat(writer.getUnsyncedDirs(), is(empty()));
+    assertThat(getTempFiles(), is(empty()));
+  }
+
+  @Test
+  void testFailedWriteKeepsTheOldContent() throws Exception {
+    writer = createWriter(FsyncPolicy.ALWAYS);
+    Path file = TEST_DIR.resolve("plan.json");
+    Files.writeString(file, "old");
+
+    IOException exception = assertThrows(IOException.class, () -> writer.write(file, outputStream -> {
+      outputStream.write("partial".getBytes(StandardCharsets.UTF_8));
+      throw new IOException("Simulated failure");
+    }));
+
+    assertThat(exception.getMessage(), is("Simulated failure"));
+
+    assertThat(Files.readString(file), is("old"));
+    assertThat(getTempFiles(), is(empty()));
+  }
+
+  @Test
+  void testConcurrentWritersShareAGroupCommit() throws Exception {
+    int writerCount = 8;
+    writer = createWriter(FsyncPolicy.ALWAYS);
+    // the first commit is held until all other writes wait for the next commit
+    writer.holdFirstCommit = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(writerCount);
+    try {
+      List<Future<?>> writes = new ArrayList<>();
+      writes.add(executor.submit(() -> write(0)));
+      assertThat(writer.firstCommitStarted.await(10, TimeUnit.SECONDS), is(true));
+
+      for (int i = 1; i < writerCount; i++) {
+        int index = i;
+        writes.add(executor.submit(() -> write(index)));
+      }
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (writer.getPendingCommitCount() < writerCount - 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(writer.getPendingCommitCount(), is(writerCount - 1));
+
+      writer.holdFirstCommit.countDown();
+      for (Future<?> write : writes) {
+        write.get(10, TimeUnit.SECONDS);
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    // all waiting writes are committed together (with one directory sync)
+    assertThat(writer.commitBatchSizes, contains(1, writerCount - 1));
+    for (int i = 0; i < writerCount; i++) {
+      assertThat(Files.readString(TEST_DIR.resolve("plan" + i + ".json")), is("content " + i));
+    }
+    assertThat(getTempFiles(), is(empty()));
+  }
+
+  private Void write(int index) throws IOException {
+    writer.write(TEST_DIR.resolve("plan" + index + ".json"), outputStream -> outputStream.write(("content " + index).getBytes(StandardCharsets.UTF_8)));
+    return null;
+  }
+
+  private static RecordingFileWriter createWriter(FsyncPolicy policy) {
+    return new RecordingFileWriter(policy);
+  }
+
+  private static List<Path> getTempFiles() throws IOException {
+    try (Stream<Path> files = Files.list(TEST_DIR)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(AtomicFileWriter.TEMP_FILE_EXTENSION)).toList();
+    }
+  }
+
+  private static void deleteDirectoryRecursively(Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> files = Files.walk(dir)) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records the syncs of the temp files and the group commits.
+   */
+  private static class RecordingFileWriter extends AtomicFileWriter {
+
+    private final List<String> targetContentsWhenForced = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> commitBatchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch firstCommitStarted = new CountDownLatch(1);
+    private CountDownLatch holdFirstCommit;
+
+    private RecordingFileWriter(FsyncPolicy policy) {
+      // the background syncs are not started during the tests (they are done on shutdown)
+      super(policy, TimeUnit.HOURS.toMillis(1), new GamePlanMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Override
+    void forceTempFile(FileChannel channel, Path tempFile) throws IOException {
+      super.forceTempFile(channel, tempFile);
+      // the name of the target file is the name of the temp file without the leading dot and the random suffix
+      String tempFileName = tempFile.getFileName().toString();
+      String fileName = tempFileName.substring(1, tempFileName.lastIndexOf('.', tempFileName.length() - TEMP_FILE_EXTENSION.length() - 1));
+      Path file = tempFile.resolveSibling(fileName);
+      targetContentsWhenForced.add(Files.exists(file) ? Files.readString(file) : null);
+    }
+
+    @Override
+    void commitBatch(List<PendingCommit> batch) {
+      commitBatchSizes.add(batch.size());
+      if (firstCommitStarted.getCount() > 0) {
+        firstCommitStarted.countDown();
+        if (holdFirstCommit != null) {
+          try {
+            holdFirstCommit.await(10, TimeUnit.SECONDS);
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+      super.commitBatch(batch);
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package net.tfassbender.gameplan.persistence.migration;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanStageDto;
+import net.tfassbender.gameplan.dto.resource.SimpleResourceChange;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.UserService;
+import net.tfassbender.gameplan.persistence.file.PlanFileService;
+import net.tfassbender.gameplan.persistence.file.UserFileService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStorePlanService;
+import net.tfassbender.gameplan.persistence.mvstore.MVStoreUserService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class StorageMigrationTest {
+
+  private static final String TEST_USER = "TestUserMigration";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  private static final String EXPORT_USER = "TestUserExport";
+  private static final Path EXPORT_USER_DIR = Paths.get("build/test-gameplan-data/.users/" + EXPORT_USER);
+
+  @Inject
+  private StorageMigration storageMigration;
+
+  @Inject
+  private UserFileService userFileService;
+
+  @Inject
+  private PlanFileService planFileService;
+
+  @Inject
+  private MVStoreUserService mvStoreUserService;
+
+  @Inject
+  private MVStorePlanService mvStorePlanService;
+
+  @Test
+  public void testImportCopiesValidPlansAndReportsInvalidPlans() throws Exception {
+    Files.createDirectories(USER_DIR);
+    Files.writeString(USER_DIR.resolve("ValidPlan.json"), "{\"name\":\"ValidPlan\",\"gameName\":\"TestGame1\",\"description\":\"Imported\"," //
+            + "\"stages\":[{\"description\":\"Start\",\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":5}}}]}");
+    Files.writeString(USER_DIR.resolve("RenamedPlan.json"), "{\"name\":\"OtherName\",\"gameName\":\"TestGame1\"}");
+    try {
+      MigrationResult result = storageMigration.migrate(userFileService, planFileService, mvStoreUserService, mvStorePlanService);
+
+      // the users of other tests might be migrated too
+      assertThat(result.failedPlans(), hasItem(startsWith(TEST_USER + "/RenamedPlan")));
+      assertThat(result.failedPlans(), not(hasItem(startsWith(TEST_USER + "/ValidPlan"))));
+      assertThat(result.mismatchedPlans(), not(hasItem(startsWith(TEST_USER + "/"))));
+      assertThat(mvStoreUserService.userExists(TEST_USER), is(true));
+      assertThat(mvStorePlanService.getPlanNames(TEST_USER), contains("ValidPlan"));
+      PlanDto plan = mvStorePlanService.getPlan(TEST_USER, "ValidPlan");
+      assertThat(plan.description, is("Imported"));
+      assertThat(((SimpleResourceChange) plan.stages.get(0).resourceChanges.get("gold")).value(), is(5));
+    }
+    finally {
+      deleteDirectoryRecursively(USER_DIR);
+    }
+  }
+
+  @Test
+  public void testExportCreatesPlanFilesAndOverwritesThemWhenRepeated() throws Exception {
+    if (!mvStoreUserService.userExists(EXPORT_USER)) {
+      mvStoreUserService.createUser(EXPORT_USER);
+    }
+    PlanDto plan = new PlanDto();
+    plan.name = "ExportedPlan";
+    plan.gameName = "TestGame1";
+    plan.description = "Exported";
+    PlanStageDto stage = new PlanStageDto();
+    stage.resourceChanges.put("gold", new SimpleResourceChange(7));
+    plan.stages.add(stage);
+    mvStorePlanService.importPlan(EXPORT_USER, plan);
+    try {
+      MigrationResult result = storageMigration.migrate(exportUserOnly(), mvStorePlanService, userFileService, planFileService);
+
+      assertThat(result.failedPlans(), is(empty()));
+      assertThat(result.mismatchedPlans(), is(empty()));
+      assertThat(result.plans(), is(1));
+      assertThat(userFileService.userExists(EXPORT_USER), is(true));
+      assertThat(planFileService.getPlanNames(EXPORT_USER), contains("ExportedPlan"));
+      PlanDto exportedPlan = planFileService.getPlan(EXPORT_USER, "ExportedPlan");
+      assertThat(exportedPlan.description, is("Exported"));
+      assertThat(((SimpleResourceChange) exportedPlan.stages.get(0).resourceChanges.get("gold")).value(), is(7));
+
+      // a repeated export overwrites the plan file instead of creating a second one
+      plan.description = "Exported again";
+      mvStorePlanService.importPlan(EXPORT_USER, plan);
+      result = storageMigration.migrate(exportUserOnly(), mvStorePlanService, userFileService, planFileService);
+
+      assertThat(result.failedPlans(), is(empty()));
+      assertThat(result.mismatchedPlans(), is(empty()));
+      assertThat(planFileService.getPlanNames(EXPORT_USER), contains("ExportedPlan"));
+      assertThat(planFileService.getPlan(EXPORT_USER, "ExportedPlan").description, is("Exported again"));
+      try (Stream<Path> files = Files.list(EXPORT_USER_DIR)) {
+        assertThat(files.filter(file -> file.getFileName().toString().startsWith("TestGame1")).count(), is(1L));
+      }
+    }
+    finally {
+      mvStorePlanService.deletePlan(EXPORT_USER, "ExportedPlan");
+      deleteDirectoryRecursively(EXPORT_USER_DIR);
+    }
+  }
+
+  /**
+   * The users of the MVStore database, restricted to the user of the export test (so the users of other tests are not
+   * exported to the test data directory).
+   */
+  private UserService exportUserOnly() {
+    return new UserService() {
+
+      @Override
+      public List<String> getUsers() {
+        return List.of(EXPORT_USER);
+      }
+
+      @Override
+      public void createUser(String name) throws GamePlanPersistenceException {
+        mvStoreUserService.createUser(name);
+      }
+
+      @Override
+      public boolean userExists(String name) throws GamePlanPersistenceException {
+        return mvStoreUserService.userExists(name);
+      }
+    };
+  }
+
+  private static void deleteDirectoryRecursively(Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> files = Files.walk(dir)) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+}
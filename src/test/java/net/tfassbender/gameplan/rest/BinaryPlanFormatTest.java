@@ -0,0 +1,189 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.resource.SimpleCombinedResourceChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the plans endpoints with the binary plan file format.
+ */
+@QuarkusTest
+@TestProfile(BinaryPlanFormatTest.BinaryFormatProfile.class)
+public class BinaryPlanFormatTest {
+
+  private static final String TEST_USER = "TestUserBinary";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  private static final Path PLAN_FILE = USER_DIR.resolve("BinaryPlan.json");
+  private static final Path GAME_FILE = Paths.get("build/test-gameplan-data/.games/TestGameBinary.json");
+
+  private static final String GAME_COLORS = "{\"Fire\":\"#ff0000\",\"Water\":\"#0000ff\"}";
+  private static final String CUSTOM_COLORS = "{\"Fire\":\"#00ff00\",\"Water\":\"#0000ff\"}";
+  private static final String CHANGED_GAME_COLORS = "{\"Fire\":\"#ffff00\",\"Water\":\"#00ffff\"}";
+
+  public static class BinaryFormatProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // the plans are not cached, so they are always read from the plan files
+      return Map.of("game_plan.plan_format", "binary", "game_plan.plan_index.cache_plans", "false");
+    }
+  }
+
+  @BeforeEach
+  void setup() throws Exception {
+    writeGameFile(GAME_COLORS);
+
+    Files.createDirectories(USER_DIR);
+    // a plan file in the JSON format, like it was written before the format was changed
+    Files.writeString(PLAN_FILE, "{\"name\":\"BinaryPlan\",\"gameName\":\"TestGameBinary\",\"description\":\"Original\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"Cults\":{\"type\":\"simple_combined\",\"resources\":{\"Fire\":1,\"Water\":2},\"colors\":" + GAME_COLORS + "}}}," //
+            + "{\"resourceChanges\":{\"Cults\":{\"type\":\"simple_combined\",\"resources\":{\"Fire\":3,\"Water\":0},\"colors\":" + CUSTOM_COLORS + "}}}]}");
+  }
+
+  private static void writeGameFile(String colors) throws IOException {
+    Files.createDirectories(GAME_FILE.getParent());
+    Files.writeString(GAME_FILE, "{\"name\":\"TestGameBinary\",\"resources\":{\"Cults\":\"SIMPLE_COMBINED\"},\"resourceOrder\":[\"Cults\"]," //
+            + "\"defaultStartingResources\":{\"resourceChanges\":{\"Cults\":{\"type\":\"simple_combined\",\"resources\":{\"Fire\":0,\"Water\":0},\"colors\":" + colors + "}}}}");
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    try (Stream<Path> files = Files.walk(USER_DIR)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+    Files.deleteIfExists(GAME_FILE);
+  }
+
+  @Test
+  public void testJsonPlanFileIsConvertedToTheBinaryFormatOnSave() throws Exception {
+    long jsonSize = Files.size(PLAN_FILE);
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/BinaryPlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    assertThat(plan.description, is("Original"));
+
+    plan.description = "Saved";
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    byte[] content = Files.readAllBytes(PLAN_FILE);
+    assertThat(new String(Arrays.copyOf(content, 4)), is("GPLN"));
+    assertThat((int) content[4], is(2));
+    assertThat((long) content.length, lessThan(jsonSize));
+  }
+
+  @Test
+  public void testColorsAreRestoredFromTheGame() {
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/BinaryPlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    // the reactive endpoint reads the binary file on the worker pool
+    for (String url : new String[] {"/users/" + TEST_USER + "/plans/BinaryPlan", "/reactive/users/" + TEST_USER + "/plans/BinaryPlan"}) {
+      PlanDto saved = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get(url) //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      SimpleCombinedResourceChange first = (SimpleCombinedResourceChange) saved.stages.get(0).resourceChanges.get("Cults");
+      SimpleCombinedResourceChange second = (SimpleCombinedResourceChange) saved.stages.get(1).resourceChanges.get("Cults");
+      assertThat(first.resources(), is(Map.of("Fire", 1, "Water", 2)));
+      assertThat(first.colors(), is(Map.of("Fire", "#ff0000", "Water", "#0000ff")));
+      assertThat(second.colors(), is(Map.of("Fire", "#00ff00", "Water", "#0000ff")));
+    }
+  }
+
+  @Test
+  public void testColorsAreKeptWhenTheGameColorsAreChanged() throws Exception {
+    savePlan(getPlan());
+
+    writeGameFile(CHANGED_GAME_COLORS);
+
+    PlanDto saved = getPlan();
+    assertThat(((SimpleCombinedResourceChange) saved.stages.get(0).resourceChanges.get("Cults")).colors(), is(Map.of("Fire", "#ff0000", "Water", "#0000ff")));
+    assertThat(((SimpleCombinedResourceChange) saved.stages.get(1).resourceChanges.get("Cults")).colors(), is(Map.of("Fire", "#00ff00", "Water", "#0000ff")));
+  }
+
+  @Test
+  public void testMissingColorsAreNotAdded() throws Exception {
+    Files.writeString(PLAN_FILE, "{\"name\":\"BinaryPlan\",\"gameName\":\"TestGameBinary\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"Cults\":{\"type\":\"simple_combined\",\"resources\":{\"Fire\":1,\"Water\":2},\"colors\":" + GAME_COLORS + "}}}," //
+            + "{\"resourceChanges\":{\"Cults\":{\"type\":\"simple_combined\",\"resources\":{\"Fire\":3,\"Water\":0}}}}]}");
+    savePlan(getPlan());
+
+    PlanDto saved = getPlan();
+    assertThat(((SimpleCombinedResourceChange) saved.stages.get(0).resourceChanges.get("Cults")).colors(), is(Map.of("Fire", "#ff0000", "Water", "#0000ff")));
+    assertThat(((SimpleCombinedResourceChange) saved.stages.get(1).resourceChanges.get("Cults")).colors(), is(nullValue()));
+  }
+
+  @Test
+  public void testStageRangeOfBinaryPlanFile() {
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/BinaryPlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    PlanDto range = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .queryParam("fromStage", 1) //
+            .when().get("/users/" + TEST_USER + "/plans/BinaryPlan") //
+            .then().statusCode(200).header(PlanResource.STAGE_COUNT_HEADER, "2") //
+            .extract().body().as(PlanDto.class);
+    assertThat(range.stages, hasSize(1));
+    assertThat(((SimpleCombinedResourceChange) range.stages.get(0).resourceChanges.get("Cults")).resources(), is(Map.of("Fire", 3, "Water", 0)));
+  }
+
+  private static PlanDto getPlan() {
+    return RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/BinaryPlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+  }
+
+  private static void savePlan(PlanDto plan) {
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+  }
+}
@@ -0,0 +1,210 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.response.Response;
+import net.tfassbender.gameplan.dto.PlanDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the gzip compression of the plan files and of the responses.
+ */
+@QuarkusTest
+@TestProfile(CompressionTest.GzipPlanFilesProfile.class)
+public class CompressionTest {
+
+  private static final String TEST_USER = "TestUserCompression";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  private static final Path PLAN_FILE = USER_DIR.resolve("CompressedPlan.json");
+  private static final String PLAN_URL = "/users/" + TEST_USER + "/plans/CompressedPlan";
+
+  // the responses are checked without decoding them
+  private static final RestAssuredConfig NO_DECODING = RestAssuredConfig.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders());
+
+  public static class GzipPlanFilesProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("game_plan.plan_compression.type", "gzip");
+    }
+  }
+
+  @BeforeEach
+  void setupUser() throws Exception {
+    Files.createDirectories(USER_DIR);
+    // a plan that is big enough to be compressed (in the uncompressed JSON format)
+    String stages = IntStream.range(0, 50) //
+            .mapToObj(i -> "{\"description\":\"Stage " + i + "\",\"resourceChanges\":{\"Gold\":{\"type\":\"simple\",\"value\":" + i + "}}}") //
+            .collect(Collectors.joining(","));
+    Files.writeString(PLAN_FILE, "{\"name\":\"CompressedPlan\",\"gameName\":\"TestGame1\",\"description\":\"Original\",\"stages\":[" + stages + "]}");
+  }
+
+  @AfterEach
+  void cleanupUser() throws IOException {
+    try (Stream<Path> files = Files.walk(USER_DIR)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testPlanFileIsCompressedOnSave() throws Exception {
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    plan.description = "Saved";
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    byte[] content = Files.readAllBytes(PLAN_FILE);
+    assertThat(content[0] & 0xff, is(0x1f));
+    assertThat(content[1] & 0xff, is(0x8b));
+
+    for (String url : new String[] {PLAN_URL, "/reactive" + PLAN_URL}) {
+      PlanDto saved = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get(url) //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      assertThat(saved.description, is("Saved"));
+      assertThat(saved.stages, hasSize(50));
+    }
+  }
+
+  @Test
+  public void testResponseIsCompressedIfAccepted() throws Exception {
+    Response response = RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "gzip") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", "gzip") //
+            .header("Vary", containsString("Accept-Encoding")) //
+            .extract().response();
+
+    try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.asByteArray()))) {
+      String json = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      assertThat(json, containsString("\"Stage 49\""));
+    }
+  }
+
+  @Test
+  public void testResponseIsNotCompressedIfNotAccepted() {
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "identity") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", nullValue()) //
+            .body("stages", hasSize(50));
+
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "gzip;q=0") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", nullValue());
+
+    // an explicit gzip entry takes precedence over the wildcard
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "*;q=1, gzip;q=0") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", nullValue());
+  }
+
+  @Test
+  public void testCompressedResponseHasItsOwnETag() {
+    String etag = RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "identity") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", nullValue()) //
+            .extract().header("ETag");
+    String gzipEtag = RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "gzip") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .header("Content-Encoding", "gzip") //
+            .extract().header("ETag");
+    assertThat(gzipEtag, is(etag.substring(0, etag.length() - 1) + "-gzip\""));
+
+    // both ETags refer to the same version of the plan
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept-Encoding", "gzip") //
+            .header("If-None-Match", gzipEtag) //
+            .when().get(PLAN_URL) //
+            .then().statusCode(304) //
+            .header("ETag", is(gzipEtag));
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept-Encoding", "identity") //
+            .header("If-None-Match", etag) //
+            .when().get(PLAN_URL) //
+            .then().statusCode(304) //
+            .header("ETag", is(etag));
+
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    plan.description = "Saved";
+    RestAssured.given() //
+            .contentType("application/json") //
+            .header("If-Match", gzipEtag) //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+  }
+
+  @Test
+  public void testSmallResponseIsNotCompressed() {
+    RestAssured.given() //
+            .config(NO_DECODING) //
+            .header("Accept", "application/json") //
+            .header("Accept-Encoding", "gzip") //
+            .when().get("/users/" + TEST_USER + "/plans/MissingPlan") //
+            .then().statusCode(404) //
+            .header("Content-Encoding", nullValue()) //
+            .body("message", notNullValue());
+  }
+}
@@ -17,6 +17,7 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
 
 @QuarkusTest
 public class GameResourceTest {
@@ -107,6 +108,72 @@ public class GameResourceTest {
     }
   }
 
+  @Test
+  public void testGetGameDetails_returnsChangedGameDtoAfterFileWasModified() throws Exception {
+    String testGameName = "TestGame3";
+    Files.createDirectories(GAMES_DIR);
+    Path testGameFile = GAMES_DIR.resolve(testGameName + ".json");
+    Files.writeString(testGameFile, "{\"name\":\"TestGame3\",\"description\":\"Original\"}");
+
+    try {
+      GameDto gameDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/games/" + testGameName) //
+              .then().statusCode(200) //
+              .extract().body().as(GameDto.class);
+      assertThat(gameDto.description, is("Original"));
+
+      // the game catalog is updated by a file watcher, so the change might not be visible immediately
+      Files.writeString(testGameFile, "{\"name\":\"TestGame3\",\"description\":\"Changed\"}");
+      long deadline = System.currentTimeMillis() + 10_000;
+      do {
+        Thread.sleep(100);
+        gameDto = RestAssured.given() //
+                .header("Accept", "application/json") //
+                .when().get("/games/" + testGameName) //
+                .then().statusCode(200) //
+                .extract().body().as(GameDto.class);
+      } while (!"Changed".equals(gameDto.description) && System.currentTimeMillis() < deadline);
+      assertThat(gameDto.description, is("Changed"));
+    }
+    finally {
+      // Cleanup: delete the test file
+      Files.deleteIfExists(testGameFile);
+    }
+  }
+
+  @Test
+  public void testGetGameDetails_ifNoneMatchReturnsNotModified() throws Exception {
+    String testGameName = "TestGameConditional";
+    Files.createDirectories(GAMES_DIR);
+    Path testGameFile = GAMES_DIR.resolve(testGameName + ".json");
+    Files.writeString(testGameFile, "{\"name\":\"TestGameConditional\",\"description\":\"Original\"}");
+
+    try {
+      var response = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/games/" + testGameName) //
+              .then().statusCode(200).header("ETag", notNullValue()).header("Last-Modified", notNullValue()) //
+              .extract();
+
+      RestAssured.given() //
+              .header("Accept", "application/json") //
+              .header("If-None-Match", response.header("ETag")) //
+              .when().get("/games/" + testGameName) //
+              .then().statusCode(304);
+
+      RestAssured.given() //
+              .header("Accept", "application/json") //
+              .header("If-Modified-Since", response.header("Last-Modified")) //
+              .when().get("/games/" + testGameName) //
+              .then().statusCode(304);
+    }
+    finally {
+      // Cleanup: delete the test file
+      Files.deleteIfExists(testGameFile);
+    }
+  }
+
   @Test
   public void testGetGameDetails_invalidName() throws Exception {
     String invalidGameName = "../../../invalid/game/name";
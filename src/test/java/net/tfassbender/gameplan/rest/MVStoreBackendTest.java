@@ -0,0 +1,158 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.resource.SimpleResourceChange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the users and plans endpoints with the MVStore storage backend.
+ */
+@QuarkusTest
+@TestProfile(MVStoreBackendTest.MVStoreProfile.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MVStoreBackendTest {
+
+  private static final String DATABASE_FILE = "test-gameplan.mv.db";
+  private static final Path GAME_FILE = Paths.get("build/test-gameplan-data/.games/TestGameMVStore.json");
+  private static final String TEST_USER = "TestUserMVStore";
+
+  public static class MVStoreProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("game_plan.storage.backend", "mvstore", //
+              "game_plan.storage.mvstore.file", DATABASE_FILE);
+    }
+  }
+
+  @BeforeAll
+  void setup() throws Exception {
+    Files.createDirectories(GAME_FILE.getParent());
+    Files.writeString(GAME_FILE, "{\"name\":\"TestGameMVStore\",\"resources\":{\"Gold\":\"SIMPLE\"},\"resourceOrder\":[\"Gold\"]}");
+  }
+
+  @AfterAll
+  void cleanup() throws Exception {
+    Files.deleteIfExists(GAME_FILE);
+  }
+
+  @Test
+  public void testPlanLifecycle() {
+    // the database file is kept between test runs, so the user might already exist
+    int status = RestAssured.given() //
+            .when().post("/users/" + TEST_USER) //
+            .then().extract().statusCode();
+    assertThat(status, anyOf(is(201), is(400)));
+    RestAssured.given() //
+            .when().get("/users/" + TEST_USER) //
+            .then().statusCode(200);
+    assertThat(Files.exists(Paths.get("build/test-gameplan-data/.users/" + TEST_USER)), is(false));
+
+    PlanDto created = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().post("/users/" + TEST_USER + "/plans/TestGameMVStore") //
+            .then().statusCode(201) //
+            .extract().body().as(PlanDto.class);
+    String planUrl = "/users/" + TEST_USER + "/plans/" + created.name;
+    try {
+      List<String> plans = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + TEST_USER + "/plans") //
+              .then().statusCode(200) //
+              .extract().body().jsonPath().getList("", String.class);
+      assertThat(plans, hasItem(created.name));
+
+      String etag = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get(planUrl) //
+              .then().statusCode(200) //
+              .extract().header("ETag");
+
+      created.description = "Saved";
+      String savedEtag = RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", etag) //
+              .body(created) //
+              .when().put("/users/" + TEST_USER + "/plans") //
+              .then().statusCode(200) //
+              .extract().header("ETag");
+      assertThat(savedEtag, not(is(etag)));
+
+      // a change based on the old version is rejected
+      RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", etag) //
+              .body(created) //
+              .when().put("/users/" + TEST_USER + "/plans") //
+              .then().statusCode(409);
+
+      RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", savedEtag) //
+              .body("[{\"op\":\"insert_stage\",\"index\":1,\"stage\":{\"description\":\"Second\",\"resourceChanges\":{\"Gold\":{\"type\":\"simple\",\"value\":3}}}}]") //
+              .when().patch(planUrl) //
+              .then().statusCode(204);
+
+      PlanDto plan = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get(planUrl) //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      assertThat(plan.description, is("Saved"));
+      assertThat(plan.stages, hasSize(2));
+      assertThat(((SimpleResourceChange) plan.stages.get(1).resourceChanges.get("Gold")).value(), is(3));
+    }
+    finally {
+      RestAssured.given() //
+              .when().delete(planUrl) //
+              .then().statusCode(204);
+    }
+
+    RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get(planUrl) //
+            .then().statusCode(404);
+  }
+
+  @Test
+  public void testUpdatePlan_planDoesNotExist() {
+    int status = RestAssured.given() //
+            .when().post("/users/" + TEST_USER) //
+            .then().extract().statusCode();
+    assertThat(status, anyOf(is(201), is(400)));
+
+    PlanDto planDto = new PlanDto();
+    planDto.name = "NonExistentPlan";
+    planDto.gameName = "TestGameMVStore";
+    planDto.description = "Should not update";
+    var response = RestAssured.given() //
+            .contentType("application/json") //
+            .body(planDto) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().extract();
+    // the same result as with the plan files: the plan is not created
+    assertThat(response.statusCode(), is(404));
+    assertThat(response.body().asString(), containsString("Plan not found"));
+
+    RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/NonExistentPlan") //
+            .then().statusCode(404);
+  }
+}
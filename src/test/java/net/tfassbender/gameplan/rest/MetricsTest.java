@@ -0,0 +1,78 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests that the metrics of the persistence layer are exposed at {@code /q/metrics}.
+ */
+@QuarkusTest
+public class MetricsTest {
+
+  private static final String TEST_USER = "TestUserMetrics";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+
+  @BeforeEach
+  void setupUser() throws Exception {
+    Files.createDirectories(USER_DIR);
+    Files.writeString(USER_DIR.resolve("MetricsPlan.json"), "{\"name\":\"MetricsPlan\",\"gameName\":\"TestGame\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"Gold\":{\"type\":\"simple\",\"value\":5}}}," //
+            + "{\"resourceChanges\":{\"Gold\":{\"type\":\"simple\",\"value\":-2}}}]}");
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    try (Stream<Path> files = Files.walk(USER_DIR)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testPersistenceMetricsAreExposed() {
+    RestAssured.given() //
+            .when().get("/users/" + TEST_USER + "/plans/MetricsPlan/totals") //
+            .then().statusCode(200);
+
+    String metrics = RestAssured.given() //
+            .when().get("/q/metrics") //
+            .then().statusCode(200) //
+            .extract().body().asString();
+
+    List<String> serviceCalls = metrics.lines().filter(line -> line.startsWith("gameplan_service_calls_seconds_count{")).toList();
+    assertThat(serviceCalls, hasItem(allOf(containsString("service=\"PlanFileService\""), containsString("method=\"getPlan\""), containsString("outcome=\"success\""))));
+    assertThat(metrics, containsString("gameplan_file_read_bytes_total{type=\"plan\""));
+    assertThat(metrics, containsString("gameplan_plan_stages_count"));
+    assertThat(metrics, containsString("gameplan_plan_index_scan_files_count"));
+    assertThat(metrics, containsString("gameplan_cache_requests_total{cache=\"totals\",result=\"miss\""));
+  }
+
+  @Test
+  public void testFailedCallsAreTaggedWithTheException() {
+    RestAssured.given() //
+            .when().get("/users/" + TEST_USER + "/plans/UnknownPlan/totals") //
+            .then().statusCode(404);
+
+    String metrics = RestAssured.given() //
+            .when().get("/q/metrics") //
+            .then().statusCode(200) //
+            .extract().body().asString();
+
+    assertThat(metrics, containsString("outcome=\"GamePlanResourceNotFoundException\""));
+  }
+}
@@ -0,0 +1,164 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import net.tfassbender.gameplan.dto.PlanDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the plans endpoints with the plan log, that stores the changes of the plans as operations.
+ */
+@QuarkusTest
+@TestProfile(PlanLogTest.PlanLogProfile.class)
+public class PlanLogTest {
+
+  private static final String TEST_USER = "TestUserPlanLog";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  private static final Path PLAN_FILE = USER_DIR.resolve("LoggedPlan.json");
+  private static final Path LOG_FILE = USER_DIR.resolve("LoggedPlan.json.log");
+  private static final String PLAN_URL = "/users/" + TEST_USER + "/plans/LoggedPlan";
+
+  private static final int COMPACTION_MAX_ENTRIES = 3;
+
+  public static class PlanLogProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // the plans are not cached, so the logs are replayed on every read
+      return Map.of("game_plan.plan_log.enabled", "true", //
+              "game_plan.plan_log.compaction.max_entries", String.valueOf(COMPACTION_MAX_ENTRIES), //
+              "game_plan.plan_index.cache_plans", "false");
+    }
+  }
+
+  @BeforeEach
+  void setupUser() throws Exception {
+    Files.createDirectories(USER_DIR);
+    Files.writeString(PLAN_FILE, "{\"name\":\"LoggedPlan\",\"gameName\":\"TestGame1\",\"description\":\"Original\",\"lastModified\":\"2026-01-01T00:00:00.000Z\"," //
+            + "\"stages\":[{\"description\":\"Start\",\"resourceChanges\":{}}]}");
+  }
+
+  @AfterEach
+  void cleanupUser() throws IOException {
+    try (Stream<Path> files = Files.walk(USER_DIR)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testChangesAreAppendedToTheLogAndReplayed() throws Exception {
+    String planFileContent = Files.readString(PLAN_FILE);
+
+    PlanDto plan = getPlan();
+    plan.description = "Saved";
+    savePlan(plan);
+
+    // the plan file is not rewritten
+    assertThat(Files.readString(PLAN_FILE), is(planFileContent));
+    assertThat(Files.readAllLines(LOG_FILE), hasSize(2));
+
+    PlanDto saved = getPlan();
+    assertThat(saved.description, is("Saved"));
+    assertThat(saved.stages, hasSize(1));
+  }
+
+  @Test
+  public void testSaveWithoutChangesKeepsTheVersion() {
+    Response loaded = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .extract().response();
+    String etag = loaded.header("ETag");
+
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(loaded.as(PlanDto.class)) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200).header("ETag", is(etag));
+
+    assertThat(Files.exists(LOG_FILE), is(false));
+  }
+
+  @Test
+  public void testLogOfAnOlderPlanFileIsIgnored() throws Exception {
+    PlanDto plan = getPlan();
+    plan.description = "Logged";
+    savePlan(plan);
+    assertThat(Files.exists(LOG_FILE), is(true));
+
+    // the server stopped after a compaction wrote the new plan file, but before the log was deleted
+    Files.writeString(PLAN_FILE, "{\"name\":\"LoggedPlan\",\"gameName\":\"TestGame1\",\"description\":\"Compacted\",\"lastModified\":\"2026-01-02T00:00:00.000Z\"," //
+            + "\"stages\":[{\"description\":\"Start\",\"resourceChanges\":{}},{\"description\":\"Second\",\"resourceChanges\":{}}]}");
+
+    PlanDto compacted = getPlan();
+    assertThat(compacted.description, is("Compacted"));
+    assertThat(compacted.stages, hasSize(2));
+
+    // the next save starts a new log, that belongs to the current plan file
+    compacted.description = "Saved";
+    savePlan(compacted);
+    PlanDto saved = getPlan();
+    assertThat(saved.description, is("Saved"));
+    assertThat(saved.stages, hasSize(2));
+  }
+
+  @Test
+  public void testLogIsCompactedWhenItReachesTheMaximumEntries() throws Exception {
+    for (int i = 1; i < COMPACTION_MAX_ENTRIES; i++) {
+      PlanDto plan = getPlan();
+      plan.description = "Change " + i;
+      savePlan(plan);
+    }
+    // the compaction is only scheduled when the limit is reached (the log contains the header and the entries)
+    assertThat(Files.readAllLines(LOG_FILE), hasSize(COMPACTION_MAX_ENTRIES));
+    assertThat(Files.readString(PLAN_FILE), containsString("\"Original\""));
+
+    PlanDto plan = getPlan();
+    plan.description = "Change " + COMPACTION_MAX_ENTRIES;
+    savePlan(plan);
+
+    // the log is compacted in the background
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (Files.exists(LOG_FILE) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+    assertThat(Files.exists(LOG_FILE), is(false));
+    assertThat(Files.readString(PLAN_FILE), containsString("\"Change " + COMPACTION_MAX_ENTRIES + "\""));
+    assertThat(getPlan().description, is("Change " + COMPACTION_MAX_ENTRIES));
+  }
+
+  private static PlanDto getPlan() {
+    return RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get(PLAN_URL) //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+  }
+
+  private static void savePlan(PlanDto plan) {
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+  }
+}
@@ -0,0 +1,144 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Compares the throughput of concurrent plan reads on virtual threads (the {@link PlanResource}), on the event loop (the
+ * {@link ReactivePlanResource}) and on the worker pool (the {@link WorkerPoolPlanResource}). The plans are not cached,
+ * so every read hits the disk.
+ * <p>
+ * The load test is not part of the normal test run. It's run with: {@code ./gradlew test -PloadTests}
+ */
+@QuarkusTest
+@Tag("load")
+@TestProfile(PlanReadLoadTest.UncachedPlansProfile.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PlanReadLoadTest {
+
+  private static final Logger log = LoggerFactory.getLogger(PlanReadLoadTest.class);
+
+  private static final String TEST_USER = "TestUserLoad";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+
+  private static final int PLAN_COUNT = 50;
+  private static final int STAGE_COUNT = 100;
+  private static final int CONCURRENT_REQUESTS = 500;
+  private static final int REQUESTS = 10_000;
+
+  public static class UncachedPlansProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("game_plan.plan_index.cache_plans", "false");
+    }
+  }
+
+  @TestHTTPResource("/")
+  private URL baseUrl;
+
+  @BeforeAll
+  void createPlans() throws Exception {
+    Files.createDirectories(USER_DIR);
+    StringBuilder stages = new StringBuilder();
+    for (int i = 0; i < STAGE_COUNT; i++) {
+      stages.append(i > 0 ? "," : "").append("{\"description\":\"Stage ").append(i).append("\",\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":").append(i).append("}}}");
+    }
+    for (int i = 0; i < PLAN_COUNT; i++) {
+      Files.writeString(USER_DIR.resolve("Plan" + i + ".json"), "{\"name\":\"Plan" + i + "\",\"gameName\":\"TestGame1\",\"stages\":[" + stages + "]}");
+    }
+  }
+
+  @AfterAll
+  void deletePlans() throws Exception {
+    if (Files.exists(USER_DIR)) {
+      try (Stream<Path> files = Files.walk(USER_DIR)) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentPlanReads() throws Exception {
+    try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+      // warm up the three endpoints, before the throughput is measured
+      readPlans(client, "load-test/worker-pool/users/", REQUESTS / 10);
+      readPlans(client, "users/", REQUESTS / 10);
+      readPlans(client, "reactive/users/", REQUESTS / 10);
+
+      double workerPoolThroughput = readPlans(client, "load-test/worker-pool/users/", REQUESTS);
+      double virtualThreadThroughput = readPlans(client, "users/", REQUESTS);
+      double eventLoopThroughput = readPlans(client, "reactive/users/", REQUESTS);
+
+      log.info("Plan reads with {} concurrent requests: worker pool {} requests/s, virtual threads {} requests/s, event loop {} requests/s", CONCURRENT_REQUESTS, //
+              Math.round(workerPoolThroughput), Math.round(virtualThreadThroughput), Math.round(eventLoopThroughput));
+    }
+  }
+
+  /**
+   * Reads the plans with {@value #CONCURRENT_REQUESTS} concurrent requests.
+   *
+   * @return the throughput in requests per second
+   */
+  private double readPlans(HttpClient client, String pathPrefix, int requests) throws Exception {
+    Semaphore concurrentRequests = new Semaphore(CONCURRENT_REQUESTS);
+    List<Future<Integer>> responses = new ArrayList<>(requests);
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < requests; i++) {
+        URI uri = baseUrl.toURI().resolve(pathPrefix + TEST_USER + "/plans/Plan" + (i % PLAN_COUNT));
+        concurrentRequests.acquire();
+        responses.add(executor.submit(() -> {
+          try {
+            return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+          }
+          catch (IOException e) {
+            return -1;
+          }
+          finally {
+            concurrentRequests.release();
+          }
+        }));
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    for (Future<Integer> response : responses) {
+      assertThat(response.get(), is(200));
+    }
+    return requests / seconds;
+  }
+}
@@ -2,8 +2,13 @@ package net.tfassbender.gameplan.rest;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.GameValidationDto;
 import net.tfassbender.gameplan.dto.PlanCloneDto;
 import net.tfassbender.gameplan.dto.PlanDto;
+import net.tfassbender.gameplan.dto.PlanTotalsDto;
+import net.tfassbender.gameplan.dto.PlanValidationDto;
+import net.tfassbender.gameplan.dto.PlanValidationIssueDto;
+import net.tfassbender.gameplan.dto.PlanVariantResultDto;
 import net.tfassbender.gameplan.dto.resource.SimpleResourceChange;
 import net.tfassbender.gameplan.dto.resource.TerraMysticaPowerResourceChange;
 import org.junit.jupiter.api.AfterAll;
@@ -17,7 +22,13 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -139,6 +150,83 @@ public class PlanResourceTest {
     }
   }
 
+  @Test
+  public void testGetPlan_returnsChangedPlanAfterFileWasModified() throws Exception {
+    String planName = "TestPlanModified";
+    Path planFile = USER_DIR.resolve(planName + ".json");
+    Files.writeString(planFile, "{\"name\":\"TestPlanModified\",\"gameName\":\"TestGame1\",\"description\":\"Original\"}");
+    try {
+      PlanDto planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + TEST_USER + "/plans/" + planName) //
+              .then().statusCode(200).extract().body().as(PlanDto.class);
+      assertThat(planDto.description, is("Original"));
+
+      // change the file on disk - the cached plan must not be used anymore
+      Files.writeString(planFile, "{\"name\":\"TestPlanModified\",\"gameName\":\"TestGame1\",\"description\":\"Changed on disk\"}");
+      planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + TEST_USER + "/plans/" + planName) //
+              .then().statusCode(200).extract().body().as(PlanDto.class);
+      assertThat(planDto.description, is("Changed on disk"));
+    }
+    finally {
+      Files.deleteIfExists(planFile);
+    }
+
+    // the plan file was deleted on disk, so the plan must not be found anymore
+    RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/" + planName) //
+            .then().statusCode(404);
+  }
+
+  @Test
+  public void testGetPlanTotals() throws Exception {
+    String planName = "TestPlanTotals";
+    Path planFile = USER_DIR.resolve(planName + ".json");
+    String planJson = """
+            {
+              "name": "TestPlanTotals",
+              "gameName": "TestGame1",
+              "stages": [
+                { "description": "Stage 1", "resourceChanges": {"gold": {"type": "simple", "value": 10}} },
+                { "description": "Stage 2", "resourceChanges": {"gold": {"type": "simple", "value": -15}} }
+              ]
+            }
+            """;
+    Files.writeString(planFile, planJson);
+    try {
+      PlanTotalsDto totals = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + TEST_USER + "/plans/" + planName + "/totals") //
+              .then().statusCode(200).extract().body().as(PlanTotalsDto.class);
+      assertThat(totals.stageCount, is(2));
+      assertThat(totals.upToStage, is(1));
+      assertThat(totals.valid, is(false));
+      assertThat(totals.firstNegativeStage, is(1));
+      assertThat(((SimpleResourceChange) totals.totals.get("gold")).value(), is(-5));
+
+      totals = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .queryParam("upToStage", 0) //
+              .when().get("/users/" + TEST_USER + "/plans/" + planName + "/totals") //
+              .then().statusCode(200).extract().body().as(PlanTotalsDto.class);
+      assertThat(totals.upToStage, is(0));
+      assertThat(totals.valid, is(true));
+      assertThat(((SimpleResourceChange) totals.totals.get("gold")).value(), is(10));
+
+      RestAssured.given() //
+              .header("Accept", "application/json") //
+              .queryParam("upToStage", 2) //
+              .when().get("/users/" + TEST_USER + "/plans/" + planName + "/totals") //
+              .then().statusCode(400);
+    }
+    finally {
+      Files.deleteIfExists(planFile);
+    }
+  }
+
   @Test
   public void testGetPlan_invalidPlanName() {
     String invalidPlanName = "../../../path/to/invalid/plan";
@@ -353,6 +441,203 @@ public class PlanResourceTest {
     }
   }
 
+  @Test
+  public void testClonePlan_changingTheCloneDoesNotChangeTheOriginal() throws Exception {
+    createTestGameFile("TestGame1");
+    String user = "TestUserClone4";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanToClone";
+    Files.writeString(userDir.resolve(planName + ".json"), "{\"name\":\"PlanToClone\",\"gameName\":\"TestGame1\",\"stages\":[" //
+            + "{\"description\":\"Stage 1\",\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":10}}}]}");
+    PlanCloneDto cloneDto = new PlanCloneDto();
+    cloneDto.originalPlanName = planName;
+    try {
+      // the original plan is cached before it's cloned, so the clone shares its stages in memory
+      RestAssured.given() //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200);
+      var response = RestAssured.given() //
+              .contentType("application/json") //
+              .body(cloneDto) //
+              .when().post("/users/" + user + "/plans") //
+              .then().statusCode(201).header("ETag", notNullValue()) //
+              .extract();
+      PlanDto clonedPlan = response.body().as(PlanDto.class);
+
+      RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", response.header("ETag")) //
+              .body("[{\"op\":\"set_resource_change\",\"index\":0,\"resource\":\"gold\",\"change\":{\"type\":\"simple\",\"value\":3}}," //
+                      + "{\"op\":\"set_stage_description\",\"index\":0,\"description\":\"Changed\"}]") //
+              .when().patch("/users/" + user + "/plans/" + clonedPlan.name) //
+              .then().statusCode(204);
+
+      PlanDto changedClone = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + clonedPlan.name) //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      assertThat(((SimpleResourceChange) changedClone.stages.get(0).resourceChanges.get("gold")).value(), is(3));
+      PlanDto original = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      assertThat(original.stages.get(0).description, is("Stage 1"));
+      assertThat(((SimpleResourceChange) original.stages.get(0).resourceChanges.get("gold")).value(), is(10));
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testSimulatePlan_variantsAreEvaluatedWithoutChangingThePlan() throws Exception {
+    createTestGameFile("TestGame1");
+    String user = "TestUserSimulate";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanToSimulate";
+    Path planFile = userDir.resolve(planName + ".json");
+    Files.writeString(planFile, "{\"name\":\"PlanToSimulate\",\"gameName\":\"TestGame1\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":10}}}," //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":-4}}}]}");
+    String originalContent = Files.readString(planFile);
+    try {
+      PlanVariantResultDto[] results = RestAssured.given() //
+              .contentType("application/json") //
+              .body("[{\"name\":\"base\"}," //
+                      + "{\"name\":\"spend more\",\"operations\":[{\"op\":\"set_resource_change\",\"index\":1,\"resource\":\"gold\",\"change\":{\"type\":\"simple\",\"value\":-12}}]}," //
+                      + "{\"name\":\"extra stage\",\"operations\":[{\"op\":\"insert_stage\",\"index\":2,\"stage\":{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":5}}}}]}," //
+                      + "{\"name\":\"invalid\",\"operations\":[{\"op\":\"remove_stage\",\"index\":7}]}]") //
+              .when().post("/users/" + user + "/plans/" + planName + "/simulate") //
+              .then().statusCode(200) //
+              .extract().body().as(PlanVariantResultDto[].class);
+
+      assertThat(results.length, is(4));
+      assertThat(results[0].name, is("base"));
+      assertThat(results[0].valid, is(true));
+      assertThat(((SimpleResourceChange) results[0].totals.get("gold")).value(), is(6));
+      assertThat(results[1].valid, is(false));
+      assertThat(results[1].firstNegativeStage, is(1));
+      assertThat(((SimpleResourceChange) results[1].totals.get("gold")).value(), is(-2));
+      assertThat(results[2].stageCount, is(3));
+      assertThat(((SimpleResourceChange) results[2].totals.get("gold")).value(), is(11));
+      assertThat(results[3].error, notNullValue());
+
+      // nothing is stored
+      assertThat(Files.readString(planFile), is(originalContent));
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testSimulatePlan_planDoesNotExist() throws Exception {
+    String user = "TestUserSimulate2";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    try {
+      RestAssured.given() //
+              .contentType("application/json") //
+              .body("[{\"name\":\"base\"}]") //
+              .when().post("/users/" + user + "/plans/NonExistentPlan/simulate") //
+              .then().statusCode(404);
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testValidatePlan_reportsNegativeTotalsAndTypeMismatches() throws Exception {
+    createTestGameFile("TestGame1");
+    String user = "TestUserValidate";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    Files.writeString(userDir.resolve("PlanToValidate.json"), "{\"name\":\"PlanToValidate\",\"gameName\":\"TestGame1\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":3}}}," //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"absolute\",\"value\":1}}}," //
+            + "{\"resourceChanges\":{\"power\":{\"type\":\"terra_mystica_power\",\"bowl1\":5,\"bowl2\":1,\"bowl3\":0,\"gain\":0,\"burn\":1,\"use\":0}}}]}");
+    try {
+      PlanValidationDto validation = RestAssured.given() //
+              .when().get("/users/" + user + "/plans/PlanToValidate/validation") //
+              .then().statusCode(200) //
+              .extract().body().as(PlanValidationDto.class);
+
+      assertThat(validation.planName, is("PlanToValidate"));
+      assertThat(validation.stageCount, is(3));
+      assertThat(validation.valid, is(false));
+      assertThat(validation.firstNegativeStage, is(2));
+      assertThat(validation.issues, hasSize(2));
+      assertThat(validation.issues.get(0).type, is(PlanValidationIssueDto.Type.TYPE_MISMATCH));
+      assertThat(validation.issues.get(0).stage, is(1));
+      assertThat(validation.issues.get(0).resource, is("gold"));
+      assertThat(validation.issues.get(1).type, is(PlanValidationIssueDto.Type.NEGATIVE_TOTAL));
+      assertThat(validation.issues.get(1).stage, is(2));
+      assertThat(validation.issues.get(1).part, is("bowl2"));
+      assertThat(validation.issues.get(1).value, is(-1));
+
+      RestAssured.given() //
+              .when().get("/users/" + user + "/plans/NonExistentPlan/validation") //
+              .then().statusCode(404);
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testValidateGamePlans_listsTheInvalidPlansOfTheGame() throws Exception {
+    createTestGameFile("TestGame1");
+    String user = "TestUserValidateGame";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    Files.writeString(userDir.resolve("ValidPlan.json"), "{\"name\":\"ValidPlan\",\"gameName\":\"TestGame1\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":3}}}]}");
+    Files.writeString(userDir.resolve("InvalidPlan.json"), "{\"name\":\"InvalidPlan\",\"gameName\":\"TestGame1\",\"stages\":[" //
+            + "{\"resourceChanges\":{\"gold\":{\"type\":\"simple\",\"value\":-3}}}]}");
+    try {
+      GameValidationDto validation = RestAssured.given() //
+              .queryParam("pageSize", GameResource.MAX_VALIDATION_PAGE_SIZE) //
+              .when().get("/games/TestGame1/validation") //
+              .then().statusCode(200) //
+              .extract().body().as(GameValidationDto.class);
+
+      assertThat(validation.gameName, is("TestGame1"));
+      List<String> invalidPlans = validation.invalidPlans.stream() //
+              .filter(plan -> user.equals(plan.username)) //
+              .map(plan -> plan.planName) //
+              .toList();
+      assertThat(invalidPlans, contains("InvalidPlan"));
+      assertThat(validation.validatedPlans, greaterThanOrEqualTo(2));
+
+      // only the plans of the requested page are validated
+      GameValidationDto firstPage = RestAssured.given() //
+              .queryParam("pageSize", 1) //
+              .when().get("/games/TestGame1/validation") //
+              .then().statusCode(200) //
+              .extract().body().as(GameValidationDto.class);
+      assertThat(firstPage.validatedPlans, is(1));
+      assertThat(firstPage.totalCount, is(validation.totalCount));
+      assertThat(firstPage.totalCount, greaterThanOrEqualTo(2));
+
+      RestAssured.given() //
+              .queryParam("pageSize", GameResource.MAX_VALIDATION_PAGE_SIZE + 1) //
+              .when().get("/games/TestGame1/validation") //
+              .then().statusCode(400);
+
+      RestAssured.given() //
+              .when().get("/games/NonExistentGame/validation") //
+              .then().statusCode(404);
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
   @Test
   public void testUpdatePlan_userDoesNotExist() throws Exception {
     String user = "TestUserUpdate1";
@@ -464,6 +749,10 @@ public class PlanResourceTest {
       String updatedFileContent = Files.readString(planFile);
       assertThat(updatedFileContent, containsString("Updated description"));
       assertThat(updatedFileContent, containsString("New Stage"));
+      // the plan file is replaced by a temp file, that must not be left in the user directory
+      try (var files = Files.list(userDir)) {
+        assertThat(files.map(file -> file.getFileName().toString()).toList(), contains(planName + ".json"));
+      }
     }
     finally {
       Files.deleteIfExists(planFile);
@@ -471,6 +760,214 @@ public class PlanResourceTest {
     }
   }
 
+  @Test
+  public void testUpdatePlan_outdatedIfMatchReturnsConflict() throws Exception {
+    String user = "TestUserUpdate4";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanToUpdateConcurrently";
+    Path planFile = userDir.resolve(planName + ".json");
+    Files.writeString(planFile, "{\"name\":\"PlanToUpdateConcurrently\",\"gameName\":\"TestGame1\",\"description\":\"Original\"}");
+    try {
+      var loaded = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200).header("ETag", notNullValue()) //
+              .extract();
+      String etag = loaded.header("ETag");
+      PlanDto planDto = loaded.body().as(PlanDto.class);
+
+      // the first update is based on the current version
+      planDto.description = "First update";
+      String newEtag = RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", etag) //
+              .body(planDto) //
+              .when().put("/users/" + user + "/plans") //
+              .then().statusCode(200).header("ETag", notNullValue()) //
+              .extract().header("ETag");
+      assertThat(newEtag, is(not(etag)));
+
+      // the second update is based on the outdated version
+      planDto.description = "Stale update";
+      var response = RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", etag) //
+              .body(planDto) //
+              .when().put("/users/" + user + "/plans") //
+              .then().extract();
+      assertThat(response.statusCode(), is(409));
+      assertThat(Files.readString(planFile), containsString("First update"));
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testGetPlan_ifNoneMatchReturnsNotModified() throws Exception {
+    String user = "TestUserConditionalGet";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanToGetConditionally";
+    Path planFile = userDir.resolve(planName + ".json");
+    Files.writeString(planFile, "{\"name\":\"PlanToGetConditionally\",\"gameName\":\"TestGame1\",\"description\":\"Original\"}");
+    try {
+      String etag = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200).header("ETag", notNullValue()).header("Last-Modified", notNullValue()) //
+              .extract().header("ETag");
+
+      RestAssured.given() //
+              .header("Accept", "application/json") //
+              .header("If-None-Match", etag) //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(304).header("ETag", is(etag));
+
+      // a changed plan file is sent again
+      Files.writeString(planFile, "{\"name\":\"PlanToGetConditionally\",\"gameName\":\"TestGame1\",\"description\":\"Changed on disk\"}");
+      PlanDto planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .header("If-None-Match", etag) //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200).header("ETag", is(not(etag))) //
+              .extract().body().as(PlanDto.class);
+      assertThat(planDto.description, is("Changed on disk"));
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testGetPlan_stageRange() throws Exception {
+    String user = "TestUserStageRange";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanWithManyStages";
+    Files.writeString(userDir.resolve(planName + ".json"), """
+            {"name":"PlanWithManyStages","gameName":"TestGame1","stages":[
+              {"description":"Stage 0","resourceChanges":{"gold":{"type":"simple","value":1}}},
+              {"description":"Stage 1","resourceChanges":{"cults":{"type":"simple_combined","resources":{"Fire":1}}}},
+              {"description":"Stage 2","resourceChanges":{}},
+              {"description":"Stage 3","resourceChanges":{}}
+            ],"description":"After the stages"}
+            """);
+    try {
+      PlanDto planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName + "?fromStage=1&toStage=2") //
+              .then().statusCode(200).header(PlanResource.STAGE_COUNT_HEADER, "4") //
+              .extract().body().as(PlanDto.class);
+      assertThat(planDto.stages.stream().map(stage -> stage.description).toList(), contains("Stage 1", "Stage 2"));
+      assertThat(planDto.description, is("After the stages"));
+
+      planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName + "?fromStage=3&toStage=10") //
+              .then().statusCode(200) //
+              .extract().body().as(PlanDto.class);
+      assertThat(planDto.stages.stream().map(stage -> stage.description).toList(), contains("Stage 3"));
+
+      planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200).header(PlanResource.STAGE_COUNT_HEADER, "4") //
+              .extract().body().as(PlanDto.class);
+      assertThat(planDto.stages, hasSize(4));
+
+      RestAssured.given() //
+              .when().get("/users/" + user + "/plans/" + planName + "?fromStage=2&toStage=1") //
+              .then().statusCode(400);
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testPatchPlan_appliesStageOperations() throws Exception {
+    String user = "TestUserPatch";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    String planName = "PlanToPatch";
+    Path planFile = userDir.resolve(planName + ".json");
+    Files.writeString(planFile, "{\"name\":\"PlanToPatch\",\"gameName\":\"TestGame1\",\"description\":\"Original\",\"stages\":[{\"description\":\"Start\",\"resourceChanges\":{}}]}");
+    try {
+      String etag = RestAssured.given() //
+              .contentType("application/json") //
+              .body("""
+                      [
+                        {"op":"insert_stage","index":1,"stage":{"description":"Second"}},
+                        {"op":"set_resource_change","index":1,"resource":"gold","change":{"type":"simple","value":-2}},
+                        {"op":"set_description","description":"Patched"}
+                      ]
+                      """) //
+              .when().patch("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(204).header("ETag", notNullValue()) //
+              .extract().header("ETag");
+
+      PlanDto planDto = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(200).header("ETag", is(etag)) //
+              .extract().body().as(PlanDto.class);
+      assertThat(planDto.description, is("Patched"));
+      assertThat(planDto.stages, hasSize(2));
+      assertThat(planDto.stages.get(1).description, is("Second"));
+      assertThat(((SimpleResourceChange) planDto.stages.get(1).resourceChanges.get("gold")).value(), is(-2));
+
+      // invalid operations are rejected without changing the plan
+      RestAssured.given() //
+              .contentType("application/json") //
+              .header("If-Match", etag) //
+              .body("[{\"op\":\"set_description\",\"description\":\"Lost\"},{\"op\":\"remove_stage\",\"index\":5}]") //
+              .when().patch("/users/" + user + "/plans/" + planName) //
+              .then().statusCode(400);
+      assertThat(Files.readString(planFile), not(containsString("Lost")));
+    }
+    finally {
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
+  @Test
+  public void testCreatePlan_concurrentRequestsCreateUniquePlans() throws Exception {
+    String user = "TestUserConcurrentCreate";
+    Path userDir = Paths.get("build/test-gameplan-data/.users/" + user);
+    Files.createDirectories(userDir);
+    Path gameFile = GAMES_DIR.resolve("TestGameConcurrent.json");
+    Files.createDirectories(GAMES_DIR);
+    Files.writeString(gameFile, "{\"name\":\"TestGameConcurrent\"}");
+    int planCount = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(planCount);
+    try {
+      List<Future<String>> createdPlans = new ArrayList<>();
+      for (int i = 0; i < planCount; i++) {
+        createdPlans.add(executor.submit(() -> RestAssured.given() //
+                .header("Accept", "application/json") //
+                .when().post("/users/" + user + "/plans/TestGameConcurrent") //
+                .then().statusCode(201) //
+                .extract().body().as(PlanDto.class).name));
+      }
+      Set<String> planNames = new HashSet<>();
+      for (Future<String> createdPlan : createdPlans) {
+        planNames.add(createdPlan.get());
+      }
+
+      assertThat(planNames, hasSize(planCount));
+      try (var files = Files.list(userDir)) {
+        assertThat(files.count(), is((long) planCount));
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      Files.deleteIfExists(gameFile);
+      deleteDirectoryRecursively(userDir);
+    }
+  }
+
   @Test
   public void testDeletePlan_userDoesNotExist() throws Exception {
     String user = "TestUserDelete1";
@@ -0,0 +1,111 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.PlanSummaryPageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class PlanSummaryResourceTest {
+
+  private static final String TEST_USER = "TestUserSummaries";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+
+  @BeforeEach
+  void setupUser() throws Exception {
+    Files.createDirectories(USER_DIR);
+    Files.writeString(USER_DIR.resolve("PlanOld.json"), """
+            {
+              "name": "PlanOld",
+              "gameName": "TestGame1",
+              "description": "Older plan",
+              "lastModified": "2024-01-01T10:00:00.000Z",
+              "stages": [ { "description": "Stage 1", "resourceChanges": {} } ]
+            }
+            """);
+    Files.writeString(USER_DIR.resolve("PlanNew.json"), """
+            {
+              "name": "PlanNew",
+              "gameName": "TestGame1",
+              "description": "Newer plan",
+              "lastModified": "2025-01-01T10:00:00.000Z",
+              "stages": [
+                { "description": "Stage 1", "resourceChanges": {} },
+                { "description": "Stage 2", "resourceChanges": {} }
+              ]
+            }
+            """);
+  }
+
+  @AfterEach
+  void cleanupUser() throws IOException {
+    if (Files.exists(USER_DIR)) {
+      try (var files = Files.walk(USER_DIR)) {
+        files.sorted((a, b) -> b.compareTo(a)) // delete children before parents
+                .forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  @Test
+  public void testGetPlanSummaries_returnsSummariesOrderedByLastModification() {
+    PlanSummaryPageDto summaryPage = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plan-summaries") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanSummaryPageDto.class);
+
+    assertThat(summaryPage.totalCount, is(2));
+    assertThat(summaryPage.summaries, hasSize(2));
+    assertThat(summaryPage.summaries.get(0).name, is("PlanNew"));
+    assertThat(summaryPage.summaries.get(0).gameName, is("TestGame1"));
+    assertThat(summaryPage.summaries.get(0).description, is("Newer plan"));
+    assertThat(summaryPage.summaries.get(0).stageCount, is(2));
+    assertThat(summaryPage.summaries.get(1).name, is("PlanOld"));
+    assertThat(summaryPage.summaries.get(1).stageCount, is(1));
+  }
+
+  @Test
+  public void testGetPlanSummaries_paged() {
+    PlanSummaryPageDto summaryPage = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .queryParam("page", 1) //
+            .queryParam("pageSize", 1) //
+            .when().get("/users/" + TEST_USER + "/plan-summaries") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanSummaryPageDto.class);
+
+    assertThat(summaryPage.totalCount, is(2));
+    assertThat(summaryPage.summaries, hasSize(1));
+    assertThat(summaryPage.summaries.get(0).name, is("PlanOld"));
+  }
+
+  @Test
+  public void testGetPlanSummaries_invalidPageSize() {
+    RestAssured.given() //
+            .header("Accept", "application/json") //
+            .queryParam("pageSize", 0) //
+            .when().get("/users/" + TEST_USER + "/plan-summaries") //
+            .then().statusCode(400);
+  }
+
+  @Test
+  public void testGetPlanSummaries_userDoesNotExist() {
+    var response = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/NonExistentSummaryUser/plan-summaries") //
+            .then().extract();
+    assertThat(response.statusCode(), is(404));
+    assertThat(response.body().asString(), containsString("User not found"));
+  }
+}
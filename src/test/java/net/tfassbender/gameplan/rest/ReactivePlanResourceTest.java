@@ -0,0 +1,124 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.PlanDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+public class ReactivePlanResourceTest {
+
+  private static final String TEST_USER = "TestUserReactive";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  private static final Path PLAN_FILE = USER_DIR.resolve("ReactivePlan.json");
+
+  @BeforeEach
+  void setupUser() throws Exception {
+    Files.createDirectories(USER_DIR);
+    Files.writeString(PLAN_FILE, "{\"name\":\"ReactivePlan\",\"gameName\":\"TestGame1\",\"description\":\"Original\"}");
+  }
+
+  @AfterEach
+  void cleanupUser() throws IOException {
+    try (Stream<Path> files = Files.walk(USER_DIR)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testGetPlan_returnsTheSamePlanAsTheBlockingEndpoint() {
+    String etag = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(200) //
+            .extract().header("ETag");
+
+    // the second request is served from the index
+    for (int i = 0; i < 2; i++) {
+      PlanDto plan = RestAssured.given() //
+              .header("Accept", "application/json") //
+              .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+              .then().statusCode(200).header("ETag", is(etag)) //
+              .extract().body().as(PlanDto.class);
+      assertThat(plan.description, is("Original"));
+    }
+
+    RestAssured.given() //
+            .header("If-None-Match", etag) //
+            .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(304);
+  }
+
+  @Test
+  public void testGetPlan_detectsChangesOnDisk() throws Exception {
+    RestAssured.given() //
+            .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(200);
+
+    Files.writeString(PLAN_FILE, "{\"name\":\"ReactivePlan\",\"gameName\":\"TestGame1\",\"description\":\"Changed on disk\"}");
+
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    assertThat(plan.description, is("Changed on disk"));
+  }
+
+  @Test
+  public void testUpdateAndDeletePlan() {
+    PlanDto plan = RestAssured.given() //
+            .header("Accept", "application/json") //
+            .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(200) //
+            .extract().body().as(PlanDto.class);
+    plan.description = "Updated";
+
+    RestAssured.given() //
+            .contentType("application/json") //
+            .header("If-Match", "\"outdated\"") //
+            .body(plan) //
+            .when().put("/reactive/users/" + TEST_USER + "/plans") //
+            .then().statusCode(409);
+    RestAssured.given() //
+            .contentType("application/json") //
+            .body(plan) //
+            .when().put("/reactive/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    List<String> plans = RestAssured.given() //
+            .when().get("/reactive/users/" + TEST_USER + "/plans") //
+            .then().statusCode(200) //
+            .extract().body().jsonPath().getList("", String.class);
+    assertThat(plans, contains("ReactivePlan"));
+
+    RestAssured.given() //
+            .when().delete("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(204);
+    RestAssured.given() //
+            .when().get("/reactive/users/" + TEST_USER + "/plans/ReactivePlan") //
+            .then().statusCode(404);
+  }
+
+  @Test
+  public void testGetPlan_userDoesNotExist() {
+    RestAssured.given() //
+            .when().get("/reactive/users/TestUserReactiveMissing/plans/ReactivePlan") //
+            .then().statusCode(404);
+  }
+}
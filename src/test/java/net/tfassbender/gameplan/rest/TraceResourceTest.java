@@ -0,0 +1,108 @@
+package net.tfassbender.gameplan.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import net.tfassbender.gameplan.dto.TraceSpanDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the sampled traces of the persistence layer (with all calls being traced).
+ */
+@QuarkusTest
+@TestProfile(TraceResourceTest.TraceAllCallsProfile.class)
+public class TraceResourceTest {
+
+  private static final String TEST_USER = "TestUserTraces";
+  private static final Path USER_DIR = Paths.get("build/test-gameplan-data/.users/" + TEST_USER);
+  // a user that is only used by one test, so the plan index of the user is built by the traced call
+  private static final String SCAN_TEST_USER = "TestUserTracesScan";
+  private static final Path SCAN_USER_DIR = Paths.get("build/test-gameplan-data/.users/" + SCAN_TEST_USER);
+
+  public static class TraceAllCallsProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("game_plan.tracing.sample_rate", "1");
+    }
+  }
+
+  @BeforeEach
+  void setupUsers() throws Exception {
+    for (Path userDir : List.of(USER_DIR, SCAN_USER_DIR)) {
+      Files.createDirectories(userDir);
+      for (int i = 0; i < 3; i++) {
+        Files.writeString(userDir.resolve("TracedPlan" + i + ".json"), "{\"name\":\"TracedPlan" + i + "\",\"gameName\":\"TestGame\",\"stages\":[]}");
+      }
+    }
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    for (Path userDir : List.of(USER_DIR, SCAN_USER_DIR)) {
+      try (Stream<Path> files = Files.walk(userDir)) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testScanOfTheUserDirectoryIsTraced() {
+    RestAssured.given() //
+            .when().get("/users/" + SCAN_TEST_USER + "/plans") //
+            .then().statusCode(200);
+
+    List<TraceSpanDto> spans = Arrays.asList(RestAssured.given() //
+            .queryParam("operation", "getPlanNames") //
+            .when().get("/traces") //
+            .then().statusCode(200) //
+            .extract().body().as(TraceSpanDto[].class));
+
+    TraceSpanDto span = spans.stream().filter(s -> s.service.equals("PlanFileService")).findFirst().orElseThrow();
+    assertThat(span.outcome, is("success"));
+    assertThat(span.traceId, notNullValue());
+    assertThat(span.counters.get("plan_index.scanned_files"), is(3L));
+    assertThat(span.counters.get("plan_index.parsed_files"), is(3L));
+  }
+
+  @Test
+  public void testNestedCallsArePartOfTheTrace() {
+    RestAssured.given() //
+            .when().get("/users/" + TEST_USER + "/plans/TracedPlan0") //
+            .then().statusCode(200);
+
+    TraceSpanDto[] spans = RestAssured.given() //
+            .when().get("/traces") //
+            .then().statusCode(200) //
+            .extract().body().as(TraceSpanDto[].class);
+
+    // every span with a parent belongs to the trace of its parent
+    for (TraceSpanDto span : spans) {
+      if (span.parentSpanId != null) {
+        TraceSpanDto parent = Arrays.stream(spans).filter(s -> span.parentSpanId.equals(s.spanId)).findFirst().orElse(null);
+        if (parent != null) {
+          assertThat(span.traceId, is(parent.traceId));
+        }
+      }
+    }
+    assertThat(Arrays.stream(spans).map(s -> s.operation).toList(), hasItem("getPlanVersion"));
+  }
+}
@@ -0,0 +1,36 @@
+package net.tfassbender.gameplan.rest;
+
+import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import net.tfassbender.gameplan.exception.GamePlanPersistenceException;
+import net.tfassbender.gameplan.persistence.PlanService;
+
+/**
+ * Reads plans on the worker pool (like the {@link PlanResource} did before it was moved to virtual threads), to compare
+ * the throughput of both in the {@link PlanReadLoadTest}.
+ */
+@Path("load-test/worker-pool/users/{username}/plans")
+@Produces(MediaType.APPLICATION_JSON)
+public class WorkerPoolPlanResource {
+
+  @Inject
+  private PlanService planService;
+
+  @GET
+  @Blocking
+  @Path("/{planName}")
+  public Response getPlan(@PathParam("username") String username, @PathParam("planName") String planName) {
+    try {
+      return Response.ok(planService.getPlan(username, planName)).build();
+    }
+    catch (GamePlanPersistenceException e) {
+      return Response.serverError().build();
+    }
+  }
+}
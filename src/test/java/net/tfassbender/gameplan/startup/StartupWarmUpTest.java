@@ -0,0 +1,80 @@
+package net.tfassbender.gameplan.startup;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+@TestProfile(StartupWarmUpTest.WarmUpProfile.class)
+public class StartupWarmUpTest {
+
+  private static final Path USERS_DIR = Paths.get("build/test-gameplan-data/.users");
+  private static final List<String> TEST_USERS = List.of("TestUserWarmUpOld", "TestUserWarmUpNew");
+
+  @Inject
+  private StartupWarmUp startupWarmUp;
+
+  public static class WarmUpProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      // more users than the test users, so the order of the test users can be checked
+      return Map.of("game_plan.warm_up.users", "1000");
+    }
+  }
+
+  @BeforeEach
+  void setupUsers() throws Exception {
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < TEST_USERS.size(); i++) {
+      Path userDir = USERS_DIR.resolve(TEST_USERS.get(i));
+      Files.createDirectories(userDir);
+      Files.writeString(userDir.resolve("WarmUpPlan.json"), "{\"name\":\"WarmUpPlan\",\"gameName\":\"TestGame\",\"stages\":[]}");
+      // the new user was active after all other users
+      Files.setLastModifiedTime(userDir, FileTime.fromMillis(now + TimeUnit.HOURS.toMillis(i)));
+    }
+  }
+
+  @AfterEach
+  void cleanup() throws IOException {
+    for (String user : TEST_USERS) {
+      try (Stream<Path> files = Files.walk(USERS_DIR.resolve(user))) {
+        for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRecentlyActiveUsersAreWarmedUpFirst() {
+    List<String> users = startupWarmUp.getRecentlyActiveUsers();
+
+    assertThat(users, hasItems("TestUserWarmUpOld", "TestUserWarmUpNew"));
+    assertThat(users.get(0), is("TestUserWarmUpNew"));
+    assertThat(users.indexOf("TestUserWarmUpNew"), lessThan(users.indexOf("TestUserWarmUpOld")));
+  }
+
+  @Test
+  public void testWarmUpCompletes() throws Exception {
+    startupWarmUp.start().get(30, TimeUnit.SECONDS);
+  }
+}